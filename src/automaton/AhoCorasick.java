@@ -0,0 +1,401 @@
+package automaton;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import automaton.thompsons.BlockType;
+import automaton.thompsons.ConBlock;
+
+/**
+ * Class checking words against a finite set of words, such as a regular
+ * expression made of plain words and alternations of words, with the
+ * Aho-Corasick automaton of the set. The words are put in a trie, whose
+ * states are the prefixes of the words, and each state is linked to the
+ * state of its longest proper suffix in the trie. The links are folded into
+ * a dense table of the state each state moves to by each character, so the
+ * table is a DFA finding the words anywhere in a text, built with no subset
+ * construction and with at most one state for each character of the words.
+ * A word is checked from the start by following the table as long as each
+ * character leads one level down the trie.
+ *
+ * The table is never changed, so one matcher can be shared between threads.
+ *
+ * @author agent
+ *
+ */
+public final class AhoCorasick implements Matcher {
+
+	/** The most words a regular expression may stand for to be made a set. */
+	public static final int MAX_LITERALS = 1024;
+
+	/** The most characters the words of the parts of an expression may take. */
+	public static final int MAX_CHARACTERS = 1 << 15;
+
+	/** The most entries the table of the words of an expression may take. */
+	private static final long MAX_TABLE = 1 << 22;
+
+	/** The characters looked up in an array rather than searched for. */
+	private static final int DIRECT = 128;
+
+	/** The number of states the trie has room for at first. */
+	private static final int TRIE = 64;
+
+	/** The characters of the words, in order. */
+	private final char[] chars;
+
+	/** The column of each character below DIRECT, or 0. */
+	private final int[] direct;
+
+	/** The number of columns: one for each character and one for the rest. */
+	private final int width;
+
+	/** The state each state moves to by each column, at state * width + column. */
+	private final int[] table;
+
+	/** The length of the prefix of each state. */
+	private final int[] depth;
+
+	/** Whether the prefix of each state is one of the words. */
+	private final boolean[] word;
+
+	/** Whether the prefix of each state ends with one of the words. */
+	private final boolean[] found;
+
+	/**
+	 * Build the automaton of a set of words
+	 *
+	 * @param words
+	 *            The words, which may repeat
+	 */
+	public AhoCorasick(List<String> words) {
+		// the columns of the characters
+		int total = 0;
+		StringBuilder all = new StringBuilder();
+		for (String w : words) {
+			all.append(w);
+			total += w.length();
+		}
+		char[] sorted = all.toString().toCharArray();
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (i == 0 || sorted[i] != sorted[i - 1])
+				sorted[distinct++] = sorted[i];
+		chars = Arrays.copyOf(sorted, distinct);
+		direct = new int[DIRECT];
+		for (int i = 0; i < chars.length && chars[i] < DIRECT; i++)
+			direct[chars[i]] = i + 1;
+		width = chars.length + 1;
+
+		// the trie, with -1 where there is no child, grown as states are
+		// added since words sharing prefixes need fewer states than
+		// characters
+		int capacity = Math.min(total + 1, TRIE);
+		int[] trie = new int[capacity * width];
+		Arrays.fill(trie, -1);
+		int[] levels = new int[capacity];
+		boolean[] ends = new boolean[capacity];
+		int n = 1;
+		for (String w : words) {
+			int s = 0;
+			for (int i = 0; i < w.length(); i++) {
+				int entry = s * width + column(w.charAt(i));
+				if (trie[entry] < 0) {
+					if (n == capacity) {
+						capacity = Math.min(total + 1, capacity * 2);
+						int old = trie.length;
+						trie = Arrays.copyOf(trie, capacity * width);
+						Arrays.fill(trie, old, trie.length, -1);
+						levels = Arrays.copyOf(levels, capacity);
+						ends = Arrays.copyOf(ends, capacity);
+					}
+					levels[n] = i + 1;
+					trie[entry] = n++;
+				}
+				s = trie[entry];
+			}
+			ends[s] = true;
+		}
+
+		// the links to the longest suffixes, followed in order of depth so
+		// that the row of the state a state is linked to is already complete
+		table = Arrays.copyOf(trie, n * width);
+		depth = Arrays.copyOf(levels, n);
+		word = Arrays.copyOf(ends, n);
+		found = Arrays.copyOf(ends, n);
+		int[] suffix = new int[n];
+		ArrayDeque<Integer> pending = new ArrayDeque<Integer>();
+		pending.add(0);
+		while (!pending.isEmpty()) {
+			int s = pending.poll();
+			int link = suffix[s];
+			found[s] |= found[link];
+			table[s * width] = 0;
+			for (int column = 1; column < width; column++) {
+				int entry = s * width + column;
+				int child = table[entry];
+				if (child >= 0) {
+					suffix[child] = s == 0 ? 0 : table[link * width + column];
+					pending.add(child);
+				} else {
+					table[entry] = s == 0 ? 0 : table[link * width + column];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the words a regular expression stands for, if there are few
+	 * enough of them. Only an expression with no star, other than of the
+	 * empty word, can stand for finitely many words. A chain of
+	 * concatenations or of alternations is worked out as one part, so the
+	 * words of the links inside it, such as every suffix of a long word, are
+	 * never kept, and the search gives up as soon as the words kept grow too
+	 * long.
+	 *
+	 * @param c
+	 *            The tree-like representation of the regular expression
+	 * @return The words, or null if there are more than MAX_LITERALS of them,
+	 *         the words of its parts take more than MAX_CHARACTERS characters
+	 *         or their table would have more than MAX_TABLE entries
+	 */
+	public static List<String> getLiterals(ConBlock c) {
+		// the words of each part, worked out after the parts inside it, each
+		// shared part once
+		IdentityHashMap<ConBlock, Set<String>> words = new IdentityHashMap<ConBlock, Set<String>>();
+		ArrayDeque<ConBlock> pending = new ArrayDeque<ConBlock>();
+		long kept = 0;
+		pending.push(c);
+		while (!pending.isEmpty()) {
+			ConBlock b = pending.peek();
+			if (words.containsKey(b)) {
+				pending.pop();
+				continue;
+			}
+			Set<String> set;
+			if (b.getType() == BlockType.ELEM) {
+				set = new LinkedHashSet<String>();
+				set.add(String.valueOf(b.getElement()));
+			} else if (b.getType() == BlockType.EMPTY) {
+				set = new LinkedHashSet<String>();
+				set.add("");
+			} else {
+				List<ConBlock> parts = parts(b);
+				boolean ready = true;
+				for (ConBlock part : parts) {
+					if (!words.containsKey(part)) {
+						pending.push(part);
+						ready = false;
+					}
+				}
+				if (!ready)
+					continue;
+				switch (b.getType()) {
+				case STAR: {
+					Set<String> inside = words.get(parts.get(0));
+					if (inside.size() != 1 || !inside.contains(""))
+						return null;
+					set = inside;
+					break;
+				}
+				case CONCAT:
+					set = concatenate(parts, words);
+					break;
+				default:
+					set = new LinkedHashSet<String>();
+					for (ConBlock part : parts)
+						set.addAll(words.get(part));
+					if (set.size() > MAX_LITERALS)
+						return null;
+					break;
+				}
+				if (set == null)
+					return null;
+			}
+			for (String w : set)
+				kept += w.length();
+			if (kept > MAX_CHARACTERS)
+				return null;
+			words.put(b, set);
+			pending.pop();
+		}
+
+		// the table of the words must fit as well
+		List<String> literals = new ArrayList<String>(words.get(c));
+		long total = 0;
+		StringBuilder all = new StringBuilder();
+		for (String w : literals) {
+			total += w.length();
+			all.append(w);
+		}
+		long distinct = all.chars().distinct().count();
+		if ((total + 1) * (distinct + 1) > MAX_TABLE)
+			return null;
+		return literals;
+	}
+
+	/**
+	 * Get the parts a part of a regular expression is made of, taking a chain
+	 * of concatenations or of alternations as one part
+	 *
+	 * @param b
+	 *            The part, which is not a single character or the empty word
+	 * @return The parts inside it, in order
+	 */
+	private static List<ConBlock> parts(ConBlock b) {
+		ArrayList<ConBlock> parts = new ArrayList<ConBlock>();
+		if (b.getType() == BlockType.STAR) {
+			parts.add(b.getInsides()[0]);
+			return parts;
+		}
+		ArrayDeque<ConBlock> pending = new ArrayDeque<ConBlock>();
+		pending.push(b);
+		while (!pending.isEmpty()) {
+			ConBlock next = pending.pop();
+			if (next.getType() != b.getType()) {
+				parts.add(next);
+				continue;
+			}
+			ConBlock[] insides = next.getInsides();
+			for (int i = insides.length - 1; i >= 0; i--)
+				pending.push(insides[i]);
+		}
+		return parts;
+	}
+
+	/**
+	 * Find the words made by concatenating words of some parts, in order.
+	 * A word is appended in place while a part has only one word, so a long
+	 * word is built once rather than one suffix at a time.
+	 *
+	 * @param parts
+	 *            The parts
+	 * @param words
+	 *            The words of each part
+	 * @return The words, or null if there are too many or they are too long
+	 */
+	private static Set<String> concatenate(List<ConBlock> parts, IdentityHashMap<ConBlock, Set<String>> words) {
+		ArrayList<StringBuilder> product = new ArrayList<StringBuilder>();
+		product.add(new StringBuilder());
+		long length = 0;
+		for (ConBlock part : parts) {
+			Set<String> factor = words.get(part);
+			if (factor.size() == 1) {
+				String w = factor.iterator().next();
+				length += (long) product.size() * w.length();
+				if (length > MAX_CHARACTERS)
+					return null;
+				for (StringBuilder p : product)
+					p.append(w);
+				continue;
+			}
+			Set<String> next = new LinkedHashSet<String>();
+			length = 0;
+			for (StringBuilder p : product)
+				for (String w : factor) {
+					if (next.add(p + w))
+						length += p.length() + w.length();
+					if (next.size() > MAX_LITERALS || length > MAX_CHARACTERS)
+						return null;
+				}
+			product.clear();
+			for (String w : next)
+				product.add(new StringBuilder(w));
+		}
+		Set<String> set = new LinkedHashSet<String>();
+		for (StringBuilder p : product)
+			set.add(p.toString());
+		return set;
+	}
+
+	/**
+	 * Get the column of a character
+	 *
+	 * @param c
+	 *            The character
+	 * @return The column
+	 */
+	private int column(char c) {
+		if (c < DIRECT)
+			return direct[c];
+		return Math.max(0, Arrays.binarySearch(chars, c) + 1);
+	}
+
+	/**
+	 * Check whether a word is in the set
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is in the set
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		int s = 0;
+		for (int i = 0, length = word.length(); i < length; i++) {
+			s = table[s * width + column(word.charAt(i))];
+			if (depth[s] != i + 1)
+				return false;
+		}
+		return this.word[s];
+	}
+
+	/**
+	 * Check whether part of an array of characters is in the set
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is in the set
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		int s = 0;
+		for (int i = from; i < to; i++) {
+			s = table[s * width + column(text[i])];
+			if (depth[s] != i - from + 1)
+				return false;
+		}
+		return word[s];
+	}
+
+	/**
+	 * Build the DFA which is in an accepting state whenever the characters
+	 * read so far end with a word of the set, the same as the one built by
+	 * AutomatonCompiler.compileSearch from the Thompson NFA, though it may
+	 * not be minimal
+	 *
+	 * @return The DFA, with an edge out of every state for every character of
+	 *         the words
+	 */
+	public CompactAutomaton toSearchAutomaton() {
+		int n = depth.length;
+		ArrayList<State> states = new ArrayList<State>(n);
+		for (int s = 0; s < n; s++)
+			states.add(new State(s, found[s], (s + 1) + ""));
+		for (int s = 0; s < n; s++)
+			for (int column = 1; column < width; column++)
+				states.get(s).addEdge(new Edge(states.get(table[s * width + column]), new NewChar(chars[column - 1])));
+		Automaton a = new Automaton();
+		a.addStates(states);
+		for (char c : chars)
+			a.addChar(c);
+		return new CompactAutomaton(a);
+	}
+
+	/**
+	 * Get the number of states, one for each prefix of the words
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return depth.length;
+	}
+}
@@ -0,0 +1,110 @@
+package automaton;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class splitting the alphabet of an automaton into classes of characters
+ * which every state treats the same way, so that a table needs a column for
+ * each class rather than for each character. Class 0 holds every character
+ * not in the alphabet. The classes are found by starting with the whole
+ * alphabet in one class and splitting the classes at each state by the state
+ * their edges go to.
+ *
+ * @author agent
+ *
+ */
+public final class AlphabetPartition {
+
+	/** The characters looked up in an array rather than searched for. */
+	private static final int DIRECT = 128;
+
+	/** The class of each character below DIRECT. */
+	private final int[] direct;
+
+	/** The characters of the alphabet, in order, and their classes. */
+	private final char[] chars;
+	private final int[] classes;
+
+	/** The number of classes, class 0 included. */
+	private final int count;
+
+	/**
+	 * Split the alphabet of an automaton
+	 *
+	 * @param a
+	 *            The automaton
+	 */
+	public AlphabetPartition(CompactAutomaton a) {
+		chars = a.getAlphabet();
+		int[] current = new int[chars.length];
+		int next = 1;
+		if (chars.length > 0)
+			Arrays.fill(current, next++);
+
+		// the characters of a class with an edge at a state move to a new
+		// class for each state they go to, the others stay
+		HashMap<Long, Integer> split = new HashMap<Long, Integer>();
+		for (int s = 0; s < a.getNumberOfStates(); s++) {
+			split.clear();
+			for (int i = a.getFirstEdge(s); i < a.getFirstEdge(s + 1); i++) {
+				int c = Arrays.binarySearch(chars, a.getInput(i));
+				long key = ((long) current[c] << 32) | a.getTarget(i);
+				Integer to = split.get(key);
+				if (to == null) {
+					to = next++;
+					split.put(key, to);
+				}
+				current[c] = to;
+			}
+		}
+
+		// number the classes from 1 in the order of their first characters
+		int[] number = new int[next];
+		classes = new int[chars.length];
+		direct = new int[DIRECT];
+		int found = 1;
+		for (int c = 0; c < chars.length; c++) {
+			if (number[current[c]] == 0)
+				number[current[c]] = found++;
+			classes[c] = number[current[c]];
+			if (chars[c] < DIRECT)
+				direct[chars[c]] = classes[c];
+		}
+		count = found;
+	}
+
+	/**
+	 * Get the class of a character
+	 *
+	 * @param c
+	 *            The character
+	 * @return The class, 0 for characters not in the alphabet
+	 */
+	public int classOf(char c) {
+		if (c < DIRECT)
+			return direct[c];
+		int i = Arrays.binarySearch(chars, c);
+		return i < 0 ? 0 : classes[i];
+	}
+
+	/**
+	 * Get the number of classes
+	 *
+	 * @return The number of classes, the class of characters not in the
+	 *         alphabet included
+	 */
+	public int getNumberOfClasses() {
+		return count;
+	}
+
+	/**
+	 * Get the class of each character below 128, for looking them up without
+	 * a call
+	 *
+	 * @return The classes, by character
+	 */
+	public int[] getDirectClasses() {
+		return Arrays.copyOf(direct, DIRECT);
+	}
+}
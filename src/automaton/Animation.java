@@ -1,23 +1,28 @@
 package automaton;
 
 import gui.canvas.VisualRepresentation;
-import gui.canvas.VisualState;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * Class containing particular snapshots of an automaton.
+ * Class containing particular snapshots of an automaton. The snapshots are
+ * not kept, only the steps they show; a frame is drawn when it is asked for,
+ * and the few most recently drawn ones are kept for when they are asked for
+ * again.
  * 
  * @author Piotr Wilczynski
  * @author Botond Megyesfalvi
  * 
  */
-public class Animation {
+public abstract class Animation {
 
-	/** The frames */
-	protected ArrayList<VisualRepresentation> frames;
+	/** The number of drawn frames kept. */
+	private static final int DRAWN_FRAMES = 16;
+
+	/** The most recently drawn frames, the least recently used one first. */
+	private LinkedHashMap<Integer, VisualRepresentation> drawn;
 
 	/** The automaton */
 	protected Automaton automaton;
@@ -27,28 +32,50 @@ public class Animation {
 	 * Create a new instance
 	 */
 	public Animation() {
-		frames = new ArrayList<VisualRepresentation>();
+		drawn = new LinkedHashMap<Integer, VisualRepresentation>(DRAWN_FRAMES, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, VisualRepresentation> eldest) {
+				return size() > DRAWN_FRAMES;
+			}
+		};
 	}
 
 	/**
-	 * Get a particular frame
+	 * Get a particular frame. Asking for the same frame again gives the same
+	 * object, as long as it is still one of the most recently drawn ones.
 	 *
 	 * @param index
 	 *            The index
 	 * @return The frame
 	 */
 	public VisualRepresentation getFrame(int index) {
-		return frames.get(index);
+		if (index < 0 || index >= getFrameCount())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getFrameCount());
+		VisualRepresentation frame = drawn.get(index);
+		if (frame == null) {
+			frame = drawFrame(index);
+			drawn.put(index, frame);
+		}
+		return frame;
 	}
 
+	/**
+	 * Draw a particular frame from the step it shows
+	 *
+	 * @param index
+	 *            The index
+	 * @return The frame
+	 */
+	protected abstract VisualRepresentation drawFrame(int index);
+
 	/**
 	 * Get the number of frames
 	 *
 	 * @return The number of frames
 	 */
-	public int getFrameCount() {
-		return frames.size();
-	}
+	public abstract int getFrameCount();
 
 	/**
 	 * Show the frames as a string
@@ -66,46 +93,16 @@ public class Animation {
 	}
 
 	/**
-	 * Propagate coordinates
-	 */
-	protected void propagateCoordinates() {
-		// initialise the state queue and visited list
-		Queue<State> stateQueue = new LinkedList<State>();
-		ArrayList<Integer> visited = new ArrayList<Integer>();
-
-		// Add the initial state
-		stateQueue.add(automaton.getStart());
-
-		// if the state queue isn't empty, visit the state at the head of the
-		// queue
-		while (!stateQueue.isEmpty()) {
-			State s = stateQueue.poll();
-			if (!visited.contains((Integer) s.getId())) {
-				// add to the visited list
-				visited.add(s.getId());
-				// revisit every node with the same id in every frame and set
-				// coords
-				for (VisualRepresentation tempFrame : frames) {
-					for (VisualState tempState : tempFrame.getStates()) {
-						if (tempState.getId() == s.getId())
-							tempState.setCoords(s.getX(), s.getY());
-					}
-				}
-				// add destination states of edges to the state list
-				for (Edge edge : s.getEdges()) {
-					stateQueue.add(edge.getState());
-				}
-			}
-		}
-	}
-
-	/**
-	 * Gets the all frames
+	 * Gets the all frames. Every frame is drawn, so this is much slower than
+	 * getting a single frame.
 	 *
 	 * @return The all frames
 	 */
 	public ArrayList<VisualRepresentation> getAllFrames() {
-		return frames;
+		ArrayList<VisualRepresentation> all = new ArrayList<VisualRepresentation>();
+		for (int i = 0; i < getFrameCount(); i++)
+			all.add(drawFrame(i));
+		return all;
 	}
 
 	/**
@@ -114,7 +111,7 @@ public class Animation {
 	 * @return The last frame
 	 */
 	public VisualRepresentation getLastFrame() {
-		return frames.get(frames.size() - 1);
+		return getFrame(getFrameCount() - 1);
 	}
 
 	/**
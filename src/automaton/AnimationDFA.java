@@ -1,12 +1,7 @@
 package automaton;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Set;
+import java.util.HashMap;
 
 import gui.canvas.EdgeHighlights;
 import gui.canvas.StateHighlights;
@@ -16,51 +11,41 @@ import gui.canvas.VisualState;
 
 /**
  * Class that takes NFA and converts it to DFA it also wraps DFA into structure
- * most suitable for visualisation to supply to visualiser.
- * 
+ * most suitable for visualisation to supply to visualiser. Only the steps of
+ * the construction are kept; the frames, which show the NFA and the DFA
+ * together, are made from them when they are asked for.
+ *
  * @author Danyil Ilchenko
  * @author Tom Clarke
  */
-public class AnimationDFA extends Animation {
+public class AnimationDFA extends Animation implements DFAListener {
 
 	public final String frameTitle = "DFA";
 
-	/**
-	 * ArrayList of object-representations of NFA used by visualising module.
-	 */
-	private ArrayList<VisualRepresentation> nfaFrames;
+	/** The representation of NFA in visualiser, used to highlight states. */
+	private VisualRepresentation lastNfaFrame;
 
-	/**
-	 * Array of sets of states each containing epsilon closure of NFA states
-	 * with array index that corresponds to every states' state id.
-	 */
-	private Set<State>[] closure;
+	/** The history of the DFA being built. */
+	private AutomatonHistory history;
 
-	/**
-	 * ArrayList of closures each representing DFA state that closes a loop
-	 * spanning more than 1 state.
-	 */
-	private ArrayList<Set<State>> loopcl;
+	/** The steps of the construction, one for each frame. */
+	private ArrayList<Step> steps;
 
-	/**
-	 * ArrayList of DFA states corresponding to loopcl, used as source of
-	 * references for creating edges.
-	 */
-	private ArrayList<State> knot;
+	/** The closures listed next to the graph, one for each DFA state. */
+	private ArrayList<SideLabel> allLabels;
 
-	/** The alphabet shared by NFA and DFA. */
-	private Character[] alphabet;
+	/** The closure of NFA states of each DFA state. */
+	private HashMap<Integer, StateSet> closureStates;
 
-	/**
-	 * ArrayList of booleans corresponding to each closure, shows whether a
-	 * given closure would produce an accepting DFA state.
-	 */
-	private boolean[] accpt;
+	/** The NFA edges followed by the move being searched for. */
+	private ArrayList<Edge> moveEdges;
 
-	/** The representation of NFA in visualiser, used to highlight states. */
-	private VisualRepresentation lastNfaFrame;
+	/** The NFA states the edges followed by the move come from. */
+	private ArrayList<State> moveEdgesFrom;
 
-	private ArrayList<String> allLabels;
+	/** How far the NFA is moved down and its ids are moved on by the DFA. */
+	private int maxY;
+	private int maxId;
 
 	/**
 	 * Instantiates a new animation dfa.
@@ -70,89 +55,30 @@ public class AnimationDFA extends Animation {
 	 * @param lastNfaFrame
 	 *            the last nfa frame
 	 */
-	@SuppressWarnings("unchecked")
 	public AnimationDFA(Automaton a, VisualRepresentation lastNfaFrame) {
 		// initialise required structures
 
 		super();
-		nfaFrames = new ArrayList<VisualRepresentation>();
-		State[] states = a.getStates();
-		closure = (HashSet<State>[]) Array.newInstance(HashSet.class, a.getNumberOfStates());
-		loopcl = new ArrayList<Set<State>>();
-		knot = new ArrayList<State>();
-		accpt = new boolean[a.getNumberOfStates()];
 		this.lastNfaFrame = lastNfaFrame;
-		allLabels = new ArrayList<String>();
-
-		// compute inner closure (epsilon move on depth 1 only) for each NFA
-		// state
-		Set<State> c;
-		ArrayList<Edge> edges;
-		for (int i = 0; i < states.length; i++) {
-			c = new HashSet<State>();
-			c.add(states[i]);
-			edges = states[i].getEdges();
-			for (int j = 0; j < edges.size(); j++)
-				if (edges.get(j).getInput().isEpsilon())
-					c.add(edges.get(j).getState());
-			closure[i] = c;
-		}
-		expand();
-
-		// Create DFA with a starting state
-		super.automaton = new Automaton();
-		State start = new State(super.automaton.getNumberOfStates(), accpt[0], "1");
-		super.automaton.addState(start);
-		super.automaton.setAlphabet(a.getAlphabet());
-		alphabet = a.getAlphabet().toArray(new Character[] {});
-
-		String newLabel = "";
-
-		for (State n : closure[0]) {
-			if (newLabel.length() > 0)
-				newLabel += ", ";
-			newLabel += (n.getId() + 1);
-		}
-
-		// Set the text describing what the algorithm is doing at its current
-		// stage
-		String text = "Start of the construction, dummy DFA state with empty closure";
-		nfaFrames.add(lastNfaFrame.copy(text));
-		VisualRepresentation startingdfaVr = new VisualRepresentation(super.automaton, text, frameTitle);
-		allLabels.add("1 : { " + newLabel + " }");
-		startingdfaVr.addLabels((ArrayList<String>) allLabels.clone());
-		frames.add(startingdfaVr);
+		history = new AutomatonHistory();
+		steps = new ArrayList<Step>();
+		allLabels = new ArrayList<SideLabel>();
+		closureStates = new HashMap<Integer, StateSet>();
 
 		// construct closures
-		construct(start, closure[0]);
-		// add the final frame
-		text = "Final graph";
-		nfaFrames.add(lastNfaFrame.copy(text));
-		VisualRepresentation endingdfaVr = new VisualRepresentation(super.automaton, text, frameTitle);
-		endingdfaVr.addLabels((ArrayList<String>) allLabels.clone());
-		frames.add(endingdfaVr);
+		new DFABuilder(this).build(a);
 
-		// store the final DFA representation without NFA (for use in
-		// TestString)
-		finalDFAwithoutNFA = frames.get(frames.size() - 1);
-		finalDFAwithoutNFA.setLabelListVisible(false);
+		// add the final frame
+		steps.add(new Step(StepType.FINISHED, null, null, ' ', null));
 
-		// Set the coordinates for states in the final frame
+		// Set the coordinates for states, the frames are drawn with them
 		automaton.setCoords();
-		// Propagate these new coordinates through previous frames
-		propagateCoordinates();
 
-		combineFrames();
-	}
-
-	/**
-	 * Make sure both NFA and DFA are correctly displayed together on the
-	 * canvas.
-	 */
-	private void combineFrames() {
-		int maxY = 0;
-		int maxId = 0;
-		for (VisualState s : nfaFrames.get(nfaFrames.size() - 1).getStates()) {
+		// Make sure both NFA and DFA are correctly displayed together on the
+		// canvas.
+		maxY = 0;
+		maxId = 0;
+		for (VisualState s : lastNfaFrame.getStates()) {
 			if (s.getY() > maxY)
 				maxY = s.getY();
 			if (s.getId() > maxId)
@@ -163,287 +89,370 @@ public class AnimationDFA extends Animation {
 		maxY += 2;
 		maxId++;
 
-		for (int i = 0; i < frames.size(); i++) {
-			VisualRepresentation nfaFrame = nfaFrames.get(i);
-			VisualRepresentation dfaFrame = frames.get(i);
+		// store the final DFA representation without NFA (for use in
+		// TestString)
+		finalDFAwithoutNFA = drawDfa(steps.get(steps.size() - 1));
+		finalDFAwithoutNFA.setLabelListVisible(false);
+	}
 
-			ArrayList<VisualState> states = new ArrayList<VisualState>();
-			ArrayList<VisualEdge> edges = new ArrayList<VisualEdge>();
+	/**
+	 * Get the number of frames
+	 *
+	 * @return The number of frames
+	 */
+	@Override
+	public int getFrameCount() {
+		return steps.size();
+	}
 
-			for (VisualState s : nfaFrame.getStates()) {
-				VisualState ns = new VisualState(s.getId(), s.isAccepting(), s.getX(), s.getY(), s.getLabel(),
-						s.getHL());
-				states.add(ns);
-				if (s.isInitialState())
-					states.get(states.size() - 1).setInitial(true);
-			}
-			for (VisualEdge e : nfaFrame.getEdges())
-				edges.add(new VisualEdge(e.getFrom(), e.getTo(), e.getInput(), e.getHighlight()));
-
-			for (VisualState s : dfaFrame.getStates()) {
-				states.add(new VisualState(s.getId() + maxId, s.isAccepting(), s.getX(), s.getY() + maxY, s.getLabel(),
-						s.getHL()));
-				if (s.isInitialState()) {
-					states.get(states.size() - 1).setInitial(true);
-				}
+	/**
+	 * Draw the NFA and the DFA together as they were at a step
+	 *
+	 * @param index
+	 *            The index of the step
+	 * @return The frame
+	 */
+	@Override
+	protected VisualRepresentation drawFrame(int index) {
+		Step step = steps.get(index);
+		VisualRepresentation dfaFrame = drawDfa(step);
+
+		ArrayList<VisualState> states = new ArrayList<VisualState>();
+		ArrayList<VisualEdge> edges = new ArrayList<VisualEdge>();
+
+		// the NFA with the closure of the DFA state and the edges followed
+		// by the move highlighted
+		StateSet closure = step.s == null ? null : closureStates.get(step.s.getId());
+		for (VisualState s : lastNfaFrame.getStates()) {
+			VisualState ns = new VisualState(s.getId(), s.isAccepting(), s.getX(), s.getY(), s.getLabel(), s.getHL());
+			if (closure != null && closure.contains(s.getId()))
+				ns.setHL(StateHighlights.YELLOW);
+			ns.setInitial(s.isInitialState());
+			states.add(ns);
+		}
+		for (VisualEdge e : lastNfaFrame.getEdges()) {
+			VisualEdge ne = new VisualEdge(e.getFrom(), e.getTo(), e.getInput(), e.getHighlight());
+			if (step.followed != null)
+				for (int p = 0; p < step.followed.length; p++)
+					if (e.getFrom() == step.followedFrom[p] && e.getTo() == step.followed[p].getState().getId()
+							&& e.getInput().equals(step.followed[p].getInput().toString()))
+						ne.setHighlight(EdgeHighlights.YELLOW);
+			edges.add(ne);
+		}
+
+		for (VisualState s : dfaFrame.getStates()) {
+			states.add(new VisualState(s.getId() + maxId, s.isAccepting(), s.getX(), s.getY() + maxY, s.getLabel(),
+					s.getHL()));
+			if (s.isInitialState()) {
+				states.get(states.size() - 1).setInitial(true);
 			}
-			for (VisualEdge e : dfaFrame.getEdges())
-				edges.add(new VisualEdge(e.getFrom() + maxId, e.getTo() + maxId, e.getInput(), e.getHighlight()));
-
-			VisualRepresentation newVR = new VisualRepresentation(states, edges, dfaFrame.getText(), frameTitle);
-			ArrayList<String> labels = dfaFrame.getLabels();
-			newVR.addLabels(labels);
-			newVR.setLabelListVisible(true);
-			frames.set(i, newVR);
 		}
+		for (VisualEdge e : dfaFrame.getEdges())
+			edges.add(new VisualEdge(e.getFrom() + maxId, e.getTo() + maxId, e.getInput(), e.getHighlight()));
+
+		VisualRepresentation newVR = new VisualRepresentation(states, edges, dfaFrame.getText(), frameTitle);
+		newVR.addLabels(dfaFrame.getLabels());
+		newVR.setLabelListVisible(true);
+		return newVR;
 	}
 
 	/**
-	 * Expand closure to span whole NFA.
+	 * Draw the DFA as it was at a step, with the DFA state having edges
+	 * created and the edge created highlighted
+	 *
+	 * @param step
+	 *            The step
+	 * @return The DFA
 	 */
-	private void expand() {
-		Queue<State> q = new LinkedList<State>();
-		State[] temp;
-		State s;
-		// for every state in closure add its own closure to the current one
-		for (int i = 0; i < closure.length; i++) {
-
-			q.addAll(closure[i]);
-			while (!q.isEmpty()) {
-
-				s = q.poll();
-				temp = closure[s.getId()].toArray(new State[] {});
-				if (s.isAccepting())
-					accpt[i] = true;
-
-				for (int j = 0; j < temp.length; j++)
-					if (!closure[i].contains(temp[j])) {
-						closure[i].add(temp[j]);
-						q.add(temp[j]);
+	private VisualRepresentation drawDfa(Step step) {
+		VisualRepresentation dfaVr = history.draw(step.time, text(step), frameTitle);
+		if (step.s != null) {
+			dfaVr.getState(step.s.getId()).setHL(StateHighlights.YELLOW);
+			if (step.to != null) {
+				String move = step.move + "";
+				VisualEdge[] vedges = dfaVr.getEdges();
+				for (int i = 0; i < vedges.length; i++) {
+					if (vedges[i].getFrom() == step.s.getId() && vedges[i].getTo() == step.to.getId()
+							&& move.equals(vedges[i].getInput())) {
+						vedges[i].setHighlight(EdgeHighlights.YELLOW);
+						break;
 					}
+				}
 			}
 		}
+		for (int i = 0; i < step.labels; i++)
+			dfaVr.addSetLabel(allLabels.get(i).toString());
+		return dfaVr;
+	}
+
+	/**
+	 * Make the text explaining a step
+	 *
+	 * @param step
+	 *            The step
+	 * @return The text
+	 */
+	private String text(Step step) {
+		switch (step.type) {
+		case STARTED:
+			return "Start of the construction, dummy DFA state with empty closure";
+		case CREATING:
+			return "Creating edges coming out of DFA state " + (step.s.getId() + 1)
+					+ ". Closure of corresponding NFA states is highlighted.";
+		case SELF_LOOP:
+			return "Move \"" + step.move + "\" creates a self loop in state " + (step.s.getId() + 1);
+		case EXISTING_STATE:
+			return "Move \"" + step.move + "\" leads back to the existing DFA state " + (step.to.getId() + 1)
+					+ " with closure { " + step.closure + " } from state " + (step.s.getId() + 1);
+		case NEW_STATE:
+			return "Move \"" + step.move + "\" creates and edge that leads to a new DFA state " + (step.to.getId() + 1)
+					+ " with closure { " + step.closure + " } from state " + (step.s.getId() + 1);
+		default:
+			return "Final graph";
+		}
 	}
 
 	/**
-	 * Constructs the DFA using closures And prepares information about which
-	 * states from NFA it used at each state of construction to be visualised.
+	 * Log a state in the history
 	 *
 	 * @param s
-	 *            the current state of DFA that has edges added to it
-	 * @param cl
-	 *            the epsilon closure of NFA states corresponding to that DFA
-	 *            state
+	 *            The state
 	 */
-	private void construct(State s, Set<State> cl) {
-		State[] c = cl.toArray(new State[] {});
-		// get array of NFA states
-		VisualRepresentation frameCopy = lastNfaFrame.copy();
-		VisualState[] vss = frameCopy.getStates();
-		// boolean pass makes sure some operations are only done once for the
-		// whole closure
-		boolean pass = false;
-		boolean recPatEnd = false;
-		// go through the alphabet and for each character see if there is an
-		// edge coming out of the current state
-
-		for (int i = 0; i < alphabet.length; i++) {
-			String newLabel = "";
-			VisualEdge[] ves = lastNfaFrame.copy().getEdges();
-			char move = (char) alphabet[i];
-			Set<State> nSC = new HashSet<State>();
-			boolean accepting = false;
-
-			for (int j = 0; j < c.length; j++) {
-
-				// highlight NFA states that belong to the current state closure
-				if (!pass) {
-					for (int l = 0; l < vss.length; l++) {
-						if (vss[l].getId() == c[j].getId()) {
-							vss[l].setHL(StateHighlights.YELLOW);
-						}
-					}
-				}
-				if (!pass && c[j].isStartOfRecPat() && !loopcl.contains(cl)) {
-					s.setStartOfRecPat(true);
-					loopcl.add(cl);
-					knot.add(s);
-				}
-				// check if current DFA state must be the one to draw end edge
-				// that closes a loop
-				if (!pass && !recPatEnd && c[j].isEndOfRecPat())
-					recPatEnd = true;
-				// check if current character from the alphabet is a valid move
-				Edge[] edges = c[j].getEdges().toArray(new Edge[] {});
-				for (int k = 0; k < edges.length; k++) {
-					if (!edges[k].getInput().isEpsilon() && edges[k].getInput().getChar() == move) {
-
-						// highlight edges algorithm is traversing in NFA
-						for (int p = 0; p < ves.length; p++)
-							if (ves[p].getFrom() == c[j].getId() && ves[p].getTo() == edges[k].getState().getId()
-									&& ves[p].getInput().equals(edges[k].getInput().toString()))
-								ves[p].setHighlight(EdgeHighlights.YELLOW);
-
-						// use closures to project edges between NFA states on
-						// DFA
-						nSC.addAll(closure[edges[k].getState().getId()]);
-						if (accpt[edges[k].getState().getId()])
-							accepting = true;
-					}
-				}
-			}
+	@Override
+	public void stateAdded(State s) {
+		history.stateAdded(s);
+	}
 
-			pass = true;
-			// if new state closure is empty, current move is impossible from
-			// the current state
-			if (!nSC.isEmpty()) {
+	/**
+	 * Log an edge in the history
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	@Override
+	public void edgeAdded(State from, Edge edge) {
+		history.edgeAdded(from, edge);
+	}
 
-				for (State n : nSC) {
-					if (newLabel.length() > 0)
-						newLabel += ", ";
-					newLabel += (n.getId() + 1);
-				}
+	/**
+	 * Log the removal of an edge in the history
+	 *
+	 * @param from
+	 *            The state the edge came from
+	 * @param edge
+	 *            The edge
+	 */
+	@Override
+	public void edgeRemoved(State from, Edge edge) {
+		history.edgeRemoved(from, edge);
+	}
 
-				addNfaFrames(vss, lastNfaFrame.copy().getEdges());
-				String text = "Creating edges coming out of DFA state " + (s.getId() + 1)
-						+ ". Closure of corresponding NFA states is highlighted.";
-
-				s.setLabel((s.getId() + 1) + "");
-
-				// create a snapshot of DFA in its current state
-				addDfaFrames(s, text);
-
-				// if closures are equal, move creates a self loop
-				if (cl.equals(nSC)) {
-					Edge e = new Edge(s, new NewChar(move));
-					s.addEdge(e);
-					// add explanation text to visualize and create new NFA
-					// frame accordingly
-					text = "Move \"" + move + "\" creates a self loop in state " + (s.getId() + 1);
-					addNfaFrames(vss, ves);
-					addDfaFrames(s, text, move + "");
-				} else {
-					// if current state might be the one to close a loop which
-					// is not a self-loop with current move
-					// check for the possibility
-					boolean loopbroken = false;
-					if (recPatEnd) {
-						// check each closure that started a loop and see if the
-						// current one matches
-						for (int j = 0; j < loopcl.size(); j++) {
-							if (nSC.equals(loopcl.get(j))) {
-								Edge ne = new Edge(knot.get(j), new NewChar(move));
-								s.addEdge(ne);
-								s.setEndOfRecPat(true);
-								s.addLoop(ne.getState().getId());
-								loopbroken = true;
-								text = "Move \"" + move + "\" loops back to state " + (knot.get(j).getId() + 1)
-										+ " with closure { " + newLabel + " } from state " + (s.getId() + 1);
-								addNfaFrames(vss, ves);
-
-								// create a snapshot of DFA in its current state
-								addDfaFrames(s, knot.get(j), text, move + "",
-										(knot.get(j).getId() + 1) + ": { " + newLabel + " }");
-								loopbroken = true;
-							}
-						}
-					}
-					// if there was no loops, create a new state in DFA
-					if (!loopbroken) {
-
-						State ns = new State(super.automaton.getNumberOfStates(), accepting,
-								(super.automaton.getNumberOfStates() + 1) + "");
-						super.automaton.addState(ns);
-						Edge ne = new Edge(ns, new NewChar(move));
-						s.addEdge(ne);
-						text = "Move \"" + move + "\" creates and edge that leads to a new DFA state "
-								+ (ns.getId() + 1) + " with closure { " + newLabel + " } from state " + (s.getId() + 1);
-						addNfaFrames(vss, ves);
-						addDfaFrames(s, ns, text, move + "", (ns.getId() + 1) + ": { " + newLabel + " }");
-						construct(ns, nSC);
-					}
-				}
-			}
-		}
+	/**
+	 * Keep the first step, with a dummy DFA state
+	 *
+	 * @param automaton
+	 *            The DFA being built
+	 * @param closure
+	 *            The epsilon closure of the NFA's starting state
+	 */
+	@Override
+	public void started(Automaton automaton, StateSet closure) {
+		super.automaton = automaton;
+		allLabels.add(new SideLabel(automaton.getStart(), closure, true));
+		steps.add(new Step(StepType.STARTED, null, null, ' ', null));
 	}
 
 	/**
-	 * Adds the dfa frames.
+	 * Start keeping the NFA edges followed by a move
 	 *
 	 * @param s
-	 *            the current dfa state
-	 * @param text
-	 *            the to be displayed on the frame
+	 *            The DFA state
+	 * @param move
+	 *            The character
 	 */
-	@SuppressWarnings("unchecked")
-	private void addDfaFrames(State s, State to, String text, String move, String newSideLabel) {
-		VisualRepresentation dfaVr = new VisualRepresentation(super.automaton, text, frameTitle);
-		dfaVr.getState(s.getId()).setHL(StateHighlights.YELLOW);
-		VisualEdge[] vedges = dfaVr.getEdges();
-		for (int i = 0; i < vedges.length; i++) {
-			if (vedges[i].getFrom() == s.getId() && vedges[i].getTo() == to.getId()
-					&& move.equals(vedges[i].getInput())) {
-				vedges[i].setHighlight(EdgeHighlights.YELLOW);
-				break;
-			}
-		}
-		if (!allLabels.contains(newSideLabel))
-			allLabels.add(newSideLabel);
-		dfaVr.addLabels((ArrayList<String>) allLabels.clone());
-		frames.add(dfaVr);
+	@Override
+	public void moveStarted(State s, char move) {
+		moveEdges = new ArrayList<Edge>();
+		moveEdgesFrom = new ArrayList<State>();
+	}
+
+	/**
+	 * Keep an NFA edge the algorithm is traversing, to be highlighted
+	 *
+	 * @param from
+	 *            The NFA state the edge comes from
+	 * @param edge
+	 *            The NFA edge
+	 */
+	@Override
+	public void nfaEdgeFollowed(State from, Edge edge) {
+		moveEdgesFrom.add(from);
+		moveEdges.add(edge);
 	}
 
 	/**
-	 * Adds the dfa frames.
+	 * Keep the step showing the DFA state having an edge created, with the NFA
+	 * states of its closure highlighted
 	 *
 	 * @param s
-	 *            the current dfa state
-	 * @param text
-	 *            the to be displayed on the frame
+	 *            The DFA state
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the DFA
+	 *            state
 	 */
-	@SuppressWarnings("unchecked")
-	private void addDfaFrames(State s, String text, String move) {
-		VisualRepresentation dfaVr = new VisualRepresentation(super.automaton, text, frameTitle);
-		dfaVr.getState(s.getId()).setHL(StateHighlights.YELLOW);
-		VisualEdge[] vedges = dfaVr.getEdges();
-		for (int i = 0; i < vedges.length; i++) {
-			if (vedges[i].getFrom() == s.getId() && vedges[i].getTo() == s.getId()
-					&& move.equals(vedges[i].getInput())) {
-				vedges[i].setHighlight(EdgeHighlights.YELLOW);
-				break;
-			}
-		}
-		dfaVr.addLabels((ArrayList<String>) allLabels.clone());
-		frames.add(dfaVr);
+	@Override
+	public void creatingEdge(State s, StateSet closure) {
+		if (!closureStates.containsKey(s.getId()))
+			closureStates.put(s.getId(), closure);
+		steps.add(new Step(StepType.CREATING, s, null, ' ', null));
+	}
+
+	/**
+	 * Keep the step showing a self loop
+	 *
+	 * @param s
+	 *            The DFA state
+	 * @param move
+	 *            The character
+	 */
+	@Override
+	public void selfLoopCreated(State s, char move) {
+		steps.add(new Step(StepType.SELF_LOOP, s, s, move, null));
 	}
 
 	/**
-	 * Adds the dfa frames.
+	 * Keep the step showing an edge to a DFA state built before
 	 *
 	 * @param s
-	 *            the current dfa state
-	 * @param text
-	 *            the to be displayed on the frame
+	 *            The DFA state the edge comes from
+	 * @param to
+	 *            The DFA state the edge goes to
+	 * @param move
+	 *            The character
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the state
+	 *            the edge goes to
 	 */
-	@SuppressWarnings("unchecked")
-	private void addDfaFrames(State s, String text) {
-		VisualRepresentation dfaVr = new VisualRepresentation(super.automaton, text, frameTitle);
-		dfaVr.getState(s.getId()).setHL(StateHighlights.YELLOW);
-		dfaVr.addLabels((ArrayList<String>) allLabels.clone());
-		frames.add(dfaVr);
+	@Override
+	public void existingStateReached(State s, State to, char move, StateSet closure) {
+		steps.add(new Step(StepType.EXISTING_STATE, s, to, move, closure));
 	}
 
 	/**
-	 * Adds the nfa frames.
+	 * Keep the step showing an edge to a new DFA state
 	 *
-	 * @param vss
-	 *            the array of visual states
-	 * @param ves
-	 *            the array of visual edges
+	 * @param s
+	 *            The DFA state the edge comes from
+	 * @param to
+	 *            The new DFA state
+	 * @param move
+	 *            The character
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the new
+	 *            state
+	 */
+	@Override
+	public void stateCreated(State s, State to, char move, StateSet closure) {
+		allLabels.add(new SideLabel(to, closure, false));
+		steps.add(new Step(StepType.NEW_STATE, s, to, move, closure));
+	}
+
+	/**
+	 * The kinds of steps of the subset construction.
+	 */
+	private enum StepType {
+		STARTED, CREATING, SELF_LOOP, EXISTING_STATE, NEW_STATE, FINISHED
+	}
+
+	/**
+	 * A step of the construction: its kind, the time of the history it was
+	 * taken at, the DFA states and move it concerns, the NFA edges followed by
+	 * the move and how many closures were listed by then.
+	 */
+	private class Step {
+
+		private final StepType type;
+		private final int time;
+		private final State s;
+		private final State to;
+		private final char move;
+		private final StateSet closure;
+		private final int labels;
+		private final Edge[] followed;
+		private final int[] followedFrom;
+
+		/**
+		 * Create a new instance, taken now
+		 *
+		 * @param type
+		 *            The kind of step
+		 * @param s
+		 *            The DFA state having edges created, or null
+		 * @param to
+		 *            The DFA state the edge created goes to, or null
+		 * @param move
+		 *            The character of the edge created
+		 * @param closure
+		 *            The closure of the state the edge created goes to, or
+		 *            null
+		 */
+		private Step(StepType type, State s, State to, char move, StateSet closure) {
+			this.type = type;
+			this.time = history.now();
+			this.s = s;
+			this.to = to;
+			this.move = move;
+			this.closure = closure;
+			this.labels = allLabels.size();
+			if (to == null) {
+				this.followed = null;
+				this.followedFrom = null;
+			} else {
+				this.followed = moveEdges.toArray(new Edge[] {});
+				this.followedFrom = new int[followed.length];
+				for (int i = 0; i < followed.length; i++)
+					followedFrom[i] = moveEdgesFrom.get(i).getId();
+			}
+		}
+	}
+
+	/**
+	 * A closure listed next to the graph, written out when a frame is drawn.
 	 */
-	private void addNfaFrames(VisualState[] vss, VisualEdge[] ves) {
-		ArrayList<VisualState> visSarr = new ArrayList<VisualState>(Arrays.asList(vss));
-		ArrayList<VisualEdge> visEarr = new ArrayList<VisualEdge>(Arrays.asList(ves));
-		nfaFrames.add(new VisualRepresentation(visSarr, visEarr, "", frameTitle));
+	private static class SideLabel {
+
+		private final State state;
+		private final StateSet closure;
+
+		/** Whether it is the closure of the starting state, listed first. */
+		private final boolean first;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param state
+		 *            The DFA state
+		 * @param closure
+		 *            The epsilon closure of NFA states corresponding to it
+		 * @param first
+		 *            Whether it is listed first
+		 */
+		private SideLabel(State state, StateSet closure, boolean first) {
+			this.state = state;
+			this.closure = closure;
+			this.first = first;
+		}
+
+		/**
+		 * Write the closure out
+		 *
+		 * @return The line listing it
+		 */
+		@Override
+		public String toString() {
+			return (state.getId() + 1) + (first ? " : { " : ": { ") + closure + " }";
+		}
 	}
 }
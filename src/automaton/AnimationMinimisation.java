@@ -0,0 +1,152 @@
+package automaton;
+
+import java.util.ArrayList;
+
+import gui.canvas.StateHighlights;
+import gui.canvas.VisualRepresentation;
+
+/**
+ * Class showing the states of a DFA which accept the same words being merged,
+ * ending with the minimised DFA. The states to merge are found all at once by
+ * the minimiser; each frame shows one group of them highlighted in the DFA.
+ *
+ * @author agent
+ *
+ */
+public class AnimationMinimisation extends Animation {
+
+	public final String frameTitle = "Minimised DFA";
+
+	/** The DFA being minimised, laid out. */
+	private Automaton dfa;
+
+	/** The DFA states merged into each state of the minimised DFA. */
+	private ArrayList<StateSet> merged;
+
+	/** The DFA states which accept no words. */
+	private StateSet leftOut;
+
+	/** The steps, one for each frame. */
+	private ArrayList<Step> steps;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param dfa
+	 *            The DFA, laid out as the subset construction leaves it
+	 */
+	public AnimationMinimisation(Automaton dfa) {
+		super();
+		this.dfa = dfa;
+		Minimiser minimiser = new Minimiser(dfa);
+		automaton = minimiser.build();
+
+		merged = new ArrayList<StateSet>();
+		for (int m = 0; m < minimiser.getNumberOfStates(); m++)
+			merged.add(new StateSet());
+		leftOut = new StateSet();
+		for (int id = 0; id < dfa.getNumberOfStates(); id++) {
+			if (minimiser.getMerged(id) >= 0)
+				merged.get(minimiser.getMerged(id)).add(id);
+			else
+				leftOut.add(id);
+		}
+
+		steps = new ArrayList<Step>();
+		steps.add(new Step(StepType.STARTED, -1));
+		for (int m = 0; m < merged.size(); m++)
+			if (merged.get(m).size() > 1)
+				steps.add(new Step(StepType.MERGED, m));
+		if (!leftOut.isEmpty())
+			steps.add(new Step(StepType.LEFT_OUT, -1));
+		steps.add(new Step(StepType.FINISHED, -1));
+
+		// store the final DFA representation (for use in TestString)
+		finalDFAwithoutNFA = drawFrame(steps.size() - 1);
+		finalDFAwithoutNFA.setLabelListVisible(false);
+	}
+
+	/**
+	 * Get the number of frames
+	 *
+	 * @return The number of frames
+	 */
+	@Override
+	public int getFrameCount() {
+		return steps.size();
+	}
+
+	/**
+	 * Draw the DFA with the states of a step highlighted, or the minimised DFA
+	 * for the last step
+	 *
+	 * @param index
+	 *            The index of the step
+	 * @return The frame
+	 */
+	@Override
+	protected VisualRepresentation drawFrame(int index) {
+		Step step = steps.get(index);
+		VisualRepresentation frame;
+		int labels;
+		switch (step.type) {
+		case STARTED:
+			frame = new VisualRepresentation(dfa,
+					"Start of the minimisation, DFA states accepting the same words are found", frameTitle);
+			labels = 0;
+			break;
+		case MERGED:
+			frame = new VisualRepresentation(dfa, "DFA states " + merged.get(step.m)
+					+ " accept the same words and are merged into state " + (step.m + 1), frameTitle);
+			for (int id : merged.get(step.m).toArray())
+				frame.getState(id).setHL(StateHighlights.YELLOW);
+			labels = step.m + 1;
+			break;
+		case LEFT_OUT:
+			frame = new VisualRepresentation(dfa, "DFA states " + leftOut + " accept no words and are left out",
+					frameTitle);
+			for (int id : leftOut.toArray())
+				frame.getState(id).setHL(StateHighlights.RED);
+			labels = merged.size();
+			break;
+		default:
+			frame = new VisualRepresentation(automaton, "Final graph", frameTitle);
+			labels = merged.size();
+			break;
+		}
+		for (int m = 0; m < labels; m++)
+			frame.addSetLabel((m + 1) + ": { " + merged.get(m) + " }");
+		frame.setLabelListVisible(true);
+		return frame;
+	}
+
+	/**
+	 * The kinds of steps of the minimisation.
+	 */
+	private enum StepType {
+		STARTED, MERGED, LEFT_OUT, FINISHED
+	}
+
+	/**
+	 * A step of the minimisation: its kind and the state of the minimised DFA
+	 * it shows being merged.
+	 */
+	private static class Step {
+
+		private final StepType type;
+		private final int m;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param type
+		 *            The kind of step
+		 * @param m
+		 *            The state of the minimised DFA, or -1
+		 */
+		private Step(StepType type, int m) {
+			this.type = type;
+			this.m = m;
+		}
+	}
+}
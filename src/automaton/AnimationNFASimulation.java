@@ -0,0 +1,186 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import gui.canvas.StateHighlights;
+import gui.canvas.VisualRepresentation;
+
+/**
+ * Class containing the frames for testing a word on an NFA by following every
+ * state it could be in at once. The word is checked by a simulator when the
+ * animation is made, keeping the states reached after each character; the
+ * frames highlight them when they are asked for.
+ *
+ * @author agent
+ *
+ */
+public class AnimationNFASimulation extends Animation {
+
+	public final String frameTitle = "Simulating the NFA";
+
+	/** The word being tested. */
+	private String word;
+
+	/** The NFA as it was drawn when it was built. */
+	private VisualRepresentation initialGraph;
+
+	/** The steps of testing, one for each frame. */
+	private ArrayList<Step> steps;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param nfa
+	 *            The NFA, its states numbered in the order of its list
+	 * @param graph
+	 *            The NFA as drawn when it was built
+	 * @param testString
+	 *            The word to test
+	 */
+	public AnimationNFASimulation(Automaton nfa, VisualRepresentation graph, String testString) {
+		super();
+		automaton = nfa;
+		word = testString;
+		initialGraph = graph.copy();
+		finalDFAwithoutNFA = graph.copy();
+		steps = new ArrayList<Step>();
+
+		NFASimulator simulator = new NFASimulator(new CompactAutomaton(nfa));
+		simulator.start();
+		int[] states = simulator.getStates();
+		steps.add(new Step(StepType.STARTED, states, 0));
+		for (int i = 0; i < word.length(); i++) {
+			if (!simulator.step(word.charAt(i))) {
+				steps.add(new Step(StepType.STUCK, states, i));
+				return;
+			}
+			states = simulator.getStates();
+			steps.add(new Step(StepType.READ, states, i + 1));
+		}
+		steps.add(new Step(simulator.isAccepting() ? StepType.ACCEPTED : StepType.NOT_ACCEPTED, states,
+				word.length()));
+	}
+
+	/**
+	 * Get the number of frames
+	 *
+	 * @return The number of frames
+	 */
+	@Override
+	public int getFrameCount() {
+		return steps.size();
+	}
+
+	/**
+	 * Draw the NFA with the states it could be in at a step highlighted
+	 *
+	 * @param index
+	 *            The index of the step
+	 * @return The frame
+	 */
+	@Override
+	protected VisualRepresentation drawFrame(int index) {
+		Step step = steps.get(index);
+		VisualRepresentation frame = initialGraph.copy(text(step));
+		for (int id : step.states) {
+			StateHighlights h;
+			if (step.type == StepType.ACCEPTED)
+				h = automaton.getStates()[id].isAccepting() ? StateHighlights.GREEN : StateHighlights.YELLOW;
+			else if (step.type == StepType.NOT_ACCEPTED || step.type == StepType.STUCK)
+				h = StateHighlights.RED;
+			else
+				h = StateHighlights.YELLOW;
+			if (frame.getState(id) != null)
+				frame.getState(id).setHL(h);
+		}
+		if (step.type == StepType.STUCK)
+			frame.setProgText(new String[] { word.substring(0, step.index), "",
+					word.substring(step.index, step.index + 1), word.substring(step.index + 1) });
+		else
+			frame.setProgText(
+					new String[] { word.substring(0, step.index), "", "", word.substring(step.index) });
+		frame.setTitle(frameTitle);
+		return frame;
+	}
+
+	/**
+	 * Make the text explaining a step
+	 *
+	 * @param step
+	 *            The step
+	 * @return The text
+	 */
+	private String text(Step step) {
+		switch (step.type) {
+		case STARTED:
+			return "The NFA starts in states " + list(step.states)
+					+ ", which are reached from the start state by epsilon moves";
+		case READ:
+			return "Reading " + word.charAt(step.index - 1) + " and following epsilon moves, the NFA can be in states "
+					+ list(step.states);
+		case ACCEPTED:
+			return "String " + word
+					+ " is accepting. We have reached the end of our string and one of the states the NFA can be in is accepting";
+		case NOT_ACCEPTED:
+			return "String " + word
+					+ " is not accepting. We have reached the end of our string and none of the states the NFA can be in is accepting";
+		default:
+			return "Not accepting - None of the states the NFA can be in has a move reading "
+					+ word.charAt(step.index);
+		}
+	}
+
+	/**
+	 * List the labels of states
+	 *
+	 * @param states
+	 *            The ids of the states
+	 * @return The labels, in order of the ids
+	 */
+	private static String list(int[] states) {
+		int[] sorted = states.clone();
+		Arrays.sort(sorted);
+		StringBuilder out = new StringBuilder();
+		for (int id : sorted) {
+			if (out.length() > 0)
+				out.append(", ");
+			out.append(id + 1);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * The kinds of steps of testing a word.
+	 */
+	private enum StepType {
+		STARTED, READ, ACCEPTED, NOT_ACCEPTED, STUCK
+	}
+
+	/**
+	 * A step of testing a word: its kind, the states the NFA can be in and the
+	 * number of characters read.
+	 */
+	private static class Step {
+
+		private final StepType type;
+		private final int[] states;
+		private final int index;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param type
+		 *            The kind of step
+		 * @param states
+		 *            The ids of the states the NFA can be in
+		 * @param index
+		 *            The number of characters read
+		 */
+		private Step(StepType type, int[] states, int index) {
+			this.type = type;
+			this.states = states;
+			this.index = index;
+		}
+	}
+}
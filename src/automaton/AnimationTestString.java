@@ -1,5 +1,9 @@
 package automaton;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
 import gui.canvas.EdgeHighlights;
 import gui.canvas.StateHighlights;
 import gui.canvas.VisualEdge;
@@ -7,7 +11,11 @@ import gui.canvas.VisualRepresentation;
 import gui.canvas.VisualState;
 
 /**
- * Class containing the frames for testing a word
+ * Class containing the frames for testing a word. Only the steps of testing
+ * and the highlights made are kept; the frames are made from them when they are
+ * asked for. The highlights of every edge and state are also kept every
+ * KEYFRAME highlights, so a frame is drawn from the last of these before it
+ * rather than by making every highlight from the start.
  * 
  * @author Owen Pemberton
  * @author Piotr Wilczynski
@@ -17,6 +25,33 @@ public class AnimationTestString extends Animation {
 
 	public final String frameTitle = "Testing a Word";
 
+	/** The number of highlights between the copies of all the highlights. */
+	private static final int KEYFRAME = 64;
+
+	/** The word being tested. */
+	private String word;
+
+	/** The graph as it was before testing. */
+	private VisualRepresentation initialGraph;
+
+	/** The steps of testing, one for each frame. */
+	private ArrayList<Step> steps;
+
+	/** The highlights made while testing, in order. */
+	private ArrayList<Highlight> highlights;
+
+	/** The index of each state in the states of the graph, by id. */
+	private HashMap<Integer, Integer> stateIndex;
+
+	/**
+	 * The highlight of each edge and each state after every KEYFRAME
+	 * highlights, or null where none has been made, and the ones so far.
+	 */
+	private ArrayList<EdgeHighlights[]> edgeKeyframes;
+	private ArrayList<StateHighlights[]> stateKeyframes;
+	private EdgeHighlights[] edgeHighlights;
+	private StateHighlights[] stateHighlights;
+
 	/**
 	 * Create a Test String animation
 	 * 
@@ -27,13 +62,23 @@ public class AnimationTestString extends Animation {
 	 */
 	public AnimationTestString(VisualRepresentation graph, String testString) {
 		super();
-		String word = testString;
+		word = testString;
+		initialGraph = graph.copy();
 		VisualRepresentation currentGraph = graph.copy();
 		this.finalDFAwithoutNFA = currentGraph;
+		steps = new ArrayList<Step>();
+		highlights = new ArrayList<Highlight>();
+		VisualState[] states = initialGraph.getStates();
+		stateIndex = new HashMap<Integer, Integer>();
+		for (int i = 0; i < states.length; i++)
+			stateIndex.put(states[i].getId(), i);
+		edgeHighlights = new EdgeHighlights[initialGraph.getEdges().length];
+		stateHighlights = new StateHighlights[states.length];
+		edgeKeyframes = new ArrayList<EdgeHighlights[]>();
+		stateKeyframes = new ArrayList<StateHighlights[]>();
+		keyframe();
 		// Adding the initial frame
-		frames.add(currentGraph.copy());
-		frames.get(frames.size() - 1).setText("The initial graph");
-		frames.get(frames.size() - 1).setTitle(frameTitle);
+		addStep(StepType.INITIAL, null, null, 0);
 
 		int currentIndex = 0;
 		int currentEdgeIndex = 0;
@@ -48,21 +93,13 @@ public class AnimationTestString extends Animation {
 				// if we're at the end of the string and in an accepting state
 				// then the string is accepted
 				if (s.isAccepting()) {
-					s.setHL(StateHighlights.GREEN);
-					frames.add(currentGraph.copy());
-					frames.get(frames.size() - 1).setText("String " + word
-							+ " is accepting. We have reached the end of our string and it is currently at an accepting state");
-					frames.get(frames.size() - 1).setProgText(new String[] { word, "", "", "" });
-					frames.get(frames.size() - 1).setTitle(frameTitle);
+					highlight(s, StateHighlights.GREEN);
+					addStep(StepType.ACCEPTED, s, null, currentIndex);
 					return;
 				} else {
 					// if we're not in an accepting state then fail.
-					s.setHL(StateHighlights.RED);
-					frames.add(currentGraph.copy());
-					frames.get(frames.size() - 1).setText("String " + word
-							+ " is not accepting. We have reached the end of our string and it is currently at a non-accepting state");
-					frames.get(frames.size() - 1).setProgText(new String[] { "", "", word, "" });
-					frames.get(frames.size() - 1).setTitle(frameTitle);
+					highlight(s, StateHighlights.RED);
+					addStep(StepType.NOT_ACCEPTED, s, null, currentIndex);
 					return;
 				}
 			}
@@ -71,54 +108,282 @@ public class AnimationTestString extends Animation {
 			// character
 			if (e.getFrom() == s.getId()) {
 				// add frame to show checking of an edge
-				e.setHighlight(EdgeHighlights.YELLOW);
-				frames.add(currentGraph.copy());
-				frames.get(frames.size() - 1).setText("Checking " + e.getInput() + " from State " + s.getLabel()
-						+ " to State " + currentGraph.getState(e.getTo()).getLabel());
-				frames.get(frames.size() - 1).setProgText(new String[] { word.substring(0, currentIndex),
-						word.substring(currentIndex, currentIndex + 1), "", word.substring(currentIndex + 1) });
-				frames.get(frames.size() - 1).setTitle(frameTitle);
-
-				// get the next character to check
-				String currentWordPart = "";
-				if (word.length() > 1) {
-					currentWordPart = word.substring(currentIndex, currentIndex + 1);
-				} else {
-					currentWordPart = word;
-				}
+				highlight(e, currentEdgeIndex, EdgeHighlights.YELLOW);
+				addStep(StepType.CHECKING, s, e, currentIndex);
 
 				// check if the edge matches the current character
-				if (e.getInput().equals(currentWordPart)) {
+				if (e.getInput().equals(currentWordPart(currentIndex))) {
 					// add frame to show following
-					e.setHighlight(EdgeHighlights.GREEN);
-					frames.add(currentGraph.copy());
-					frames.get(frames.size() - 1).setText("Following " + e.getInput() + " from State " + s.getLabel()
-							+ " to State " + currentGraph.getState(e.getTo()).getLabel());
-					frames.get(frames.size() - 1).setProgText(new String[] { word.substring(0, currentIndex + 1), "",
-							"", word.substring(currentIndex + 1) });
-					frames.get(frames.size() - 1).setTitle(frameTitle);
+					highlight(e, currentEdgeIndex, EdgeHighlights.GREEN);
+					addStep(StepType.FOLLOWING, s, e, currentIndex);
 					// follow the edge and reset the loop
 					currentEdgeIndex = -1;
 					currentIndex++;
 					s = currentGraph.getState(e.getTo());
 				} else {
 					// show that the edge has been checked but not followed
-					e.setHighlight(EdgeHighlights.RED);
-					frames.add(currentGraph.copy());
-					frames.get(frames.size() - 1)
-							.setText("Edge " + e.getInput() + " from State " + s.getLabel() + " not followed.");
-					frames.get(frames.size() - 1).setProgText(new String[] { word.substring(0, currentIndex), "",
-							currentWordPart, word.substring(currentIndex + 1) });
-					frames.get(frames.size() - 1).setTitle(frameTitle);
+					highlight(e, currentEdgeIndex, EdgeHighlights.RED);
+					addStep(StepType.NOT_FOLLOWED, s, e, currentIndex);
 				}
 			}
 		}
 		// we have run out of edges
-		s.setHL(StateHighlights.RED);
-		frames.add(currentGraph.copy());
-		frames.get(frames.size() - 1).setText(
-				"Not accepting - There are no more posible edges going out, and we haven't reached the end of the string");
-		frames.get(frames.size() - 1).setProgText(new String[] { "", "", word, "" });
-		frames.get(frames.size() - 1).setTitle(frameTitle);
+		highlight(s, StateHighlights.RED);
+		addStep(StepType.STUCK, s, null, currentIndex);
+	}
+
+	/**
+	 * Get the number of frames
+	 *
+	 * @return The number of frames
+	 */
+	@Override
+	public int getFrameCount() {
+		return steps.size();
+	}
+
+	/**
+	 * Draw the graph as it was at a step, with every highlight made up to it
+	 *
+	 * @param index
+	 *            The index of the step
+	 * @return The frame
+	 */
+	@Override
+	protected VisualRepresentation drawFrame(int index) {
+		Step step = steps.get(index);
+		VisualRepresentation frame = initialGraph.copy(text(step));
+		VisualEdge[] edges = frame.getEdges();
+		VisualState[] states = frame.getStates();
+		int keyframe = step.highlights / KEYFRAME;
+		EdgeHighlights[] edgeKeyframe = edgeKeyframes.get(keyframe);
+		for (int i = 0; i < edges.length; i++)
+			if (edgeKeyframe[i] != null)
+				edges[i].setHighlight(edgeKeyframe[i]);
+		StateHighlights[] stateKeyframe = stateKeyframes.get(keyframe);
+		for (int i = 0; i < states.length; i++)
+			if (stateKeyframe[i] != null)
+				states[i].setHL(stateKeyframe[i]);
+		for (int i = keyframe * KEYFRAME; i < step.highlights; i++) {
+			Highlight h = highlights.get(i);
+			if (h.edge >= 0)
+				edges[h.edge].setHighlight(h.edgeHighlight);
+			else
+				states[stateIndex.get(h.state)].setHL(h.stateHighlight);
+		}
+		String[] progText = progText(step);
+		if (progText != null)
+			frame.setProgText(progText);
+		frame.setTitle(frameTitle);
+		return frame;
+	}
+
+	/**
+	 * Make the text explaining a step
+	 *
+	 * @param step
+	 *            The step
+	 * @return The text
+	 */
+	private String text(Step step) {
+		switch (step.type) {
+		case INITIAL:
+			return "The initial graph";
+		case ACCEPTED:
+			return "String " + word
+					+ " is accepting. We have reached the end of our string and it is currently at an accepting state";
+		case NOT_ACCEPTED:
+			return "String " + word
+					+ " is not accepting. We have reached the end of our string and it is currently at a non-accepting state";
+		case CHECKING:
+			return "Checking " + step.edge.getInput() + " from State " + step.state.getLabel() + " to State "
+					+ initialGraph.getState(step.edge.getTo()).getLabel();
+		case FOLLOWING:
+			return "Following " + step.edge.getInput() + " from State " + step.state.getLabel() + " to State "
+					+ initialGraph.getState(step.edge.getTo()).getLabel();
+		case NOT_FOLLOWED:
+			return "Edge " + step.edge.getInput() + " from State " + step.state.getLabel() + " not followed.";
+		default:
+			return "Not accepting - There are no more posible edges going out, and we haven't reached the end of the string";
+		}
+	}
+
+	/**
+	 * Make the progress through the word at a step
+	 *
+	 * @param step
+	 *            The step
+	 * @return The progress, or null
+	 */
+	private String[] progText(Step step) {
+		int currentIndex = step.index;
+		switch (step.type) {
+		case INITIAL:
+			return null;
+		case ACCEPTED:
+			return new String[] { word, "", "", "" };
+		case CHECKING:
+			return new String[] { word.substring(0, currentIndex), word.substring(currentIndex, currentIndex + 1), "",
+					word.substring(currentIndex + 1) };
+		case FOLLOWING:
+			return new String[] { word.substring(0, currentIndex + 1), "", "", word.substring(currentIndex + 1) };
+		case NOT_FOLLOWED:
+			return new String[] { word.substring(0, currentIndex), "", currentWordPart(currentIndex),
+					word.substring(currentIndex + 1) };
+		default:
+			return new String[] { "", "", word, "" };
+		}
+	}
+
+	/**
+	 * Get the next character to check
+	 *
+	 * @param currentIndex
+	 *            The index of the character in the word
+	 * @return The character
+	 */
+	private String currentWordPart(int currentIndex) {
+		if (word.length() > 1) {
+			return word.substring(currentIndex, currentIndex + 1);
+		} else {
+			return word;
+		}
+	}
+
+	/**
+	 * Highlight an edge of the graph, keeping the highlight for the frames
+	 * from now on
+	 *
+	 * @param e
+	 *            The edge
+	 * @param edge
+	 *            The index of the edge
+	 * @param h
+	 *            The highlight
+	 */
+	private void highlight(VisualEdge e, int edge, EdgeHighlights h) {
+		e.setHighlight(h);
+		highlights.add(new Highlight(edge, -1, h, null));
+		edgeHighlights[edge] = h;
+		if (highlights.size() % KEYFRAME == 0)
+			keyframe();
+	}
+
+	/**
+	 * Highlight a state of the graph, keeping the highlight for the frames
+	 * from now on
+	 *
+	 * @param s
+	 *            The state
+	 * @param h
+	 *            The highlight
+	 */
+	private void highlight(VisualState s, StateHighlights h) {
+		s.setHL(h);
+		highlights.add(new Highlight(-1, s.getId(), null, h));
+		stateHighlights[stateIndex.get(s.getId())] = h;
+		if (highlights.size() % KEYFRAME == 0)
+			keyframe();
+	}
+
+	/**
+	 * Keep a copy of the highlights of every edge and state made so far
+	 */
+	private void keyframe() {
+		edgeKeyframes.add(Arrays.copyOf(edgeHighlights, edgeHighlights.length));
+		stateKeyframes.add(Arrays.copyOf(stateHighlights, stateHighlights.length));
+	}
+
+	/**
+	 * Keep a step, taken with the highlights made so far
+	 *
+	 * @param type
+	 *            The kind of step
+	 * @param state
+	 *            The state the word is in, or null
+	 * @param edge
+	 *            The edge checked, or null
+	 * @param index
+	 *            The index in the word of the character being checked
+	 */
+	private void addStep(StepType type, VisualState state, VisualEdge edge, int index) {
+		steps.add(new Step(type, state, edge, index, highlights.size()));
+	}
+
+	/**
+	 * The kinds of steps of testing a word.
+	 */
+	private enum StepType {
+		INITIAL, CHECKING, FOLLOWING, NOT_FOLLOWED, ACCEPTED, NOT_ACCEPTED, STUCK
+	}
+
+	/**
+	 * A step of testing a word: its kind, the state and edge it concerns, the
+	 * index in the word of the character being checked and how many highlights
+	 * were made by then.
+	 */
+	private static class Step {
+
+		private final StepType type;
+		private final VisualState state;
+		private final VisualEdge edge;
+		private final int index;
+		private final int highlights;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param type
+		 *            The kind of step
+		 * @param state
+		 *            The state the word is in, or null
+		 * @param edge
+		 *            The edge checked, or null
+		 * @param index
+		 *            The index in the word of the character being checked
+		 * @param highlights
+		 *            The number of highlights made so far
+		 */
+		private Step(StepType type, VisualState state, VisualEdge edge, int index, int highlights) {
+			this.type = type;
+			this.state = state;
+			this.edge = edge;
+			this.index = index;
+			this.highlights = highlights;
+		}
+	}
+
+	/**
+	 * A highlight of either an edge or a state of the graph.
+	 */
+	private static class Highlight {
+
+		/** The index of the edge, or -1. */
+		private final int edge;
+
+		/** The id of the state, or -1. */
+		private final int state;
+
+		private final EdgeHighlights edgeHighlight;
+		private final StateHighlights stateHighlight;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param edge
+		 *            The index of the edge, or -1
+		 * @param state
+		 *            The id of the state, or -1
+		 * @param edgeHighlight
+		 *            The highlight of the edge
+		 * @param stateHighlight
+		 *            The highlight of the state
+		 */
+		private Highlight(int edge, int state, EdgeHighlights edgeHighlight, StateHighlights stateHighlight) {
+			this.edge = edge;
+			this.state = state;
+			this.edgeHighlight = edgeHighlight;
+			this.stateHighlight = stateHighlight;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -2,7 +2,9 @@ package automaton;
 
 import gui.canvas.VisualRepresentation;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -80,7 +82,10 @@ public class Automaton {
 	}
 
 	/**
-	 * Sets y coordinates.
+	 * Sets y coordinates. Each state without further states after it takes
+	 * the next y coordinate, and every other state is put in the middle of the
+	 * states after it. The states are walked with an explicit stack, so a long
+	 * automaton cannot overflow the thread's stack.
 	 *
 	 * @param state
 	 *            the state to set Y coordinate to
@@ -89,35 +94,42 @@ public class Automaton {
 	 * @return the int
 	 */
 	public int setYCoordinates(State state, int accumulator) {
-		ArrayList<Edge> edges = new ArrayList<Edge>(state.getEdges());
-		Set<Integer> loops = state.getLoops();
-		boolean end = state.isEndOfRecPat();
-		boolean oseol = true;
-
-		int upperLimit = accumulator;
-
-		for (int i = 0; i < edges.size(); i++) {
-			if (!(edges.get(i).getState().equals(state) || (end && edges.get(i).getState().isStartOfRecPat()
-					&& loops.contains(edges.get(i).getState().getId())))) {
-				accumulator = setYCoordinates(edges.get(i).getState(), accumulator);
-				oseol = false;
+		Set<State> laidOut = new HashSet<State>();
+		Deque<LayoutStep> stack = new ArrayDeque<LayoutStep>();
+		laidOut.add(state);
+		stack.push(new LayoutStep(state, accumulator));
+
+		while (!stack.isEmpty()) {
+			LayoutStep step = stack.peek();
+			ArrayList<Edge> edges = step.state.getEdges();
+
+			if (step.next < edges.size()) {
+				Edge edge = edges.get(step.next++);
+				if (laidOut.add(edge.getState())) {
+					step.oseol = false;
+					stack.push(new LayoutStep(edge.getState(), accumulator));
+				}
+			} else {
+				stack.pop();
+				if (step.oseol) {
+					step.state.setY(accumulator);
+					// System.out.println(state.getId() + " y coord is : " +
+					// accumulator);
+					accumulator++;
+				} else {
+					step.state.setY(((accumulator - 1 - step.coordinate) / 2 + step.coordinate));
+				}
 			}
 		}
 
-		if (oseol) {
-			state.setY(accumulator);
-			// System.out.println(state.getId() + " y coord is : " +
-			// accumulator);
-			return 1 + accumulator;
-		}
-
-		state.setY(((accumulator - 1 - upperLimit) / 2 + upperLimit));
-
 		return accumulator;
 	}
 
 	/**
-	 * Sets the coords.
+	 * Sets the coords. The states are laid out as a tree, each state coming
+	 * after the first edge reaching it when the edges are followed depth first
+	 * in order; self loops and edges to states reached before are drawn
+	 * without moving anything.
 	 */
 	public void setCoords() {
 		setYCoordinates(getStart(), 0);
@@ -125,7 +137,8 @@ public class Automaton {
 	}
 
 	/**
-	 * Sets the x coordinates.
+	 * Sets the x coordinates. Each state is put one to the right of the state
+	 * before it.
 	 *
 	 * @param s
 	 *            the s
@@ -133,14 +146,27 @@ public class Automaton {
 	 *            the x
 	 */
 	public void setXCoordinates(State s, int x) {
+		Set<State> laidOut = new HashSet<State>();
+		Deque<LayoutStep> stack = new ArrayDeque<LayoutStep>();
+		laidOut.add(s);
 		s.setX(x);
-		boolean end = s.isEndOfRecPat();
-		Set<Integer> loops = s.getLoops();
-		for (Edge edge : s.getEdges()) {
-
-			if (!(s.equals(edge.getState())
-					|| (end && edge.getState().isStartOfRecPat() && loops.contains(edge.getState().getId()))))
-				setXCoordinates(edge.getState(), x + 1);
+		stack.push(new LayoutStep(s, x));
+
+		// follow the edges in the same order as for the y coordinates, so the
+		// states come after the same edges
+		while (!stack.isEmpty()) {
+			LayoutStep step = stack.peek();
+			ArrayList<Edge> edges = step.state.getEdges();
+
+			if (step.next < edges.size()) {
+				Edge edge = edges.get(step.next++);
+				if (laidOut.add(edge.getState())) {
+					edge.getState().setX(step.coordinate + 1);
+					stack.push(new LayoutStep(edge.getState(), step.coordinate + 1));
+				}
+			} else {
+				stack.pop();
+			}
 		}
 	}
 
@@ -181,4 +207,40 @@ public class Automaton {
 	public State[] getStates() {
 		return states.toArray(new State[] {});
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A state which is being laid out.
+	 */
+	private static class LayoutStep {
+
+		/** The state. */
+		private final State state;
+
+		/**
+		 * The x coordinate of the state, or the first y coordinate available
+		 * to it.
+		 */
+		private final int coordinate;
+
+		/** The index of the next edge to follow. */
+		private int next;
+
+		/** Whether no states are laid out after the state. */
+		private boolean oseol;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param state
+		 *            the state
+		 * @param coordinate
+		 *            the x coordinate, or the first y coordinate available
+		 */
+		private LayoutStep(State state, int coordinate) {
+			this.state = state;
+			this.coordinate = coordinate;
+			this.next = 0;
+			this.oseol = true;
+		}
+	}
+}
@@ -0,0 +1,253 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import automaton.thompsons.ConBlock;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class building automata for regular expressions without creating any frames.
+ * It uses the same construction as the animations, so the automata are the
+ * same as the ones shown, but it is much faster for testing or matching many
+ * strings.
+ *
+ * @author agent
+ *
+ */
+public class AutomatonCompiler {
+
+	/**
+	 * Build the NFA for a regular expression
+	 *
+	 * @param c
+	 *            The tree-like representation of a regular expression
+	 * @return The NFA
+	 */
+	public static Automaton compileNFA(ConBlock c) {
+		return new NFABuilder(null).build(c);
+	}
+
+	/**
+	 * Build the NFA for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The NFA
+	 */
+	public static Automaton compileNFA(char[] regex) {
+		return compileNFA(RegexParser.parse(regex));
+	}
+
+	/**
+	 * Build the DFA for an NFA
+	 *
+	 * @param nfa
+	 *            The NFA
+	 * @return The DFA
+	 */
+	public static Automaton determinise(Automaton nfa) {
+		return new DFABuilder(null).build(nfa);
+	}
+
+	/**
+	 * Build the DFA for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The DFA
+	 */
+	public static Automaton compile(char[] regex) {
+		return determinise(compileNFA(regex));
+	}
+
+	/**
+	 * Build the minimal DFA for a DFA, merging the states which accept the
+	 * same words
+	 *
+	 * @param dfa
+	 *            The DFA
+	 * @return The minimal DFA
+	 */
+	public static Automaton minimise(Automaton dfa) {
+		return new Minimiser(dfa).build();
+	}
+
+	/**
+	 * Build the minimal DFA for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The minimal DFA
+	 */
+	public static Automaton compileMinimal(char[] regex) {
+		return minimise(compile(regex));
+	}
+
+	/**
+	 * Build the minimal DFA for a regular expression in flat arrays, for
+	 * matching
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The minimal DFA
+	 */
+	public static CompactAutomaton compileCompact(char[] regex) {
+		return new CompactAutomaton(compileMinimal(regex));
+	}
+
+	/**
+	 * Build a matcher for a regular expression, checking words against its
+	 * minimal DFA
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The matcher
+	 */
+	public static DFAMatcher compileMatcher(char[] regex) {
+		return new DFAMatcher(compileCompact(regex));
+	}
+
+	/**
+	 * Build a matcher for a regular expression checking very long words on
+	 * several threads against its minimal DFA
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The matcher
+	 */
+	public static ParallelDFAMatcher compileParallel(char[] regex) {
+		return new ParallelDFAMatcher(compileMatcher(regex));
+	}
+
+	/**
+	 * Build a matcher for a regular expression which builds the states of the
+	 * DFA only as words reach them, for expressions whose DFA is too large to
+	 * build in full
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @param budget
+	 *            The most memory the DFA states built may take, in bytes
+	 * @return The matcher, for one thread at a time
+	 */
+	public static LazyDFA compileLazy(char[] regex, long budget) {
+		return new LazyDFA(new CompactAutomaton(compileNFA(regex)), budget);
+	}
+
+	/**
+	 * Build a matcher for a regular expression which follows every state its
+	 * NFA could be in at once, taking time in proportion to the length of the
+	 * word times the size of the NFA whatever the expression
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The matcher, for one thread at a time
+	 */
+	public static NFASimulator compileSimulator(char[] regex) {
+		return new NFASimulator(new CompactAutomaton(compileNFA(regex)));
+	}
+
+	/**
+	 * Build a matcher for a regular expression, without determinising it if
+	 * it is small enough. The trie of the words is used if the expression
+	 * stands for few enough words, the bit-parallel position automaton if it
+	 * has few enough characters, otherwise the minimal DFA. This is the
+	 * matcher to use for checking words against an expression typed in.
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The matcher
+	 */
+	public static Matcher compileSmall(char[] regex) {
+		ConBlock c = RegexParser.parse(regex);
+		List<String> words = AhoCorasick.getLiterals(c);
+		if (words != null)
+			return new AhoCorasick(words);
+		if (GlushkovMatcher.fits(c))
+			return new GlushkovMatcher(c);
+		return new DFAMatcher(new CompactAutomaton(minimise(determinise(compileNFA(c)))));
+	}
+
+	/**
+	 * Build the NFA accepting every word which ends with a word of another
+	 * NFA, by adding a start state before it with a loop reading every
+	 * character of its alphabet
+	 *
+	 * @param nfa
+	 *            The NFA
+	 * @return The new NFA, whose states after the start are those of the NFA
+	 *         in order
+	 */
+	public static Automaton unanchored(Automaton nfa) {
+		State[] old = nfa.getStates();
+		ArrayList<State> states = new ArrayList<State>(old.length + 1);
+		State start = new State(0, false, "1");
+		states.add(start);
+		for (State s : old)
+			states.add(new State(s.getId() + 1, s.isAccepting(), (s.getId() + 2) + ""));
+		for (Character c : nfa.getAlphabet())
+			start.addEdge(new Edge(start, new NewChar(c)));
+		if (old.length > 0)
+			start.addEdge(new Edge(states.get(1), new NewChar()));
+		for (State s : old)
+			for (Edge e : s.getEdges())
+				states.get(s.getId() + 1).addEdge(new Edge(states.get(e.getState().getId() + 1), e.getInput()));
+
+		Automaton a = new Automaton();
+		a.addStates(states);
+		for (Character c : nfa.getAlphabet())
+			a.addChar(c);
+		return a;
+	}
+
+	/**
+	 * Build a DFA for finding the matches of a regular expression
+	 * inside a text: it is in an accepting state whenever the characters read
+	 * so far end with a match. If the expression stands for few enough words,
+	 * the DFA is the Aho-Corasick automaton of the words, which is built
+	 * directly but may not be minimal; otherwise it is the minimal one.
+	 *
+	 * @param regex
+	 *            The regular expression, which must be well formed
+	 * @return The DFA, with an edge out of every state for every character of
+	 *         the alphabet
+	 */
+	public static CompactAutomaton compileSearch(char[] regex) {
+		ConBlock c = RegexParser.parse(regex);
+		List<String> words = AhoCorasick.getLiterals(c);
+		if (words != null)
+			return new AhoCorasick(words).toSearchAutomaton();
+		return new CompactAutomaton(minimise(determinise(unanchored(compileNFA(c)))));
+	}
+
+	/**
+	 * Build a matcher checking words against many regular expressions at
+	 * once
+	 *
+	 * @param regexes
+	 *            The regular expressions, which must be well formed
+	 * @return The matcher, giving the indices of the expressions matched
+	 */
+	public static MultiPatternMatcher compilePatterns(List<String> regexes) {
+		ArrayList<ConBlock> blocks = new ArrayList<ConBlock>(regexes.size());
+		for (String regex : regexes)
+			blocks.add(RegexParser.parse(regex.toCharArray()));
+		return new MultiPatternMatcher(blocks);
+	}
+
+	/**
+	 * Compile a lexer for some regular expressions
+	 *
+	 * @param rules
+	 *            The regular expressions, which must be well formed, the first
+	 *            having the highest priority
+	 * @return The lexer
+	 */
+	public static Lexer compileLexer(List<String> rules) {
+		ArrayList<ConBlock> blocks = new ArrayList<ConBlock>(rules.size());
+		for (String rule : rules)
+			blocks.add(RegexParser.parse(rule.toCharArray()));
+		return new Lexer(blocks);
+	}
+}
@@ -0,0 +1,157 @@
+package automaton;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Queue;
+
+import gui.canvas.VisualEdge;
+import gui.canvas.VisualRepresentation;
+import gui.canvas.VisualState;
+
+/**
+ * Class keeping a log of the states and edges added to and removed from an
+ * automaton while it is built, so the automaton can be drawn as it was at any
+ * point of the construction without keeping a copy of it for every frame.
+ * Every change moves the clock of the history on by one.
+ *
+ * @author agent
+ *
+ */
+public class AutomatonHistory implements AutomatonListener {
+
+	/** The states in order of their ids. */
+	private ArrayList<State> states;
+
+	/** The edges ever coming out of each state, in the order they were added. */
+	private ArrayList<ArrayList<Change>> edges;
+
+	/** The number of changes logged so far. */
+	private int time;
+
+	/**
+	 * Create a new instance
+	 */
+	public AutomatonHistory() {
+		states = new ArrayList<State>();
+		edges = new ArrayList<ArrayList<Change>>();
+		time = 0;
+	}
+
+	/**
+	 * Log a state. States are expected to be added in order of their ids,
+	 * starting from the starting state.
+	 *
+	 * @param s
+	 *            The state
+	 */
+	@Override
+	public void stateAdded(State s) {
+		states.add(s);
+		edges.add(new ArrayList<Change>());
+		time++;
+	}
+
+	/**
+	 * Log an edge
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	@Override
+	public void edgeAdded(State from, Edge edge) {
+		edges.get(from.getId()).add(new Change(edge, time));
+		time++;
+	}
+
+	/**
+	 * Log the removal of an edge
+	 *
+	 * @param from
+	 *            The state the edge came from
+	 * @param edge
+	 *            The edge
+	 */
+	@Override
+	public void edgeRemoved(State from, Edge edge) {
+		for (Change c : edges.get(from.getId()))
+			if (c.edge == edge && c.removed == Integer.MAX_VALUE) {
+				c.removed = time;
+				break;
+			}
+		time++;
+	}
+
+	/**
+	 * Get the time of the history, which is the number of changes logged so
+	 * far
+	 *
+	 * @return The time
+	 */
+	public int now() {
+		return time;
+	}
+
+	/**
+	 * Draw the automaton as it was at a given time. The states are visited
+	 * breadth first from the starting state, just like when an automaton is
+	 * turned into a visual representation, and are drawn with the coordinates
+	 * they have now.
+	 *
+	 * @param at
+	 *            The time
+	 * @param text
+	 *            The text for the frame
+	 * @param title
+	 *            The title for the frame
+	 * @return The visual representation
+	 */
+	public VisualRepresentation draw(int at, String text, String title) {
+		ArrayList<VisualState> vss = new ArrayList<VisualState>();
+		ArrayList<VisualEdge> ves = new ArrayList<VisualEdge>();
+		boolean[] visited = new boolean[states.size()];
+
+		Queue<State> stateQueue = new ArrayDeque<State>();
+		stateQueue.add(states.get(0));
+		while (!stateQueue.isEmpty()) {
+			State s = stateQueue.poll();
+			if (visited[s.getId()])
+				continue;
+			visited[s.getId()] = true;
+			VisualState vs = new VisualState(s.getId(), s.isAccepting(), s.getX(), s.getY(), s.getLabel());
+			vs.setInitial(s.getId() == 0);
+			vss.add(vs);
+			for (Change c : edges.get(s.getId()))
+				if (c.added < at && c.removed >= at) {
+					ves.add(new VisualEdge(s.getId(), c.edge.getState().getId(), c.edge.getName()));
+					stateQueue.add(c.edge.getState());
+				}
+		}
+		return new VisualRepresentation(vss, ves, text, title);
+	}
+
+	/**
+	 * An edge together with the times it was added and removed.
+	 */
+	private static class Change {
+
+		private final Edge edge;
+		private final int added;
+		private int removed;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param edge
+		 *            The edge
+		 * @param added
+		 *            The time it was added
+		 */
+		private Change(Edge edge, int added) {
+			this.edge = edge;
+			this.added = added;
+			this.removed = Integer.MAX_VALUE;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package automaton;
+
+/**
+ * An interface for anything following the states and edges added to an
+ * automaton while it is built, like the history the animations are drawn from.
+ *
+ * @author agent
+ *
+ */
+public interface AutomatonListener {
+
+	/**
+	 * Called once a state is added to the automaton
+	 *
+	 * @param s
+	 *            The state
+	 */
+	void stateAdded(State s);
+
+	/**
+	 * Called once an edge is added after the other edges of a state
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	void edgeAdded(State from, Edge edge);
+
+	/**
+	 * Called once an edge is removed from a state
+	 *
+	 * @param from
+	 *            The state the edge came from
+	 * @param edge
+	 *            The edge
+	 */
+	void edgeRemoved(State from, Edge edge);
+}
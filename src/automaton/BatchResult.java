@@ -0,0 +1,87 @@
+package automaton;
+
+/**
+ * Class holding the counts of a batch of words tested against a regular
+ * expression and how long testing them took.
+ *
+ * @author agent
+ *
+ */
+public class BatchResult {
+
+	private final long words;
+	private final long accepted;
+	private final long nanos;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param words
+	 *            The number of words tested
+	 * @param accepted
+	 *            The number of words accepted
+	 * @param nanos
+	 *            The time taken, in nanoseconds
+	 */
+	public BatchResult(long words, long accepted, long nanos) {
+		this.words = words;
+		this.accepted = accepted;
+		this.nanos = nanos;
+	}
+
+	/**
+	 * Get the number of words tested
+	 *
+	 * @return The number of words
+	 */
+	public long getWords() {
+		return words;
+	}
+
+	/**
+	 * Get the number of words accepted
+	 *
+	 * @return The number of words
+	 */
+	public long getAccepted() {
+		return accepted;
+	}
+
+	/**
+	 * Get the number of words rejected
+	 *
+	 * @return The number of words
+	 */
+	public long getRejected() {
+		return words - accepted;
+	}
+
+	/**
+	 * Get the time testing took
+	 *
+	 * @return The time, in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * Get the number of words tested each second
+	 *
+	 * @return The number of words, or 0 if no time was taken
+	 */
+	public double getWordsPerSecond() {
+		return nanos == 0 ? 0 : words * 1e9 / nanos;
+	}
+
+	/**
+	 * Show the counts as a string
+	 *
+	 * @return The string
+	 */
+	@Override
+	public String toString() {
+		return words + " words tested, " + accepted + " accepted and " + getRejected() + " rejected, at "
+				+ Math.round(getWordsPerSecond()) + " words per second";
+	}
+}
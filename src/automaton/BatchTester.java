@@ -0,0 +1,165 @@
+package automaton;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class testing every line of a text against a matcher, for word lists too
+ * long to test one by one. The lines are read in chunks; each chunk is split
+ * between the threads of a fork-join pool while the next one is read, and the
+ * results are written in the order of the lines, each line followed by a tab
+ * and whether it was accepted.
+ *
+ * @author agent
+ *
+ */
+public class BatchTester {
+
+	/** The number of lines read at a time. */
+	private static final int CHUNK = 1 << 16;
+
+	/** The fewest words a task matches without splitting them further. */
+	private static final int THRESHOLD = 1 << 10;
+
+	/** The matcher, shared between the threads. */
+	private final Matcher matcher;
+
+	/** The pool the words are matched on. */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Create a tester using the common fork-join pool
+	 *
+	 * @param matcher
+	 *            The matcher, which must be safe to share between threads
+	 */
+	public BatchTester(Matcher matcher) {
+		this(matcher, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a tester
+	 *
+	 * @param matcher
+	 *            The matcher, which must be safe to share between threads
+	 * @param pool
+	 *            The pool to match the words on
+	 */
+	public BatchTester(Matcher matcher, ForkJoinPool pool) {
+		this.matcher = matcher;
+		this.pool = pool;
+	}
+
+	/**
+	 * Test every line of a text
+	 *
+	 * @param in
+	 *            The text, with one word on each line
+	 * @param out
+	 *            Where to write each word with whether it was accepted, or
+	 *            null to only count them
+	 * @return The counts of words accepted and rejected
+	 * @throws IOException
+	 *             If the text cannot be read or the results written
+	 */
+	public BatchResult test(Reader in, Writer out) throws IOException {
+		long start = System.nanoTime();
+		BufferedReader lines = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+		long words = 0;
+		long accepted = 0;
+
+		String[] chunk = new String[CHUNK];
+		boolean[] results = new boolean[CHUNK];
+		int size = read(lines, chunk);
+		while (size > 0) {
+			ForkJoinTask<Void> task = pool.submit(new Match(chunk, results, 0, size));
+			// read the next chunk while this one is matched
+			String[] nextChunk = new String[CHUNK];
+			int nextSize = read(lines, nextChunk);
+			task.join();
+
+			for (int i = 0; i < size; i++) {
+				if (results[i])
+					accepted++;
+				if (out != null) {
+					out.write(chunk[i]);
+					out.write(results[i] ? "\taccepted\n" : "\trejected\n");
+				}
+			}
+			words += size;
+			chunk = nextChunk;
+			size = nextSize;
+		}
+		if (out != null)
+			out.flush();
+		return new BatchResult(words, accepted, System.nanoTime() - start);
+	}
+
+	/**
+	 * Read lines into a chunk
+	 *
+	 * @param lines
+	 *            The text
+	 * @param chunk
+	 *            The chunk
+	 * @return The number of lines read, 0 at the end of the text
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	private static int read(BufferedReader lines, String[] chunk) throws IOException {
+		int size = 0;
+		String line;
+		while (size < chunk.length && (line = lines.readLine()) != null)
+			chunk[size++] = line;
+		return size;
+	}
+
+	/**
+	 * A task matching some of the words of a chunk, split in halves until
+	 * there are few enough of them.
+	 */
+	private class Match extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] words;
+		private final boolean[] results;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param words
+		 *            The words of the chunk
+		 * @param results
+		 *            Where to put whether each word is accepted
+		 * @param from
+		 *            The index of the first word to match
+		 * @param to
+		 *            The index after the last word to match
+		 */
+		private Match(String[] words, boolean[] results, int from, int to) {
+			this.words = words;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				for (int i = from; i < to; i++)
+					results[i] = matcher.matches(words[i]);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Match(words, results, from, middle), new Match(words, results, middle, to));
+		}
+	}
+}
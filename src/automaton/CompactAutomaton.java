@@ -0,0 +1,264 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Class holding a compiled automaton in flat arrays. The states are numbered
+ * from 0, the start state being 0. The edges reading a character are kept
+ * state after state, the edges of state s being from index getFirstEdge(s) to
+ * getFirstEdge(s + 1), sorted by the character they read so that the edges
+ * reading a character are found by a binary search. The epsilon edges are kept
+ * in the same way apart from them. Nothing can be changed once it is built,
+ * so it can be shared between threads.
+ *
+ * @author agent
+ *
+ */
+public final class CompactAutomaton {
+
+	/** Whether each state is accepting. */
+	private final boolean[] accepting;
+
+	/** The index of the first edge of each state, and the number of edges. */
+	private final int[] first;
+
+	/** The character read by each edge. */
+	private final char[] inputs;
+
+	/** The state each edge goes to. */
+	private final int[] targets;
+
+	/** The index of the first epsilon edge of each state, and their number. */
+	private final int[] epsilonFirst;
+
+	/** The state each epsilon edge goes to. */
+	private final int[] epsilonTargets;
+
+	/** The characters read by any edge, in order. */
+	private final char[] alphabet;
+
+	/**
+	 * Compile an automaton
+	 *
+	 * @param a
+	 *            The automaton, whose states are numbered from 0 in the order
+	 *            of its list, the start state first
+	 */
+	public CompactAutomaton(Automaton a) {
+		State[] states = a.getStates();
+		int n = states.length;
+		accepting = new boolean[n];
+		first = new int[n + 1];
+		epsilonFirst = new int[n + 1];
+		for (State s : states) {
+			accepting[s.getId()] = s.isAccepting();
+			for (Edge e : s.getEdges()) {
+				if (e.getInput().isEpsilon())
+					epsilonFirst[s.getId() + 1]++;
+				else
+					first[s.getId() + 1]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			first[i + 1] += first[i];
+			epsilonFirst[i + 1] += epsilonFirst[i];
+		}
+
+		inputs = new char[first[n]];
+		targets = new int[first[n]];
+		epsilonTargets = new int[epsilonFirst[n]];
+		TreeSet<Character> chars = new TreeSet<Character>();
+		long[] sorted = new long[0];
+		for (State s : states) {
+			int edge = first[s.getId()];
+			int epsilon = epsilonFirst[s.getId()];
+			for (Edge e : s.getEdges()) {
+				if (e.getInput().isEpsilon()) {
+					epsilonTargets[epsilon++] = e.getState().getId();
+				} else {
+					inputs[edge] = e.getInput().getChar();
+					targets[edge++] = e.getState().getId();
+					chars.add(e.getInput().getChar());
+				}
+			}
+
+			// sort the edges by character, keeping the order of the edges
+			// reading the same one
+			int from = first[s.getId()];
+			int count = edge - from;
+			if (count > 1) {
+				if (sorted.length < count)
+					sorted = new long[count];
+				for (int i = 0; i < count; i++)
+					sorted[i] = ((long) inputs[from + i] << 32) | i;
+				Arrays.sort(sorted, 0, count);
+				int[] order = new int[count];
+				for (int i = 0; i < count; i++)
+					order[i] = targets[from + (int) sorted[i]];
+				for (int i = 0; i < count; i++) {
+					inputs[from + i] = (char) (sorted[i] >>> 32);
+					targets[from + i] = order[i];
+				}
+			}
+		}
+		alphabet = new char[chars.size()];
+		int i = 0;
+		for (char c : chars)
+			alphabet[i++] = c;
+	}
+
+	/**
+	 * Build an automaton with the same states and edges, laid out, for
+	 * showing or for the code working on automata. The epsilon edges of each
+	 * state come before its other edges, which are in order of the characters
+	 * they read.
+	 *
+	 * @return The automaton
+	 */
+	public Automaton toAutomaton() {
+		Automaton a = new Automaton();
+		int n = accepting.length;
+		ArrayList<State> states = new ArrayList<State>(n);
+		for (int s = 0; s < n; s++)
+			states.add(new State(s, accepting[s], (s + 1) + ""));
+		for (int s = 0; s < n; s++) {
+			for (int i = epsilonFirst[s]; i < epsilonFirst[s + 1]; i++)
+				states.get(s).addEdge(new Edge(states.get(epsilonTargets[i]), new NewChar()));
+			for (int i = first[s]; i < first[s + 1]; i++)
+				states.get(s).addEdge(new Edge(states.get(targets[i]), new NewChar(inputs[i])));
+		}
+		a.addStates(states);
+		for (char c : alphabet)
+			a.addChar(c);
+		if (n > 0)
+			a.setCoords();
+		return a;
+	}
+
+	/**
+	 * Get the number of states
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return accepting.length;
+	}
+
+	/**
+	 * Check whether a state is accepting
+	 *
+	 * @param s
+	 *            The state
+	 * @return Whether it is accepting
+	 */
+	public boolean isAccepting(int s) {
+		return accepting[s];
+	}
+
+	/**
+	 * Get the index of the first edge of a state reading a character. The
+	 * edges of state s are the ones up to the first edge of state s + 1.
+	 *
+	 * @param s
+	 *            The state, or the number of states for the number of edges
+	 * @return The index of the edge
+	 */
+	public int getFirstEdge(int s) {
+		return first[s];
+	}
+
+	/**
+	 * Get the character an edge reads
+	 *
+	 * @param edge
+	 *            The index of the edge
+	 * @return The character
+	 */
+	public char getInput(int edge) {
+		return inputs[edge];
+	}
+
+	/**
+	 * Get the state an edge goes to
+	 *
+	 * @param edge
+	 *            The index of the edge
+	 * @return The state
+	 */
+	public int getTarget(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * Get the index of the first epsilon edge of a state. The epsilon edges
+	 * of state s are the ones up to the first epsilon edge of state s + 1.
+	 *
+	 * @param s
+	 *            The state, or the number of states for the number of edges
+	 * @return The index of the epsilon edge
+	 */
+	public int getFirstEpsilonEdge(int s) {
+		return epsilonFirst[s];
+	}
+
+	/**
+	 * Get the state an epsilon edge goes to
+	 *
+	 * @param edge
+	 *            The index of the epsilon edge
+	 * @return The state
+	 */
+	public int getEpsilonTarget(int edge) {
+		return epsilonTargets[edge];
+	}
+
+	/**
+	 * Find the first edge of a state reading a character, or a character
+	 * after it. The edges reading the character follow it up to the first one
+	 * reading another character.
+	 *
+	 * @param s
+	 *            The state
+	 * @param c
+	 *            The character
+	 * @return The index of the edge, or the first edge of state s + 1 if every
+	 *         edge reads a character before c
+	 */
+	public int getFirstEdge(int s, char c) {
+		int low = first[s];
+		int high = first[s + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (inputs[middle] < c)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Follow the first edge of a state reading a character
+	 *
+	 * @param s
+	 *            The state
+	 * @param c
+	 *            The character
+	 * @return The state the edge goes to, or -1 if there is no such edge
+	 */
+	public int step(int s, char c) {
+		int i = getFirstEdge(s, c);
+		return i < first[s + 1] && inputs[i] == c ? targets[i] : -1;
+	}
+
+	/**
+	 * Get the characters read by any edge
+	 *
+	 * @return The characters, in order
+	 */
+	public char[] getAlphabet() {
+		return Arrays.copyOf(alphabet, alphabet.length);
+	}
+}
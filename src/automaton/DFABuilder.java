@@ -0,0 +1,308 @@
+package automaton;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+
+/**
+ * Class converting an NFA into a DFA using the subset construction. The steps
+ * are passed on to a listener, if there is one, so the animation and the
+ * compiler share the same construction.
+ *
+ * @author Danyil Ilchenko
+ * @author Tom Clarke
+ * @author agent
+ */
+public class DFABuilder {
+
+	/** The listener following the steps, or null. */
+	private DFAListener listener;
+
+	/** The DFA being built. */
+	private Automaton automaton;
+
+	/** The states of the NFA in order of their ids. */
+	private State[] states;
+
+	/** The epsilon closure of each NFA state. */
+	private EpsilonClosure closure;
+
+	/**
+	 * The DFA state built for each closure, so that no closure is built more
+	 * than once.
+	 */
+	private HashMap<StateSet, State> built;
+
+	/** The epsilon closure each DFA state was built for, by id. */
+	private ArrayList<StateSet> closures;
+
+	/** The alphabet shared by NFA and DFA. */
+	private Character[] alphabet;
+
+	/**
+	 * The index in the alphabet of the character read by each edge of each
+	 * NFA state, or -1 for an epsilon edge.
+	 */
+	private int[][] reads;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param listener
+	 *            The listener following the steps, or null
+	 */
+	public DFABuilder(DFAListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Build the DFA for an NFA
+	 *
+	 * @param a
+	 *            The NFA
+	 * @return The DFA
+	 */
+	public Automaton build(Automaton a) {
+		// initialise required structures
+		states = a.getStates();
+		built = new HashMap<StateSet, State>();
+		closures = new ArrayList<StateSet>();
+
+		// compute the epsilon closure of every NFA state
+		closure = new EpsilonClosure(states);
+
+		// Create DFA with a starting state
+		automaton = new Automaton();
+		State start = new State(automaton.getNumberOfStates(), closure.isAccepting(0), "1");
+		addState(start);
+		built.put(closure.get(0), start);
+		closures.add(closure.get(0));
+		automaton.setAlphabet(a.getAlphabet());
+		alphabet = a.getAlphabet().toArray(new Character[] {});
+		HashMap<Character, Integer> index = new HashMap<Character, Integer>();
+		for (int i = 0; i < alphabet.length; i++)
+			index.put(alphabet[i], i);
+		reads = new int[states.length][];
+		for (int i = 0; i < states.length; i++) {
+			ArrayList<Edge> edges = states[i].getEdges();
+			reads[i] = new int[edges.size()];
+			for (int j = 0; j < edges.size(); j++)
+				reads[i][j] = edges.get(j).getInput().isEpsilon() ? -1 : index.get(edges.get(j).getInput().getChar());
+		}
+
+		if (listener != null)
+			listener.started(automaton, closure.get(0));
+
+		// construct closures
+		construct(start, closure.get(0));
+		return automaton;
+	}
+
+	/**
+	 * Get the epsilon closure of NFA states a state of the last DFA built
+	 * corresponds to, such as for finding which NFA states it accepts with
+	 *
+	 * @param id
+	 *            The id of the DFA state
+	 * @return The closure, which must not be changed
+	 */
+	public StateSet getClosure(int id) {
+		return closures.get(id);
+	}
+
+	/**
+	 * Constructs the DFA using closures. DFA states whose edges are still to
+	 * be created are kept on a worklist; the one found last has its edges
+	 * created first, so the construction follows each new state as far as it
+	 * goes before going back.
+	 *
+	 * @param s
+	 *            the starting state of DFA
+	 * @param cl
+	 *            the epsilon closure of NFA states corresponding to that DFA
+	 *            state
+	 */
+	private void construct(State s, StateSet cl) {
+		Deque<Construction> worklist = new ArrayDeque<Construction>();
+		worklist.push(new Construction(s, cl, states, reads));
+		while (!worklist.isEmpty()) {
+			Construction top = worklist.peek();
+			if (top.next < top.edges.length)
+				constructMove(top, worklist);
+			else
+				worklist.pop();
+		}
+	}
+
+	/**
+	 * Creates the edge coming out of a DFA state for the next character of the
+	 * alphabet read by an NFA edge out of its closure. The closure it leads to
+	 * is looked up among the ones built so far; only a closure not seen before
+	 * makes a new DFA state, which is put on the worklist to have its own
+	 * edges created next.
+	 *
+	 * @param current
+	 *            the DFA state that has edges added to it
+	 * @param worklist
+	 *            the DFA states whose edges are still being created
+	 */
+	private void constructMove(Construction current, Deque<Construction> worklist) {
+		State s = current.s;
+		StateSet cl = current.cl;
+		// take the next character read by an edge coming out of the closure
+		int read = current.reads[current.next];
+		char move = alphabet[read];
+		StateSet nSC = new StateSet();
+		boolean accepting = false;
+
+		if (listener != null)
+			listener.moveStarted(s, move);
+
+		// follow every edge reading the character, in order of the NFA states
+		// they come from
+		for (; current.next < current.edges.length && current.reads[current.next] == read; current.next++) {
+			Edge edge = current.edges[current.next];
+
+			if (listener != null)
+				listener.nfaEdgeFollowed(current.from[current.next], edge);
+
+			// use closures to project edges between NFA states on DFA
+			nSC.addAll(closure.get(edge.getState().getId()));
+			if (closure.isAccepting(edge.getState().getId()))
+				accepting = true;
+		}
+
+		s.setLabel((s.getId() + 1) + "");
+		if (listener != null)
+			listener.creatingEdge(s, cl);
+
+		// if closures are equal, move creates a self loop
+		if (cl.equals(nSC)) {
+			addEdge(s, new Edge(s, new NewChar(move)));
+			if (listener != null)
+				listener.selfLoopCreated(s, move);
+			return;
+		}
+
+		// if the closure was built before, the edge goes back to its state
+		State existing = built.get(nSC);
+		if (existing != null) {
+			addEdge(s, new Edge(existing, new NewChar(move)));
+			if (listener != null)
+				listener.existingStateReached(s, existing, move, nSC);
+			return;
+		}
+
+		// otherwise create a new state in DFA
+		State ns = new State(automaton.getNumberOfStates(), accepting, (automaton.getNumberOfStates() + 1) + "");
+		addState(ns);
+		built.put(nSC, ns);
+		closures.add(nSC);
+		addEdge(s, new Edge(ns, new NewChar(move)));
+		if (listener != null)
+			listener.stateCreated(s, ns, move, nSC);
+		worklist.push(new Construction(ns, nSC, states, reads));
+	}
+
+	/**
+	 * Add a state to the DFA
+	 *
+	 * @param s
+	 *            The state
+	 */
+	private void addState(State s) {
+		automaton.addState(s);
+		if (listener != null)
+			listener.stateAdded(s);
+	}
+
+	/**
+	 * Add an edge after the other edges of a DFA state
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	private void addEdge(State from, Edge edge) {
+		from.addEdge(edge);
+		if (listener != null)
+			listener.edgeAdded(from, edge);
+	}
+
+	/**
+	 * A DFA state whose edges are being created, together with the NFA edges
+	 * reading a character out of its closure. The edges are sorted by the
+	 * character's place in the alphabet, and otherwise kept in order of the
+	 * NFA states they come from, so each move follows the next run of them.
+	 */
+	private static class Construction {
+
+		/** The DFA state. */
+		private final State s;
+
+		/** The epsilon closure of NFA states corresponding to the DFA state. */
+		private final StateSet cl;
+
+		/** The NFA edges reading a character, and the states they come from. */
+		private final Edge[] edges;
+		private final State[] from;
+
+		/** The index in the alphabet of the character each edge reads. */
+		private final int[] reads;
+
+		/** The index of the first edge of the next move to create. */
+		private int next;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param s
+		 *            the DFA state
+		 * @param cl
+		 *            the epsilon closure of NFA states corresponding to it
+		 * @param states
+		 *            the NFA states in order of their ids
+		 * @param reads
+		 *            the index in the alphabet of the character read by each
+		 *            edge of each NFA state, or -1
+		 */
+		private Construction(State s, StateSet cl, State[] states, int[][] reads) {
+			this.s = s;
+			this.cl = cl;
+			int count = 0;
+			for (int id = cl.next(0); id >= 0; id = cl.next(id + 1))
+				for (int r : reads[id])
+					if (r >= 0)
+						count++;
+
+			// sort by the character, then by the order the edges were found
+			long[] keys = new long[count];
+			Edge[] found = new Edge[count];
+			State[] foundFrom = new State[count];
+			int n = 0;
+			for (int id = cl.next(0); id >= 0; id = cl.next(id + 1))
+				for (int j = 0; j < reads[id].length; j++)
+					if (reads[id][j] >= 0) {
+						keys[n] = ((long) reads[id][j] << 32) | n;
+						found[n] = states[id].getEdges().get(j);
+						foundFrom[n] = states[id];
+						n++;
+					}
+			Arrays.sort(keys);
+
+			this.edges = new Edge[count];
+			this.from = new State[count];
+			this.reads = new int[count];
+			for (int i = 0; i < count; i++) {
+				int k = (int) keys[i];
+				edges[i] = found[k];
+				from[i] = foundFrom[k];
+				this.reads[i] = (int) (keys[i] >>> 32);
+			}
+			this.next = 0;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package automaton;
+
+/**
+ * An interface for anything following the steps of the subset construction,
+ * like the animation showing them.
+ *
+ * @author agent
+ *
+ */
+public interface DFAListener extends AutomatonListener {
+
+	/**
+	 * Called once the starting state of the DFA is created
+	 *
+	 * @param automaton
+	 *            The DFA being built
+	 * @param closure
+	 *            The epsilon closure of the NFA's starting state
+	 */
+	void started(Automaton automaton, StateSet closure);
+
+	/**
+	 * Called before the NFA states corresponding to a DFA state are searched
+	 * for moves on a character
+	 *
+	 * @param s
+	 *            The DFA state
+	 * @param move
+	 *            The character
+	 */
+	void moveStarted(State s, char move);
+
+	/**
+	 * Called for every NFA edge on the character being searched for
+	 *
+	 * @param from
+	 *            The NFA state the edge comes from
+	 * @param edge
+	 *            The NFA edge
+	 */
+	void nfaEdgeFollowed(State from, Edge edge);
+
+	/**
+	 * Called once it is known that there is a move on the character, before
+	 * its edge is created
+	 *
+	 * @param s
+	 *            The DFA state
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the DFA
+	 *            state
+	 */
+	void creatingEdge(State s, StateSet closure);
+
+	/**
+	 * Called once the move leads back to the same DFA state
+	 *
+	 * @param s
+	 *            The DFA state
+	 * @param move
+	 *            The character
+	 */
+	void selfLoopCreated(State s, char move);
+
+	/**
+	 * Called once the move leads to a DFA state built before
+	 *
+	 * @param s
+	 *            The DFA state the edge comes from
+	 * @param to
+	 *            The DFA state the edge goes to
+	 * @param move
+	 *            The character
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the state
+	 *            the edge goes to
+	 */
+	void existingStateReached(State s, State to, char move, StateSet closure);
+
+	/**
+	 * Called once the move leads to a new DFA state
+	 *
+	 * @param s
+	 *            The DFA state the edge comes from
+	 * @param to
+	 *            The new DFA state
+	 * @param move
+	 *            The character
+	 * @param closure
+	 *            The epsilon closure of NFA states corresponding to the new
+	 *            state
+	 */
+	void stateCreated(State s, State to, char move, StateSet closure);
+}
@@ -0,0 +1,183 @@
+package automaton;
+
+import java.util.Arrays;
+
+/**
+ * Class checking words against a DFA held in a dense table. The characters
+ * which every state treats the same way share a column of the table, and
+ * every character not in the alphabet shares a column leading nowhere. A word
+ * is checked by looking up one entry for each character, with nothing
+ * allocated, and the check stops as soon as no edge can be followed. The
+ * table is never changed, so one matcher can be shared between threads.
+ *
+ * @author agent
+ *
+ */
+public final class DFAMatcher implements Matcher {
+
+	/** The classes of characters, which are the columns. */
+	private final AlphabetPartition partition;
+
+	/** The column of each character below the length of the array. */
+	private final int[] direct;
+
+	/** The number of columns. */
+	private final int width;
+
+	/**
+	 * The start of the row of the state each state moves to by each column,
+	 * at index row start + column, or -1 if there is no edge.
+	 */
+	private final int[] table;
+
+	/** Whether the state of each row is accepting, by row. */
+	private final boolean[] accepting;
+
+	/**
+	 * Build the table for a DFA
+	 *
+	 * @param dfa
+	 *            The DFA, with at most one edge for each character out of a
+	 *            state and no epsilon edges
+	 */
+	public DFAMatcher(CompactAutomaton dfa) {
+		this(dfa, false);
+	}
+
+	/**
+	 * Build the table for a DFA, which may be a search DFA
+	 *
+	 * @param dfa
+	 *            The DFA, with at most one edge for each character out of a
+	 *            state and no epsilon edges
+	 * @param search
+	 *            Whether it is a search DFA, as built by
+	 *            AutomatonCompiler.compileSearch, so that a character not in
+	 *            the alphabet leads back to the start state rather than
+	 *            nowhere
+	 */
+	public DFAMatcher(CompactAutomaton dfa, boolean search) {
+		int n = dfa.getNumberOfStates();
+		if (dfa.getFirstEpsilonEdge(n) > 0)
+			throw new IllegalArgumentException("The automaton has epsilon edges");
+
+		partition = new AlphabetPartition(dfa);
+		direct = partition.getDirectClasses();
+		width = partition.getNumberOfClasses();
+
+		table = new int[n * width];
+		Arrays.fill(table, -1);
+		if (search)
+			for (int s = 0; s < n; s++)
+				table[s * width] = 0;
+		accepting = new boolean[n];
+		for (int s = 0; s < n; s++) {
+			accepting[s] = dfa.isAccepting(s);
+			for (int i = dfa.getFirstEdge(s); i < dfa.getFirstEdge(s + 1); i++) {
+				int entry = s * width + partition.classOf(dfa.getInput(i));
+				int row = dfa.getTarget(i) * width;
+				if (table[entry] >= 0 && table[entry] != row)
+					throw new IllegalArgumentException("The automaton is not deterministic");
+				table[entry] = row;
+			}
+		}
+	}
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		int row = 0;
+		for (int i = 0, length = word.length(); i < length; i++) {
+			char c = word.charAt(i);
+			row = table[row + (c < direct.length ? direct[c] : partition.classOf(c))];
+			if (row < 0)
+				return false;
+		}
+		return accepting[row / width];
+	}
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		int row = 0;
+		for (int i = from; i < to; i++) {
+			char c = text[i];
+			row = table[row + (c < direct.length ? direct[c] : partition.classOf(c))];
+			if (row < 0)
+				return false;
+		}
+		return accepting[row / width];
+	}
+
+	/**
+	 * Follow the edge of a state reading a character, for reading a word a
+	 * piece at a time. The start state is at row 0.
+	 *
+	 * @param row
+	 *            The row of the state
+	 * @param c
+	 *            The character
+	 * @return The row of the state reached, or -1 if there is no edge
+	 */
+	public int step(int row, char c) {
+		return table[row + (c < direct.length ? direct[c] : partition.classOf(c))];
+	}
+
+	/**
+	 * Check whether the state of a row is accepting
+	 *
+	 * @param row
+	 *            The row of the state
+	 * @return Whether it is accepting
+	 */
+	public boolean isAccepting(int row) {
+		return accepting[row / width];
+	}
+
+	/**
+	 * Get the row of a state
+	 *
+	 * @param s
+	 *            The state
+	 * @return The row
+	 */
+	public int getRow(int s) {
+		return s * width;
+	}
+
+	/**
+	 * Get the state of a row
+	 *
+	 * @param row
+	 *            The row
+	 * @return The state
+	 */
+	public int getState(int row) {
+		return row / width;
+	}
+
+	/**
+	 * Get the number of states of the DFA
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return accepting.length;
+	}
+}
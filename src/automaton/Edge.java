@@ -1,5 +1,7 @@
 package automaton;
 
+import automaton.thompsons.ConBlock;
+
 /**
  * Class representing an edge
  *
@@ -14,6 +16,7 @@ public class Edge {
 	private State s;
 	public NewChar input;
 	private String name;
+	private ConBlock block;
 	private boolean expression;
 
 	/**
@@ -46,6 +49,22 @@ public class Edge {
 		this.expression = true;
 	}
 
+	/**
+	 * Create a new instance standing for a part of the RegEx which is still to
+	 * be expanded. The part is only written out if the edge is shown.
+	 * 
+	 * @param state
+	 *            The state the edge goes to
+	 * @param block
+	 *            The part of the RegEx this edge corresponds to
+	 */
+	public Edge(State state, ConBlock block) {
+		this.s = state;
+		this.block = block;
+		this.input = new NewChar();
+		this.expression = true;
+	}
+
 	/**
 	 * Get the state the edge goes to
 	 * 
@@ -70,8 +89,11 @@ public class Edge {
 	 * @return The character
 	 */
 	public String getName() {
-		if (expression)
+		if (expression) {
+			if (name == null)
+				name = block.toString();
 			return name;
+		}
 		return input.toString();
 	}
 
@@ -0,0 +1,151 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class finding the epsilon closure of every state of an NFA in one pass.
+ * States on a cycle of epsilon edges have the same closure, so the strongly
+ * connected components of the epsilon edges are found with Tarjan's
+ * algorithm. A component is only finished after every component it reaches,
+ * so its closure is its own states joined with the finished closures it has
+ * edges to, and each closure is built once. Whether a closure holds an
+ * accepting state is found the same way.
+ *
+ * @author agent
+ *
+ */
+public class EpsilonClosure {
+
+	/** The closure of each state, shared by the states of a component. */
+	private StateSet[] closure;
+
+	/** Whether the closure of each state holds an accepting state. */
+	private boolean[] accepting;
+
+	/**
+	 * Find the epsilon closures of the states of an NFA
+	 *
+	 * @param states
+	 *            The states, in order of their ids
+	 */
+	public EpsilonClosure(State[] states) {
+		int n = states.length;
+		closure = new StateSet[n];
+		accepting = new boolean[n];
+
+		// the order each state was found in, or -1, and the lowest order of a
+		// state on the stack it reaches
+		int[] order = new int[n];
+		int[] low = new int[n];
+		Arrays.fill(order, -1);
+		// the states found whose component is not finished, and whether a
+		// state is one of them
+		int[] stack = new int[n];
+		int stackSize = 0;
+		boolean[] onStack = new boolean[n];
+		// the states being searched from, and the next edge of each
+		int[] search = new int[n];
+		int[] next = new int[n];
+		// the first state found of the component of each finished state, and
+		// the component each component's closure was last joined into
+		int[] component = new int[n];
+		int[] joined = new int[n];
+		Arrays.fill(joined, -1);
+		int found = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (order[root] >= 0)
+				continue;
+			int depth = 0;
+			search[0] = root;
+			next[0] = 0;
+			order[root] = low[root] = found++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+
+			while (depth >= 0) {
+				int s = search[depth];
+				ArrayList<Edge> edges = states[s].getEdges();
+				if (next[depth] < edges.size()) {
+					Edge edge = edges.get(next[depth]++);
+					if (!edge.getInput().isEpsilon())
+						continue;
+					int t = edge.getState().getId();
+					if (order[t] < 0) {
+						order[t] = low[t] = found++;
+						stack[stackSize++] = t;
+						onStack[t] = true;
+						depth++;
+						search[depth] = t;
+						next[depth] = 0;
+					} else if (onStack[t] && order[t] < low[s]) {
+						low[s] = order[t];
+					}
+					continue;
+				}
+
+				// every edge of s has been followed
+				depth--;
+				if (depth >= 0 && low[s] < low[search[depth]])
+					low[search[depth]] = low[s];
+				if (low[s] != order[s])
+					continue;
+
+				// s is the first state found of a component, which is on the
+				// stack down to it
+				int bottom = stackSize;
+				do
+					bottom--;
+				while (stack[bottom] != s);
+				StateSet cl = new StateSet();
+				boolean acc = false;
+				for (int i = bottom; i < stackSize; i++) {
+					cl.add(stack[i]);
+					acc |= states[stack[i]].isAccepting();
+				}
+				for (int i = bottom; i < stackSize; i++)
+					for (Edge edge : states[stack[i]].getEdges()) {
+						if (!edge.getInput().isEpsilon())
+							continue;
+						int t = edge.getState().getId();
+						// a closure already joined in is not joined again
+						if (onStack[t] || joined[component[t]] == s)
+							continue;
+						joined[component[t]] = s;
+						cl.addAll(closure[t]);
+						acc |= accepting[t];
+					}
+				for (int i = bottom; i < stackSize; i++) {
+					closure[stack[i]] = cl;
+					accepting[stack[i]] = acc;
+					component[stack[i]] = s;
+					onStack[stack[i]] = false;
+				}
+				stackSize = bottom;
+			}
+		}
+	}
+
+	/**
+	 * Get the epsilon closure of a state
+	 *
+	 * @param id
+	 *            The id of the state
+	 * @return The closure, which must not be changed
+	 */
+	public StateSet get(int id) {
+		return closure[id];
+	}
+
+	/**
+	 * Check whether the epsilon closure of a state holds an accepting state
+	 *
+	 * @param id
+	 *            The id of the state
+	 * @return Whether it does
+	 */
+	public boolean isAccepting(int id) {
+		return accepting[id];
+	}
+}
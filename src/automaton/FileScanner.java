@@ -0,0 +1,496 @@
+package automaton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * Class finding every match of a regular expression inside a file, like grep.
+ * The file is memory-mapped rather than read, and split into regions scanned
+ * in parallel, a few for each thread at a time. The matches of a region are
+ * reported and thrown away as soon as the regions before it are done, and at
+ * most BUFFERED of them are kept for each region, so the heap used grows
+ * neither with the file nor with the number of matches. The text is decoded from UTF-8 as it
+ * is scanned and run through a search DFA, which is in an accepting state
+ * wherever a match ends; the byte offset after the last character of each
+ * match is reported.
+ *
+ * Every region but the first is scanned as if nothing came before it. Once
+ * the state reached at the end of the region before it is known, the region
+ * is scanned again from that state until it reaches the same state as the
+ * first scan, after which the two scans are the same, so only the matches
+ * before that point are replaced. A region with more matches than are kept is
+ * scanned again from the right state once the regions before it are done,
+ * reporting its matches as they are found.
+ *
+ * @author agent
+ *
+ */
+public final class FileScanner {
+
+	/** The number of bytes in a region if no other number is given. */
+	public static final int DEFAULT_REGION = 1 << 26;
+
+	/** The most bytes a character takes in UTF-8. */
+	private static final int LONGEST_CHARACTER = 4;
+
+	/** The character put in place of bytes which are not UTF-8. */
+	private static final char REPLACEMENT = '\uFFFD';
+
+	/** The number of regions scanned at a time for each thread of the pool. */
+	private static final int REGIONS_PER_THREAD = 2;
+
+	/** The most matches kept for a region before they are reported. */
+	private static final int BUFFERED = 1 << 16;
+
+	/** The classes of characters, which are the columns. */
+	private final AlphabetPartition partition;
+
+	/** The column of each character below the length of the array. */
+	private final int[] direct;
+
+	/** The number of columns. */
+	private final int width;
+
+	/** The start of the row of the state each state moves to by each column. */
+	private final int[] table;
+
+	/** Whether the state of each row is accepting, at the start of the row. */
+	private final boolean[] accepting;
+
+	/** The pool the regions are scanned on. */
+	private final ForkJoinPool pool;
+
+	/** The number of bytes in a region. */
+	private final int region;
+
+	/**
+	 * Create a scanner using the common fork-join pool
+	 *
+	 * @param search
+	 *            The search DFA, as built by AutomatonCompiler.compileSearch
+	 */
+	public FileScanner(CompactAutomaton search) {
+		this(search, ForkJoinPool.commonPool(), DEFAULT_REGION);
+	}
+
+	/**
+	 * Create a scanner
+	 *
+	 * @param search
+	 *            The search DFA, as built by AutomatonCompiler.compileSearch
+	 * @param pool
+	 *            The pool to scan the regions on
+	 * @param region
+	 *            The number of bytes in a region
+	 */
+	public FileScanner(CompactAutomaton search, ForkJoinPool pool, int region) {
+		this.pool = pool;
+		this.region = region;
+		int n = search.getNumberOfStates();
+		if (search.getFirstEpsilonEdge(n) > 0)
+			throw new IllegalArgumentException("The automaton has epsilon edges");
+
+		partition = new AlphabetPartition(search);
+		direct = partition.getDirectClasses();
+		width = partition.getNumberOfClasses();
+
+		// a character not in the alphabet leaves only the start of the search
+		table = new int[n * width];
+		accepting = new boolean[n * width];
+		for (int s = 0; s < n; s++) {
+			accepting[s * width] = search.isAccepting(s);
+			for (int i = search.getFirstEdge(s); i < search.getFirstEdge(s + 1); i++)
+				table[s * width + partition.classOf(search.getInput(i))] = search.getTarget(i) * width;
+		}
+	}
+
+	/**
+	 * Find every match in a file
+	 *
+	 * @param file
+	 *            The file, in UTF-8
+	 * @param matches
+	 *            Given the byte offset after each match, in order
+	 * @return The number of matches
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public long scan(Path file, LongConsumer matches) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int window = Math.max(1, pool.getParallelism() * REGIONS_PER_THREAD);
+			// the regions being scanned, in order
+			ArrayDeque<Future<Region>> scanning = new ArrayDeque<Future<Region>>();
+			try {
+				long next = 0;
+				long count = 0;
+				int row = 0;
+				while (next < size || !scanning.isEmpty()) {
+					while (next < size && scanning.size() < window) {
+						scanning.add(pool.submit(scanner(channel, next, Math.min(size, next + region))));
+						next += region;
+					}
+					Region r = get(scanning.poll());
+					if (row != 0 ? fix(channel, r, row) : r.isComplete()) {
+						for (int i = 0; i < r.size; i++)
+							matches.accept(r.from + r.matches[i]);
+					} else {
+						// too many matches were found to keep, so they are
+						// reported as the region is scanned again
+						Region again = new Region(r.from, r.to, r.skip);
+						again.end = run(map(channel, r.from, r.to), again, row, -1, matches);
+						r = again;
+					}
+					count += r.found;
+					row = r.end;
+				}
+				return count;
+			} finally {
+				for (Future<Region> f : scanning)
+					f.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Make the task scanning a region from the start of the search
+	 *
+	 * @param channel
+	 *            The file
+	 * @param from
+	 *            The offset of the region
+	 * @param to
+	 *            The offset after the region
+	 * @return The task
+	 */
+	private Callable<Region> scanner(final FileChannel channel, final long from, final long to) {
+		return new Callable<Region>() {
+			@Override
+			public Region call() throws IOException {
+				Region r = new Region(from, to, continued(channel, from));
+				r.end = run(map(channel, from, to), r, 0, -1, null);
+				return r;
+			}
+		};
+	}
+
+	/**
+	 * Count the matches in a file
+	 *
+	 * @param file
+	 *            The file, in UTF-8
+	 * @return The number of matches
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public long count(Path file) throws IOException {
+		return scan(file, new LongConsumer() {
+			@Override
+			public void accept(long offset) {
+			}
+		});
+	}
+
+	/**
+	 * Map a region of a file, with the bytes of a character which starts in
+	 * it and ends after it
+	 *
+	 * @param channel
+	 *            The file
+	 * @param from
+	 *            The offset of the region
+	 * @param to
+	 *            The offset after the region
+	 * @return The bytes
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	private static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+		long end = Math.min(channel.size(), to + LONGEST_CHARACTER - 1);
+		return channel.map(FileChannel.MapMode.READ_ONLY, from, end - from);
+	}
+
+	/**
+	 * Count the bytes at the start of a region which the character started
+	 * before it takes. Every byte which does not continue a character starts
+	 * one, so the character is started by the last such byte before the
+	 * region, and takes as many of the bytes continuing it as its first byte
+	 * says it has.
+	 *
+	 * @param channel
+	 *            The file
+	 * @param from
+	 *            The offset of the region
+	 * @return The number of bytes
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	private static int continued(FileChannel channel, long from) throws IOException {
+		int before = (int) Math.min(LONGEST_CHARACTER - 1, from);
+		if (before == 0)
+			return 0;
+		ByteBuffer bytes = ByteBuffer.allocate(before + LONGEST_CHARACTER - 1);
+		while (bytes.hasRemaining())
+			if (channel.read(bytes, from - before + bytes.position()) < 0)
+				break;
+		bytes.flip();
+
+		int first = before - 1;
+		while (first >= 0 && (bytes.get(first) & 0xC0) == 0x80)
+			first--;
+		if (first < 0)
+			return 0;
+		int b = bytes.get(first);
+		int more;
+		if ((b & 0xE0) == 0xC0)
+			more = 1;
+		else if ((b & 0xF0) == 0xE0)
+			more = 2;
+		else if ((b & 0xF8) == 0xF0)
+			more = 3;
+		else
+			more = 0;
+		int end = first + 1;
+		while (end <= first + more && end < bytes.limit() && (bytes.get(end) & 0xC0) == 0x80)
+			end++;
+		return Math.max(0, end - before);
+	}
+
+	/**
+	 * Scan a region again from the state reached at the end of the region
+	 * before it, until it reaches the state the first scan did, and replace
+	 * the matches found before that. This fails if either scan found more
+	 * matches than are kept.
+	 *
+	 * @param channel
+	 *            The file
+	 * @param r
+	 *            The region, scanned from the start of the search
+	 * @param row
+	 *            The row of the state reached before it
+	 * @return Whether every match of the region is kept
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	private boolean fix(FileChannel channel, Region r, int row) throws IOException {
+		Region again = new Region(r.from, r.to, r.skip);
+		int end = run(map(channel, r.from, r.to), again, row, 0, null);
+		if (!again.isComplete())
+			return false;
+		if (again.met < 0) {
+			// the scans never met, so the second one is right throughout
+			r.matches = again.matches;
+			r.size = again.size;
+			r.found = again.found;
+			r.end = end;
+			return true;
+		}
+		if (!r.isComplete())
+			return false;
+		int kept = 0;
+		while (kept < r.size && r.matches[kept] <= again.met)
+			kept++;
+		int[] joined = new int[again.size + r.size - kept];
+		System.arraycopy(again.matches, 0, joined, 0, again.size);
+		System.arraycopy(r.matches, kept, joined, again.size, r.size - kept);
+		r.matches = joined;
+		r.size = joined.length;
+		r.found = joined.length;
+		return true;
+	}
+
+	/**
+	 * Run the search DFA over a region, keeping or reporting the offsets of
+	 * the matches. If the first scan of the region is to be followed
+	 * alongside, the run stops where both are in the same state.
+	 *
+	 * @param bytes
+	 *            The bytes of the region
+	 * @param r
+	 *            The region, where the matches are kept
+	 * @param row
+	 *            The row of the state to start from
+	 * @param firstRow
+	 *            The row the scan to follow alongside starts from, or -1
+	 * @param report
+	 *            Given the byte offset after each match, or null to keep them
+	 *            in the region
+	 * @return The row of the state reached
+	 */
+	private int run(MappedByteBuffer bytes, Region r, int row, int firstRow, LongConsumer report) {
+		int limit = (int) (r.to - r.from);
+		int available = bytes.limit();
+		// the bytes ending a character started before the region
+		int i = Math.min(limit, r.skip);
+
+		while (i < limit) {
+			int b = bytes.get(i++);
+			int c;
+			if (b >= 0) {
+				c = b;
+			} else {
+				// the length of the character and the bits of its first byte
+				int more;
+				if ((b & 0xE0) == 0xC0) {
+					more = 1;
+					c = b & 0x1F;
+				} else if ((b & 0xF0) == 0xE0) {
+					more = 2;
+					c = b & 0x0F;
+				} else if ((b & 0xF8) == 0xF0) {
+					more = 3;
+					c = b & 0x07;
+				} else {
+					more = 0;
+					c = REPLACEMENT;
+				}
+				for (; more > 0; more--) {
+					if (i >= available || (bytes.get(i) & 0xC0) != 0x80) {
+						c = REPLACEMENT;
+						break;
+					}
+					c = (c << 6) | (bytes.get(i++) & 0x3F);
+				}
+			}
+
+			if (c < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				row = table[row + column((char) c)];
+				if (firstRow >= 0)
+					firstRow = table[firstRow + column((char) c)];
+			} else {
+				row = table[row + column(Character.highSurrogate(c))];
+				row = table[row + column(Character.lowSurrogate(c))];
+				if (firstRow >= 0) {
+					firstRow = table[firstRow + column(Character.highSurrogate(c))];
+					firstRow = table[firstRow + column(Character.lowSurrogate(c))];
+				}
+			}
+			if (accepting[row]) {
+				if (report != null) {
+					r.found++;
+					report.accept(r.from + i);
+				} else {
+					r.add(i);
+				}
+			}
+			if (row == firstRow) {
+				r.met = i;
+				return row;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Get the column of a character
+	 *
+	 * @param c
+	 *            The character
+	 * @return The column
+	 */
+	private int column(char c) {
+		return c < direct.length ? direct[c] : partition.classOf(c);
+	}
+
+	/**
+	 * Wait for the scan of a region
+	 *
+	 * @param future
+	 *            The scan
+	 * @return The region
+	 * @throws IOException
+	 *             If the file could not be read
+	 */
+	private static Region get(Future<Region> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while scanning", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * A region of the file, with the matches found in it and the state the
+	 * search DFA reached at its end.
+	 */
+	private static class Region {
+
+		private final long from;
+		private final long to;
+
+		/** The number of bytes ending a character started before it. */
+		private final int skip;
+
+		/** The byte offsets after the matches kept from the region, in order. */
+		private int[] matches;
+		private int size;
+
+		/** The number of matches found, kept or not. */
+		private int found;
+
+		/** The row of the state reached at the end. */
+		private int end;
+
+		/** The offset from the region where a second scan met the first, or -1. */
+		private int met;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param from
+		 *            The offset of the region
+		 * @param to
+		 *            The offset after the region
+		 * @param skip
+		 *            The number of bytes ending a character started before it
+		 */
+		private Region(long from, long to, int skip) {
+			this.from = from;
+			this.to = to;
+			this.skip = skip;
+			this.matches = new int[16];
+			this.size = 0;
+			this.met = -1;
+		}
+
+		/**
+		 * Keep a match, if fewer than BUFFERED are kept
+		 *
+		 * @param offset
+		 *            The byte offset after it from the region
+		 */
+		private void add(int offset) {
+			found++;
+			if (size == BUFFERED)
+				return;
+			if (size == matches.length)
+				matches = Arrays.copyOf(matches, size * 2);
+			matches[size++] = offset;
+		}
+
+		/**
+		 * Check whether every match found is kept
+		 *
+		 * @return Whether they are
+		 */
+		private boolean isComplete() {
+			return size == found;
+		}
+	}
+}
@@ -0,0 +1,431 @@
+package automaton;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import automaton.thompsons.BlockType;
+import automaton.thompsons.ConBlock;
+
+/**
+ * Class checking words against the position automaton of a regular
+ * expression, as built by Glushkov's construction. Each character of the
+ * expression is a position, and the automaton is in the set of positions which
+ * could have read the last character, plus a start position before any. The
+ * set is kept as bits, so a step is the union of the positions that can follow
+ * the ones in it, looked up eight bits at a time, masked by the positions
+ * reading the character. Nothing is determinised, so this is only built for
+ * expressions with at most MAX_POSITIONS positions, for which a step takes a
+ * handful of instructions. The tables are never changed, so one matcher can be
+ * shared between threads.
+ *
+ * @author agent
+ *
+ */
+public final class GlushkovMatcher implements Matcher {
+
+	/** The most positions an expression may have. */
+	public static final int MAX_POSITIONS = 255;
+
+	/** The characters looked up in an array rather than searched for. */
+	private static final int DIRECT = 128;
+
+	/** The number of positions. */
+	private final int positions;
+
+	/** The number of longs holding a set of positions. */
+	private final int words;
+
+	/**
+	 * The union of the positions following the positions of each byte of a
+	 * set, for each value of the byte, at (byte * 256 + value) * words.
+	 */
+	private final long[] follow;
+
+	/** The positions which can be last, and the start if nothing can be read. */
+	private final long[] last;
+
+	/** The characters read by any position, in order. */
+	private final char[] chars;
+
+	/** The index in the masks of each character below DIRECT, or 0. */
+	private final int[] direct;
+
+	/**
+	 * The positions reading each character, at (index + 1) * words for the
+	 * index of the character, index 0 being no positions.
+	 */
+	private final long[] masks;
+
+	/**
+	 * Build the position automaton of a regular expression
+	 *
+	 * @param c
+	 *            The tree-like representation of the regular expression, with
+	 *            at most MAX_POSITIONS characters
+	 */
+	public GlushkovMatcher(ConBlock c) {
+		positions = countPositions(c);
+		if (positions > MAX_POSITIONS)
+			throw new IllegalArgumentException("The expression has more than " + MAX_POSITIONS + " positions");
+		// bit 0 is the start and bit p is position p
+		words = (positions + 64) / 64;
+		long[][] followOf = new long[positions + 1][words];
+		char[] read = new char[positions + 1];
+
+		// the first and last positions of each part, worked out after the
+		// parts inside it, which are on top of the stack of parts in order
+		ArrayDeque<ConBlock> pending = new ArrayDeque<ConBlock>();
+		ArrayDeque<Boolean> expanded = new ArrayDeque<Boolean>();
+		ArrayDeque<Part> parts = new ArrayDeque<Part>();
+		pending.push(c);
+		expanded.push(false);
+		int position = 0;
+		while (!pending.isEmpty()) {
+			ConBlock b = pending.pop();
+			boolean done = expanded.pop();
+			if (!done && b.getType() != BlockType.ELEM && b.getType() != BlockType.EMPTY) {
+				pending.push(b);
+				expanded.push(true);
+				ConBlock[] insides = b.getInsides();
+				for (int i = insides.length - 1; i >= 0; i--) {
+					pending.push(insides[i]);
+					expanded.push(false);
+				}
+				continue;
+			}
+			Part part;
+			switch (b.getType()) {
+			case ELEM:
+				part = new Part(false, words);
+				position++;
+				read[position] = b.getElement();
+				set(part.first, position);
+				set(part.last, position);
+				break;
+			case EMPTY:
+				part = new Part(true, words);
+				break;
+			case STAR:
+				part = parts.pop();
+				for (int p = 1; p <= position; p++)
+					if (get(part.last, p))
+						or(followOf[p], part.first);
+				part.nullable = true;
+				break;
+			case CONCAT: {
+				Part second = parts.pop();
+				part = parts.pop();
+				for (int p = 1; p <= position; p++)
+					if (get(part.last, p))
+						or(followOf[p], second.first);
+				if (part.nullable)
+					or(part.first, second.first);
+				if (second.nullable)
+					or(second.last, part.last);
+				part.last = second.last;
+				part.nullable &= second.nullable;
+				break;
+			}
+			default: {
+				Part second = parts.pop();
+				part = parts.pop();
+				or(part.first, second.first);
+				or(part.last, second.last);
+				part.nullable |= second.nullable;
+				break;
+			}
+			}
+			parts.push(part);
+		}
+		Part whole = parts.pop();
+		followOf[0] = whole.first;
+		last = whole.last;
+		if (whole.nullable)
+			set(last, 0);
+
+		// the follow table, each entry built from the one without its lowest
+		// bit
+		int bytes = words * 8;
+		follow = new long[bytes * 256 * words];
+		for (int k = 0; k < bytes; k++)
+			for (int v = 1; v < 256; v++) {
+				int p = k * 8 + Integer.numberOfTrailingZeros(v);
+				int entry = (k * 256 + v) * words;
+				int without = (k * 256 + (v & (v - 1))) * words;
+				for (int w = 0; w < words; w++)
+					follow[entry + w] = follow[without + w] | (p <= positions ? followOf[p][w] : 0);
+			}
+
+		// the positions reading each character
+		char[] sorted = Arrays.copyOfRange(read, 1, positions + 1);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++)
+			if (i == 0 || sorted[i] != sorted[i - 1])
+				sorted[distinct++] = sorted[i];
+		chars = Arrays.copyOf(sorted, distinct);
+		masks = new long[(distinct + 1) * words];
+		for (int p = 1; p <= positions; p++) {
+			int entry = Math.max(0, Arrays.binarySearch(chars, read[p]) + 1) * words;
+			masks[entry + p / 64] |= 1L << p;
+		}
+		direct = new int[DIRECT];
+		for (int i = 0; i < chars.length; i++)
+			if (chars[i] < DIRECT)
+				direct[chars[i]] = i + 1;
+	}
+
+	/**
+	 * Count the positions of a regular expression, stopping once there are
+	 * more than MAX_POSITIONS
+	 *
+	 * @param c
+	 *            The tree-like representation of the regular expression
+	 * @return The number of positions, or MAX_POSITIONS + 1 if there are more
+	 */
+	public static int countPositions(ConBlock c) {
+		ArrayDeque<ConBlock> pending = new ArrayDeque<ConBlock>();
+		pending.push(c);
+		int count = 0;
+		while (!pending.isEmpty() && count <= MAX_POSITIONS) {
+			ConBlock b = pending.pop();
+			if (b.getType() == BlockType.ELEM)
+				count++;
+			else if (b.getType() != BlockType.EMPTY)
+				for (ConBlock inside : b.getInsides())
+					pending.push(inside);
+		}
+		return count;
+	}
+
+	/**
+	 * Check whether a matcher can be built for a regular expression
+	 *
+	 * @param c
+	 *            The tree-like representation of the regular expression
+	 * @return Whether it has at most MAX_POSITIONS positions
+	 */
+	public static boolean fits(ConBlock c) {
+		return countPositions(c) <= MAX_POSITIONS;
+	}
+
+	/**
+	 * Find the start of the positions reading a character in the masks
+	 *
+	 * @param c
+	 *            The character
+	 * @return The index of the mask, 0 for a character no position reads
+	 */
+	private int maskOf(char c) {
+		if (c < DIRECT)
+			return direct[c] * words;
+		return Math.max(0, Arrays.binarySearch(chars, c) + 1) * words;
+	}
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		if (words == 1) {
+			long d = 1;
+			for (int i = 0, length = word.length(); i < length; i++) {
+				d = step(d, word.charAt(i));
+				if (d == 0)
+					return false;
+			}
+			return (d & last[0]) != 0;
+		}
+		long[] d = start();
+		long[] next = new long[words];
+		for (int i = 0, length = word.length(); i < length; i++) {
+			if (!step(d, next, word.charAt(i)))
+				return false;
+			long[] swap = d;
+			d = next;
+			next = swap;
+		}
+		return accepts(d);
+	}
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		if (words == 1) {
+			long d = 1;
+			for (int i = from; i < to; i++) {
+				d = step(d, text[i]);
+				if (d == 0)
+					return false;
+			}
+			return (d & last[0]) != 0;
+		}
+		long[] d = start();
+		long[] next = new long[words];
+		for (int i = from; i < to; i++) {
+			if (!step(d, next, text[i]))
+				return false;
+			long[] swap = d;
+			d = next;
+			next = swap;
+		}
+		return accepts(d);
+	}
+
+	/**
+	 * Read a character when the positions fit in one long
+	 *
+	 * @param d
+	 *            The positions the automaton is in
+	 * @param c
+	 *            The character
+	 * @return The positions it is in after reading it
+	 */
+	private long step(long d, char c) {
+		long f = 0;
+		for (int k = 0; d != 0; k += 256, d >>>= 8)
+			f |= follow[k + (int) (d & 0xFF)];
+		return f & masks[maskOf(c)];
+	}
+
+	/**
+	 * Read a character
+	 *
+	 * @param d
+	 *            The positions the automaton is in
+	 * @param next
+	 *            Where to put the positions it is in after reading it
+	 * @param c
+	 *            The character
+	 * @return Whether it is in any position after reading it
+	 */
+	private boolean step(long[] d, long[] next, char c) {
+		Arrays.fill(next, 0);
+		for (int w = 0; w < words; w++) {
+			long x = d[w];
+			for (int k = w * 8 * 256; x != 0; k += 256, x >>>= 8) {
+				int entry = (k + (int) (x & 0xFF)) * words;
+				for (int v = 0; v < words; v++)
+					next[v] |= follow[entry + v];
+			}
+		}
+		int mask = maskOf(c);
+		long any = 0;
+		for (int v = 0; v < words; v++) {
+			next[v] &= masks[mask + v];
+			any |= next[v];
+		}
+		return any != 0;
+	}
+
+	/**
+	 * Make the set of positions holding only the start
+	 *
+	 * @return The set
+	 */
+	private long[] start() {
+		long[] d = new long[words];
+		d[0] = 1;
+		return d;
+	}
+
+	/**
+	 * Check whether a set of positions holds one which can be last
+	 *
+	 * @param d
+	 *            The positions
+	 * @return Whether the word read is accepted
+	 */
+	private boolean accepts(long[] d) {
+		for (int w = 0; w < words; w++)
+			if ((d[w] & last[w]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Get the number of positions of the expression
+	 *
+	 * @return The number of positions, not counting the start
+	 */
+	public int getNumberOfPositions() {
+		return positions;
+	}
+
+	/**
+	 * Set a bit of a set of positions
+	 *
+	 * @param set
+	 *            The set
+	 * @param p
+	 *            The position
+	 */
+	private static void set(long[] set, int p) {
+		set[p >>> 6] |= 1L << p;
+	}
+
+	/**
+	 * Check a bit of a set of positions
+	 *
+	 * @param set
+	 *            The set
+	 * @param p
+	 *            The position
+	 * @return Whether the position is in the set
+	 */
+	private static boolean get(long[] set, int p) {
+		return (set[p >>> 6] & (1L << p)) != 0;
+	}
+
+	/**
+	 * Add the positions of one set to another
+	 *
+	 * @param to
+	 *            The set added to
+	 * @param from
+	 *            The set added
+	 */
+	private static void or(long[] to, long[] from) {
+		for (int w = 0; w < to.length; w++)
+			to[w] |= from[w];
+	}
+
+	/**
+	 * The first and last positions of a part of the expression, and whether
+	 * it matches the empty word.
+	 */
+	private static class Part {
+
+		private boolean nullable;
+		private long[] first;
+		private long[] last;
+
+		/**
+		 * Create a part with no positions
+		 *
+		 * @param nullable
+		 *            Whether it matches the empty word
+		 * @param words
+		 *            The number of longs holding a set of positions
+		 */
+		private Part(boolean nullable, int words) {
+			this.nullable = nullable;
+			this.first = new long[words];
+			this.last = new long[words];
+		}
+	}
+}
@@ -0,0 +1,295 @@
+package automaton;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class checking words against an NFA by building the states of its DFA only
+ * when a word reaches them. Each DFA state is a set of NFA states with its
+ * epsilon closure, and its edges are filled in the first time they are
+ * followed. The states built are kept until they would take more than a given
+ * amount of memory, when they are all thrown away and building starts again
+ * from the state reached. If that happens so often that few characters are
+ * read for each state built, over all the words checked since the last time,
+ * the rest of the word is checked by following the set of NFA states without
+ * keeping anything. The memory taken therefore stays the same however large
+ * the full DFA would be.
+ *
+ * The states built are kept between words, so a matcher must only be used by
+ * one thread at a time.
+ *
+ * @author agent
+ *
+ */
+public final class LazyDFA implements Matcher {
+
+	/** The memory the states built may take if no other amount is given. */
+	public static final long DEFAULT_BUDGET = 8 << 20;
+
+	/**
+	 * The fewest characters read for each state built between two flushes
+	 * for the states to still be kept.
+	 */
+	private static final int CHARACTERS_PER_STATE = 10;
+
+	/** The edge of a DFA state which has not been followed yet. */
+	private static final int UNKNOWN = -2;
+
+	/** The edge of a DFA state leading to no NFA states. */
+	private static final int DEAD = -1;
+
+	/** The NFA. */
+	private final CompactAutomaton nfa;
+
+	/** The classes of characters, which are the columns of the edges. */
+	private final AlphabetPartition partition;
+
+	/** The most memory the states built may take, in bytes. */
+	private final long budget;
+
+	/** The NFA states of each DFA state built, in order of their ids. */
+	private ArrayList<int[]> sets;
+
+	/** Whether each DFA state built is accepting. */
+	private ArrayList<Boolean> accepting;
+
+	/** The DFA state each DFA state built moves to by each class. */
+	private ArrayList<int[]> edges;
+
+	/** The DFA state built for each set of NFA states. */
+	private HashMap<StateKey, Integer> built;
+
+	/** The memory the states built take, roughly, in bytes. */
+	private long used;
+
+	/** The number of times the states built were thrown away. */
+	private int flushes;
+
+	/**
+	 * The characters read and the states built since the last flush, over
+	 * every word checked since, so that building states for many short words
+	 * is noticed as well as for one long word.
+	 */
+	private long read;
+	private int grown;
+
+	/** The finder of the sets of NFA states reached. */
+	private final SubsetFinder subsets;
+
+	/**
+	 * Create a matcher with the default memory budget
+	 *
+	 * @param nfa
+	 *            The NFA
+	 */
+	public LazyDFA(CompactAutomaton nfa) {
+		this(nfa, DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Create a matcher
+	 *
+	 * @param nfa
+	 *            The NFA
+	 * @param budget
+	 *            The most memory the DFA states built may take, in bytes
+	 */
+	public LazyDFA(CompactAutomaton nfa, long budget) {
+		this.nfa = nfa;
+		this.partition = new AlphabetPartition(nfa);
+		this.budget = budget;
+		this.subsets = new SubsetFinder(nfa);
+		flushes = 0;
+		flush();
+	}
+
+	/**
+	 * Throw away every DFA state built
+	 */
+	private void flush() {
+		sets = new ArrayList<int[]>();
+		accepting = new ArrayList<Boolean>();
+		edges = new ArrayList<int[]>();
+		built = new HashMap<StateKey, Integer>();
+		used = 0;
+		read = 0;
+		grown = 0;
+	}
+
+	/**
+	 * Get the DFA state for a set of NFA states, building it if it was not
+	 * built
+	 *
+	 * @param set
+	 *            The NFA states, in order of their ids, with their closure
+	 * @return The DFA state
+	 */
+	private int state(int[] set) {
+		StateKey key = new StateKey(set);
+		Integer s = built.get(key);
+		if (s != null)
+			return s;
+		boolean acc = false;
+		for (int id : set)
+			acc |= nfa.isAccepting(id);
+		int[] row = new int[partition.getNumberOfClasses()];
+		Arrays.fill(row, UNKNOWN);
+		row[0] = DEAD;
+		sets.add(set);
+		accepting.add(acc);
+		edges.add(row);
+		built.put(key, sets.size() - 1);
+		// the arrays, the key, the map entry and the lists
+		used += 4 * set.length + 4 * row.length + 96;
+		return sets.size() - 1;
+	}
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		return matches(word, 0, word.length());
+	}
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		return matches(CharBuffer.wrap(text), from, to);
+	}
+
+	/**
+	 * Check whether part of a sequence of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	private boolean matches(CharSequence text, int from, int to) {
+		if (nfa.getNumberOfStates() == 0)
+			return false;
+		int s = state(subsets.start());
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			int[] row = edges.get(s);
+			int cls = partition.classOf(c);
+			int next = row[cls];
+			if (next == UNKNOWN) {
+				int[] set = subsets.move(sets.get(s), c);
+				if (set.length == 0) {
+					next = DEAD;
+				} else {
+					if (used > budget) {
+						// keep the states built if enough characters were
+						// read with them, otherwise stop building states
+						if (read < (long) grown * CHARACTERS_PER_STATE)
+							return simulate(text, i + 1, to, set);
+						flushes++;
+						flush();
+						row = null;
+					}
+					next = state(set);
+					grown++;
+				}
+				if (row != null)
+					row[cls] = next;
+			}
+			if (next == DEAD)
+				return false;
+			s = next;
+			read++;
+		}
+		return accepting.get(s);
+	}
+
+	/**
+	 * Check the rest of a word by following the set of NFA states reached,
+	 * without building DFA states
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the next character to read
+	 * @param to
+	 *            The index after the last character of the word
+	 * @param set
+	 *            The NFA states reached, with their closure
+	 * @return Whether the word is accepted
+	 */
+	private boolean simulate(CharSequence text, int from, int to, int[] set) {
+		for (int i = from; i < to && set.length > 0; i++)
+			set = subsets.move(set, text.charAt(i));
+		for (int id : set)
+			if (nfa.isAccepting(id))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Get the number of DFA states kept
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return sets.size();
+	}
+
+	/**
+	 * Get the number of times the DFA states were thrown away
+	 *
+	 * @return The number of flushes
+	 */
+	public int getFlushes() {
+		return flushes;
+	}
+
+	/**
+	 * A set of NFA states used to look up the DFA state built for it.
+	 */
+	private static final class StateKey {
+
+		private final int[] set;
+		private final int hash;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param set
+		 *            The NFA states, in order of their ids
+		 */
+		private StateKey(int[] set) {
+			this.set = set;
+			this.hash = Arrays.hashCode(set);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof StateKey && Arrays.equals(set, ((StateKey) o).set);
+		}
+	}
+}
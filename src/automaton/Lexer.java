@@ -0,0 +1,118 @@
+package automaton;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import automaton.thompsons.ConBlock;
+
+/**
+ * Class splitting text into tokens described by a list of regular
+ * expressions, the rules, in order of priority. The NFAs of the rules are
+ * joined and determinised together by DFABuilder, through a
+ * MultiPatternMatcher, and each state of the DFA is given the first rule among
+ * the ones whose accepting states are in its closure. A token is the longest
+ * word from where the last one ended which some rule accepts, and belongs to
+ * the first rule accepting it. The table is never changed, so one lexer can be
+ * shared between threads, each reading its own stream of tokens.
+ *
+ * @author agent
+ *
+ */
+public final class Lexer {
+
+	/** The DFA of all the rules. */
+	private final MultiPatternMatcher dfa;
+
+	/** The rule of the state of each row, at the start of the row, or -1. */
+	private final int[] rules;
+
+	/**
+	 * Build the DFA for some rules
+	 *
+	 * @param rules
+	 *            The tree-like representations of the regular expressions, the
+	 *            first having the highest priority
+	 */
+	public Lexer(List<ConBlock> rules) {
+		dfa = new MultiPatternMatcher(rules);
+		int n = dfa.getNumberOfStates();
+		this.rules = new int[dfa.getRow(n)];
+		Arrays.fill(this.rules, -1);
+		for (int s = 0; s < n; s++) {
+			int[] matches = dfa.getMatches(dfa.getRow(s));
+			if (matches.length > 0)
+				this.rules[dfa.getRow(s)] = matches[0];
+		}
+	}
+
+	/**
+	 * Move from a state of the DFA by a character
+	 *
+	 * @param row
+	 *            The row of the state, 0 for the start state
+	 * @param c
+	 *            The character
+	 * @return The row of the state moved to, or -1 if there is no edge
+	 */
+	int step(int row, char c) {
+		return dfa.step(row, c);
+	}
+
+	/**
+	 * Get the rule a state of the DFA accepts with
+	 *
+	 * @param row
+	 *            The row of the state
+	 * @return The index of the rule, or -1 if it is not accepting
+	 */
+	int getRule(int row) {
+		return rules[row];
+	}
+
+	/**
+	 * Read the tokens of a stream of characters
+	 *
+	 * @param in
+	 *            The characters, which are closed with the tokens
+	 * @return The tokens
+	 */
+	public TokenStream tokens(Reader in) {
+		return new TokenStream(this, in);
+	}
+
+	/**
+	 * Read the tokens of a file, which is memory-mapped rather than read
+	 *
+	 * @param file
+	 *            The file, in UTF-8
+	 * @return The tokens, which must be closed to close the file
+	 * @throws IOException
+	 *             If the file cannot be opened
+	 */
+	public TokenStream tokens(Path file) throws IOException {
+		return new TokenStream(this, FileChannel.open(file, StandardOpenOption.READ));
+	}
+
+	/**
+	 * Get the number of rules
+	 *
+	 * @return The number of rules
+	 */
+	public int getNumberOfRules() {
+		return dfa.getNumberOfPatterns();
+	}
+
+	/**
+	 * Get the number of states of the DFA
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return dfa.getNumberOfStates();
+	}
+}
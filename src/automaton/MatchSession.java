@@ -0,0 +1,289 @@
+package automaton;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.LongConsumer;
+
+/**
+ * Class reading a stream a piece at a time and checking it against a compiled
+ * automaton as it comes. Only the state the automaton is in is kept between
+ * pieces: a row of the table for a DFA, or the set of states for an NFA,
+ * together with the few bytes of a character split between two pieces. Each
+ * time the characters read so far are accepted, the number of characters read
+ * is reported, so a search DFA reports every match as it ends.
+ *
+ * A session keeps the state of one stream, so it must only be used by one
+ * thread at a time.
+ *
+ * @author agent
+ *
+ */
+public final class MatchSession {
+
+	/** The number of bytes decoded at a time. */
+	private static final int BYTES = 1 << 12;
+
+	/** The table of the automaton if it is deterministic, or null. */
+	private final DFAMatcher dfa;
+
+	/** The simulator of the automaton if it is not deterministic, or null. */
+	private final NFASimulator nfa;
+
+	/** Given the number of characters read whenever they are accepted. */
+	private final LongConsumer listener;
+
+	/** The row of the state of the DFA, or -1 if it has no state. */
+	private int row;
+
+	/** Whether no state can be reached any more. */
+	private boolean dead;
+
+	/** The number of characters read. */
+	private long position;
+
+	/** The decoder of the bytes read, or null before any are read. */
+	private CharsetDecoder decoder;
+
+	/** The bytes waiting to be decoded, and the characters decoded. */
+	private ByteBuffer bytes;
+	private CharBuffer chars;
+
+	/**
+	 * Create a session which only keeps whether the stream is accepted
+	 *
+	 * @param a
+	 *            The automaton
+	 */
+	public MatchSession(CompactAutomaton a) {
+		this(a, null);
+	}
+
+	/**
+	 * Create a session
+	 *
+	 * @param a
+	 *            The automaton, a DFA or an NFA
+	 * @param listener
+	 *            Given the number of characters read whenever they are
+	 *            accepted, or null
+	 */
+	public MatchSession(CompactAutomaton a, LongConsumer listener) {
+		this(a, listener, false);
+	}
+
+	/**
+	 * Create a session, which may find the matches of a search DFA
+	 *
+	 * @param a
+	 *            The automaton, a DFA or an NFA
+	 * @param listener
+	 *            Given the number of characters read whenever they are
+	 *            accepted, or null
+	 * @param search
+	 *            Whether the automaton is a search DFA, as built by
+	 *            AutomatonCompiler.compileSearch, which goes back to its start
+	 *            state on a character not in its alphabet
+	 */
+	public MatchSession(CompactAutomaton a, LongConsumer listener, boolean search) {
+		this.listener = listener;
+		if (isDeterministic(a)) {
+			dfa = new DFAMatcher(a, search);
+			nfa = null;
+		} else {
+			if (search)
+				throw new IllegalArgumentException("A search automaton must be deterministic");
+			dfa = null;
+			nfa = new NFASimulator(a);
+		}
+		reset();
+	}
+
+	/**
+	 * Check whether an automaton has no epsilon edges and at most one edge
+	 * for each character out of a state
+	 *
+	 * @param a
+	 *            The automaton
+	 * @return Whether it is deterministic
+	 */
+	private static boolean isDeterministic(CompactAutomaton a) {
+		int n = a.getNumberOfStates();
+		if (n == 0 || a.getFirstEpsilonEdge(n) > 0)
+			return false;
+		for (int s = 0; s < n; s++)
+			for (int i = a.getFirstEdge(s) + 1; i < a.getFirstEdge(s + 1); i++)
+				if (a.getInput(i) == a.getInput(i - 1) && a.getTarget(i) != a.getTarget(i - 1))
+					return false;
+		return true;
+	}
+
+	/**
+	 * Start again at the beginning of a stream
+	 */
+	public void reset() {
+		position = 0;
+		row = 0;
+		dead = false;
+		if (nfa != null) {
+			nfa.start();
+			dead = nfa.getStates().length == 0;
+		}
+		if (decoder != null) {
+			decoder.reset();
+			bytes.clear();
+		}
+	}
+
+	/**
+	 * Read a character
+	 *
+	 * @param c
+	 *            The character
+	 */
+	private void read(char c) {
+		position++;
+		if (dead)
+			return;
+		boolean accepted;
+		if (dfa != null) {
+			row = dfa.step(row, c);
+			dead = row < 0;
+			accepted = !dead && dfa.isAccepting(row);
+		} else {
+			dead = !nfa.step(c);
+			accepted = !dead && nfa.isAccepting();
+		}
+		if (accepted && listener != null)
+			listener.accept(position);
+	}
+
+	/**
+	 * Read part of an array of characters
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character to read
+	 * @param to
+	 *            The index after the last character to read
+	 */
+	public void feed(char[] text, int from, int to) {
+		for (int i = from; i < to; i++)
+			read(text[i]);
+	}
+
+	/**
+	 * Read the characters left in a buffer
+	 *
+	 * @param text
+	 *            The buffer, which is left with none left
+	 */
+	public void feed(CharBuffer text) {
+		if (text.hasArray()) {
+			int offset = text.arrayOffset();
+			feed(text.array(), offset + text.position(), offset + text.limit());
+			text.position(text.limit());
+		} else {
+			while (text.hasRemaining())
+				read(text.get());
+		}
+	}
+
+	/**
+	 * Read the bytes left in a buffer. The bytes of a character split
+	 * between two buffers are kept until the rest of them are read.
+	 *
+	 * @param text
+	 *            The buffer, which is left with none left
+	 * @param charset
+	 *            The charset of the bytes, the same for the whole stream
+	 */
+	public void feed(ByteBuffer text, Charset charset) {
+		if (decoder == null || !decoder.charset().equals(charset)) {
+			decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			bytes = ByteBuffer.allocate(BYTES);
+			chars = CharBuffer.allocate(BYTES);
+		}
+		while (text.hasRemaining()) {
+			int count = Math.min(text.remaining(), bytes.remaining());
+			ByteBuffer piece = text.duplicate();
+			piece.limit(piece.position() + count);
+			bytes.put(piece);
+			text.position(text.position() + count);
+			bytes.flip();
+			decode(false);
+			bytes.compact();
+		}
+	}
+
+	/**
+	 * Decode the bytes waiting and read the characters
+	 *
+	 * @param end
+	 *            Whether the stream has ended
+	 */
+	private void decode(boolean end) {
+		while (true) {
+			boolean full = decoder.decode(bytes, chars, end).isOverflow();
+			chars.flip();
+			feed(chars);
+			chars.clear();
+			if (!full)
+				return;
+		}
+	}
+
+	/**
+	 * End the stream, reading the bytes of a character left incomplete as a
+	 * replacement character
+	 *
+	 * @return Whether the stream is accepted
+	 */
+	public boolean finish() {
+		if (decoder != null) {
+			bytes.flip();
+			decode(true);
+			decoder.flush(chars);
+			chars.flip();
+			feed(chars);
+			chars.clear();
+			bytes.clear();
+			decoder.reset();
+		}
+		return isAccepting();
+	}
+
+	/**
+	 * Check whether the characters read so far are accepted
+	 *
+	 * @return Whether they are accepted
+	 */
+	public boolean isAccepting() {
+		if (dead)
+			return false;
+		return dfa != null ? dfa.isAccepting(row) : nfa.isAccepting();
+	}
+
+	/**
+	 * Check whether nothing more the stream could bring would make it
+	 * accepted, so it can be rejected without reading more
+	 *
+	 * @return Whether it is rejected
+	 */
+	public boolean isRejected() {
+		return dead;
+	}
+
+	/**
+	 * Get the number of characters read
+	 *
+	 * @return The number of characters
+	 */
+	public long getPosition() {
+		return position;
+	}
+}
@@ -0,0 +1,33 @@
+package automaton;
+
+/**
+ * Interface for checking whether whole words are in the language of a
+ * regular expression, without building any frames.
+ *
+ * @author agent
+ *
+ */
+public interface Matcher {
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	public boolean matches(CharSequence word);
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	public boolean matches(char[] text, int from, int to);
+}
@@ -0,0 +1,344 @@
+package automaton;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class finding the states of a DFA which accept the same words, using
+ * Hopcroft's partition refinement, and building the DFA with each group of
+ * them merged into one state. The states are first split into accepting and
+ * not accepting ones; a group is then split whenever a move takes some of its
+ * states into another group and the rest out of it. Only the smaller half of
+ * a split is used to split further, so this takes O(n log n) steps for n
+ * states.
+ *
+ * @author agent
+ *
+ */
+public class Minimiser {
+
+	/** The DFA, whose states are numbered from 0 in the order of its list. */
+	private Automaton dfa;
+
+	/** The alphabet of the DFA. */
+	private char[] alphabet;
+
+	/** The number of DFA states, the state numbered so being the dead state. */
+	private int n;
+
+	/**
+	 * The state each state moves to by each character, at index state *
+	 * alphabet size + character index. Missing moves go to the dead state.
+	 */
+	private int[] moves;
+
+	/**
+	 * The states moving to each state by each character, those moving to t by
+	 * c being from index into[c * (n + 2) + t] to into[c * (n + 2) + t + 1]
+	 * of from.
+	 */
+	private int[] into;
+	private int[] from;
+
+	/** The states, ordered so that the states of each group are together. */
+	private int[] elements;
+
+	/** The index of each state in elements. */
+	private int[] location;
+
+	/** The group of each state. */
+	private int[] group;
+
+	/**
+	 * The first and one after the last index of each group in elements, and
+	 * the end of the states of each group marked so far.
+	 */
+	private int[] first;
+	private int[] end;
+	private int[] marked;
+
+	/** The number of groups. */
+	private int groups;
+
+	/** The splitters still to be used, as group * alphabet size + character. */
+	private int[] pending;
+	private int pendingCount;
+	private boolean[] isPending;
+
+	/** The merged state of each DFA state, or -1 if it accepts nothing. */
+	private int[] merged;
+
+	/** The number of merged states. */
+	private int mergedCount;
+
+	/**
+	 * Find the states of a DFA which accept the same words
+	 *
+	 * @param dfa
+	 *            The DFA, whose states are numbered from 0 in the order they
+	 *            were added, as the subset construction leaves them
+	 */
+	public Minimiser(Automaton dfa) {
+		this.dfa = dfa;
+		State[] states = dfa.getStates();
+		n = states.length;
+		alphabet = new char[dfa.getAlphabet().size()];
+		HashMap<Character, Integer> index = new HashMap<Character, Integer>();
+		for (Character c : dfa.getAlphabet()) {
+			index.put(c, index.size());
+			alphabet[index.size() - 1] = c;
+		}
+
+		// complete the DFA with a dead state, which every missing move and
+		// every move of the dead state leads to
+		int k = alphabet.length;
+		moves = new int[(n + 1) * k];
+		Arrays.fill(moves, n);
+		for (State s : states)
+			for (Edge e : s.getEdges())
+				moves[s.getId() * k + index.get(e.getInput().getChar())] = e.getState().getId();
+
+		// list the moves backwards, counting them first
+		into = new int[k * (n + 2)];
+		from = new int[k * (n + 1)];
+		for (int s = 0; s <= n; s++)
+			for (int c = 0; c < k; c++)
+				into[c * (n + 2) + moves[s * k + c] + 1]++;
+		for (int i = 1; i < into.length; i++)
+			into[i] += into[i - 1];
+		int[] filled = into.clone();
+		for (int s = 0; s <= n; s++)
+			for (int c = 0; c < k; c++)
+				from[filled[c * (n + 2) + moves[s * k + c]]++] = s;
+
+		refine(states);
+		merge();
+	}
+
+	/**
+	 * Split the states into groups of states accepting the same words
+	 *
+	 * @param states
+	 *            The states of the DFA
+	 */
+	private void refine(State[] states) {
+		int k = alphabet.length;
+		elements = new int[n + 1];
+		location = new int[n + 1];
+		group = new int[n + 1];
+		first = new int[n + 1];
+		end = new int[n + 1];
+		marked = new int[n + 1];
+		pending = new int[(n + 1) * k];
+		isPending = new boolean[(n + 1) * k];
+
+		// the accepting states come first, then the others and the dead state
+		int accepting = 0;
+		for (State s : states)
+			if (s.isAccepting())
+				place(s.getId(), accepting++, 0);
+		int other = accepting;
+		for (State s : states)
+			if (!s.isAccepting())
+				place(s.getId(), other++, accepting == 0 ? 0 : 1);
+		place(n, other, accepting == 0 ? 0 : 1);
+
+		if (accepting == 0) {
+			groups = 1;
+			first[0] = 0;
+			end[0] = n + 1;
+		} else {
+			groups = 2;
+			first[0] = 0;
+			end[0] = accepting;
+			first[1] = accepting;
+			end[1] = n + 1;
+			// either group is enough to split the other one
+			int smaller = accepting <= n + 1 - accepting ? 0 : 1;
+			for (int c = 0; c < k; c++)
+				addPending(smaller * k + c);
+		}
+		for (int g = 0; g < groups; g++)
+			marked[g] = first[g];
+
+		int[] predecessors = new int[n + 1];
+		int[] touched = new int[n + 1];
+		while (pendingCount > 0) {
+			int splitter = pending[--pendingCount];
+			isPending[splitter] = false;
+			int g = splitter / k;
+			int c = splitter % k;
+
+			// find the states moving into the group by the character before
+			// marking them, as marking reorders the states of the group
+			int count = 0;
+			for (int i = first[g]; i < end[g]; i++) {
+				int t = elements[i];
+				for (int j = into[c * (n + 2) + t]; j < into[c * (n + 2) + t + 1]; j++)
+					predecessors[count++] = from[j];
+			}
+
+			int touchedCount = 0;
+			for (int i = 0; i < count; i++) {
+				int s = predecessors[i];
+				int h = group[s];
+				if (marked[h] == first[h])
+					touched[touchedCount++] = h;
+				swap(location[s], marked[h]++);
+			}
+
+			for (int i = 0; i < touchedCount; i++)
+				split(touched[i]);
+		}
+	}
+
+	/**
+	 * Split a group into its marked and its other states, if it has both
+	 *
+	 * @param g
+	 *            The group
+	 */
+	private void split(int g) {
+		if (marked[g] == end[g]) {
+			marked[g] = first[g];
+			return;
+		}
+		int k = alphabet.length;
+		int h = groups++;
+		first[h] = first[g];
+		end[h] = marked[g];
+		marked[h] = first[h];
+		first[g] = end[h];
+		marked[g] = first[g];
+		for (int i = first[h]; i < end[h]; i++)
+			group[elements[i]] = h;
+
+		// a group waiting to split others is replaced by both halves, any
+		// other by the smaller half
+		boolean hSmaller = end[h] - first[h] <= end[g] - first[g];
+		for (int c = 0; c < k; c++) {
+			if (isPending[g * k + c] || hSmaller)
+				addPending(h * k + c);
+			else
+				addPending(g * k + c);
+		}
+	}
+
+	/**
+	 * Put a state in elements
+	 *
+	 * @param s
+	 *            The state
+	 * @param i
+	 *            The index in elements
+	 * @param g
+	 *            The group
+	 */
+	private void place(int s, int i, int g) {
+		elements[i] = s;
+		location[s] = i;
+		group[s] = g;
+	}
+
+	/**
+	 * Swap two states in elements
+	 *
+	 * @param i
+	 *            The index of one state
+	 * @param j
+	 *            The index of the other state
+	 */
+	private void swap(int i, int j) {
+		int s = elements[i];
+		int t = elements[j];
+		elements[i] = t;
+		elements[j] = s;
+		location[t] = i;
+		location[s] = j;
+	}
+
+	/**
+	 * Add a splitter to be used
+	 *
+	 * @param splitter
+	 *            The group * alphabet size + character
+	 */
+	private void addPending(int splitter) {
+		if (!isPending[splitter]) {
+			isPending[splitter] = true;
+			pending[pendingCount++] = splitter;
+		}
+	}
+
+	/**
+	 * Number the groups in the order of their first states, leaving out the
+	 * group of the dead state, whose states accept nothing
+	 */
+	private void merge() {
+		int[] number = new int[groups];
+		Arrays.fill(number, -1);
+		merged = new int[n];
+		mergedCount = 0;
+		for (int s = 0; s < n; s++) {
+			int g = group[s];
+			if (g == group[n])
+				merged[s] = -1;
+			else {
+				if (number[g] < 0)
+					number[g] = mergedCount++;
+				merged[s] = number[g];
+			}
+		}
+	}
+
+	/**
+	 * Get the merged state a DFA state is part of
+	 *
+	 * @param id
+	 *            The id of the DFA state
+	 * @return The id of the merged state, or -1 if the DFA state accepts no
+	 *         words and is left out
+	 */
+	public int getMerged(int id) {
+		return merged[id];
+	}
+
+	/**
+	 * Get the number of merged states
+	 *
+	 * @return The number of states of the minimised DFA
+	 */
+	public int getNumberOfStates() {
+		return mergedCount;
+	}
+
+	/**
+	 * Build the minimised DFA. Each merged state takes the edges of the first
+	 * DFA state merged into it, and the states are laid out.
+	 *
+	 * @return The minimised DFA
+	 */
+	public Automaton build() {
+		Automaton minimised = new Automaton();
+		minimised.getAlphabet().addAll(dfa.getAlphabet());
+		State[] states = dfa.getStates();
+		State[] built = new State[mergedCount];
+		int[] representative = new int[mergedCount];
+		for (int s = n - 1; s >= 0; s--)
+			if (merged[s] >= 0)
+				representative[merged[s]] = s;
+		for (int m = 0; m < mergedCount; m++) {
+			built[m] = new State(m, states[representative[m]].isAccepting(), (m + 1) + "");
+			minimised.addState(built[m]);
+		}
+		for (int m = 0; m < mergedCount; m++)
+			for (Edge e : states[representative[m]].getEdges()) {
+				int to = merged[e.getState().getId()];
+				if (to >= 0)
+					built[m].addEdge(new Edge(built[to], new NewChar(e.getInput().getChar())));
+			}
+		if (mergedCount > 0)
+			minimised.setCoords();
+		return minimised;
+	}
+}
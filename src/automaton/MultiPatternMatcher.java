@@ -0,0 +1,231 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import automaton.thompsons.ConBlock;
+
+/**
+ * Class checking a word against many regular expressions at once. The NFAs of
+ * the expressions are joined under one start state and determinised together
+ * by DFABuilder, so each state of the DFA is a set of states of all of them,
+ * and is tagged with the expressions whose accepting states it holds. The DFA
+ * is not minimised, as that could merge states with different tags. A word is
+ * read once through the table of a DFAMatcher, looking up one entry for each
+ * character however many expressions there are, and the tags of the state
+ * reached are the expressions it matches. The table is never changed, so one
+ * matcher can be shared between threads.
+ *
+ * @author agent
+ *
+ */
+public final class MultiPatternMatcher {
+
+	/** The tags of a state matching no expression. */
+	private static final int[] NONE = new int[0];
+
+	/** The number of expressions. */
+	private final int patterns;
+
+	/** The table of the DFA. */
+	private final DFAMatcher dfa;
+
+	/** The expressions each state matches, in order, by state. */
+	private final int[][] tags;
+
+	/**
+	 * Build the DFA for some regular expressions
+	 *
+	 * @param regexes
+	 *            The tree-like representations of the regular expressions
+	 */
+	public MultiPatternMatcher(List<ConBlock> regexes) {
+		patterns = regexes.size();
+
+		// the NFAs under one start state, with the expression each state is
+		// the accepting state of
+		Automaton union = new Automaton();
+		ArrayList<State> states = new ArrayList<State>();
+		State start = new State(0, false, "1");
+		states.add(start);
+		ArrayList<Integer> owner = new ArrayList<Integer>();
+		owner.add(-1);
+		for (int p = 0; p < patterns; p++) {
+			Automaton a = AutomatonCompiler.compileNFA(regexes.get(p));
+			State[] nfa = a.getStates();
+			int offset = states.size();
+			for (State s : nfa) {
+				states.add(new State(offset + s.getId(), s.isAccepting(), (offset + s.getId() + 1) + ""));
+				owner.add(s.isAccepting() ? p : -1);
+			}
+			for (State s : nfa)
+				for (Edge e : s.getEdges())
+					states.get(offset + s.getId())
+							.addEdge(new Edge(states.get(offset + e.getState().getId()), e.getInput()));
+			if (nfa.length > 0)
+				start.addEdge(new Edge(states.get(offset), new NewChar()));
+			for (Character c : a.getAlphabet())
+				union.addChar(c);
+		}
+		union.addStates(states);
+
+		DFABuilder builder = new DFABuilder(null);
+		Automaton determinised = builder.build(union);
+		dfa = new DFAMatcher(new CompactAutomaton(determinised));
+
+		// the tags are in order as the states of each NFA follow the states
+		// of the ones before it
+		int n = determinised.getNumberOfStates();
+		tags = new int[n][];
+		HashMap<Key, int[]> shared = new HashMap<Key, int[]>();
+		int[] matched = new int[patterns];
+		for (int d = 0; d < n; d++) {
+			StateSet set = builder.getClosure(d);
+			int count = 0;
+			for (int id = set.next(0); id >= 0; id = set.next(id + 1)) {
+				int p = owner.get(id);
+				if (p >= 0 && (count == 0 || matched[count - 1] != p))
+					matched[count++] = p;
+			}
+			if (count == 0) {
+				tags[d] = NONE;
+			} else {
+				Key key = new Key(Arrays.copyOf(matched, count));
+				int[] tag = shared.get(key);
+				if (tag == null) {
+					tag = key.set;
+					shared.put(key, tag);
+				}
+				tags[d] = tag;
+			}
+		}
+	}
+
+	/**
+	 * Find the regular expressions matching a word
+	 *
+	 * @param word
+	 *            The word
+	 * @return The indices of the expressions, in order, which must not be
+	 *         changed
+	 */
+	public int[] match(CharSequence word) {
+		int row = 0;
+		for (int i = 0, length = word.length(); i < length; i++) {
+			row = dfa.step(row, word.charAt(i));
+			if (row < 0)
+				return NONE;
+		}
+		return tags[dfa.getState(row)];
+	}
+
+	/**
+	 * Find the regular expressions matching part of an array of characters
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return The indices of the expressions, in order, which must not be
+	 *         changed
+	 */
+	public int[] match(char[] text, int from, int to) {
+		int row = 0;
+		for (int i = from; i < to; i++) {
+			row = dfa.step(row, text[i]);
+			if (row < 0)
+				return NONE;
+		}
+		return tags[dfa.getState(row)];
+	}
+
+	/**
+	 * Move from a state of the DFA by a character
+	 *
+	 * @param row
+	 *            The row of the state, 0 for the start state
+	 * @param c
+	 *            The character
+	 * @return The row of the state moved to, or -1 if there is no edge
+	 */
+	public int step(int row, char c) {
+		return dfa.step(row, c);
+	}
+
+	/**
+	 * Get the regular expressions matching the characters which lead to a
+	 * state of the DFA
+	 *
+	 * @param row
+	 *            The row of the state
+	 * @return The indices of the expressions, in order, which must not be
+	 *         changed
+	 */
+	public int[] getMatches(int row) {
+		return tags[dfa.getState(row)];
+	}
+
+	/**
+	 * Get the row of a state of the DFA, which is its number times the number
+	 * of columns
+	 *
+	 * @param s
+	 *            The number of the state
+	 * @return The row
+	 */
+	public int getRow(int s) {
+		return dfa.getRow(s);
+	}
+
+	/**
+	 * Get the number of regular expressions
+	 *
+	 * @return The number of expressions
+	 */
+	public int getNumberOfPatterns() {
+		return patterns;
+	}
+
+	/**
+	 * Get the number of states of the DFA
+	 *
+	 * @return The number of states
+	 */
+	public int getNumberOfStates() {
+		return tags.length;
+	}
+
+	/**
+	 * A sorted set of numbers used as a key of a map.
+	 */
+	private static final class Key {
+
+		private final int[] set;
+		private final int hash;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param set
+		 *            The numbers, in order
+		 */
+		private Key(int[] set) {
+			this.set = set;
+			this.hash = Arrays.hashCode(set);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && Arrays.equals(set, ((Key) o).set);
+		}
+	}
+}
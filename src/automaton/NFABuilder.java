@@ -0,0 +1,349 @@
+package automaton;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import automaton.thompsons.ConBlock;
+
+/**
+ * Class building an NFA from the tree-like representation of a regular
+ * expression using Thompson's construction. The steps are passed on to a
+ * listener, if there is one, so the animation and the compiler share the same
+ * construction.
+ *
+ * @author Botond Megyesfalvi
+ * @author Danyil Ilchenko
+ * @author agent
+ *
+ */
+public class NFABuilder {
+
+	/** The listener following the steps, or null. */
+	private NFAListener listener;
+
+	/** The NFA being built. */
+	private Automaton automaton;
+
+	/** The expansions which are still to be done, the next one on top. */
+	private Deque<Expansion> pending;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param listener
+	 *            The listener following the steps, or null
+	 */
+	public NFABuilder(NFAListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Build the NFA for a regular expression
+	 *
+	 * @param c
+	 *            The tree-like representation of a regular expression
+	 * @return The NFA
+	 */
+	public Automaton build(ConBlock c) {
+		State start = new State(0, false, "1");
+		State end = new State(1, true, "2");
+		start.setX(0);
+		end.setX(c.getXs() + 1);
+		int i = c.getYs();
+		start.setYLimit(0);
+		start.setY(i);
+		end.setY(i);
+		end.setYLimit(0);
+
+		automaton = new Automaton();
+		addState(start);
+		addState(end);
+
+		Edge firstEdge = new Edge(end, c);
+		addEdge(start, firstEdge);
+
+		if (listener != null) {
+			listener.started(automaton);
+			listener.expanding(start, end);
+		}
+		removeEdge(start, firstEdge);
+		buildUp(start, end, c);
+		return automaton;
+	}
+
+	/**
+	 * Build the automaton between 2 given states. This will expand the regular
+	 * expression from the outside in. Expansions still to be done are kept on
+	 * an explicit stack rather than by recursion, so a long or deeply nested
+	 * regular expression cannot overflow the thread's stack.
+	 *
+	 * @param start
+	 *            The starting state
+	 * @param end
+	 *            The ending state
+	 * @param c
+	 *            The ConBlock
+	 */
+	private void buildUp(State start, State end, ConBlock c) {
+		pending = new ArrayDeque<Expansion>();
+		expand(start, end, c);
+		while (!pending.isEmpty()) {
+			Expansion next = pending.pop();
+
+			if (listener != null)
+				listener.expanding(next.start, next.end);
+
+			// We start expanding the conblock, we need to delete the edge, and
+			// build up that conblock between the given two states.
+			removeEdge(next.start, next.edge);
+			expand(next.start, next.end, next.block);
+		}
+	}
+
+	/**
+	 * Expand a single ConBlock between 2 given states. The edges standing for
+	 * its insides are added to the pending expansions.
+	 *
+	 * @param start
+	 *            The starting state
+	 * @param end
+	 *            The ending state
+	 * @param c
+	 *            The ConBlock
+	 */
+	private void expand(State start, State end, ConBlock c) {
+		switch (c.getType()) {
+		case ELEM:
+
+			// Creates an Edge of that element between the starting and ending
+			// states.
+			addEdge(start, new Edge(end, new NewChar(c.getElement())));
+
+			// Add the character to the alphabet of the automaton.
+			automaton.addChar(c.getElement());
+
+			if (listener != null)
+				listener.elemExpanded(start, end, c.getElement());
+			break;
+
+		case EMPTY:
+
+			// Creates an Edge of epsilon move between the starting and ending
+			// states.
+			addEdge(start, new Edge(end, new NewChar()));
+
+			if (listener != null)
+				listener.emptyExpanded(start, end);
+			break;
+
+		case DISJ:
+
+			// If it is a disjunction, we have 2 branches. Both containing 2
+			// states, which are connected by an edge that represents the
+			// conblock that needs to be expanded at that particular branch.
+			Edge edgeToEnding = new Edge(end, new NewChar());
+
+			// Create the 2 States at First Branch
+			State stateA1 = newState();
+			stateA1.setX(start.getX() + 1);
+			State stateA2 = newState();
+			int insideXs = Math.max(c.getInsides()[0].getXs(), c.getInsides()[1].getXs());
+			stateA2.setX(start.getX() + 1 + insideXs + 1);
+			int i = c.getInsides()[0].getYs();
+			stateA1.setY(i + start.getYLimit());
+			stateA2.setY(i + start.getYLimit());
+			stateA1.setYLimit(start.getYLimit());
+			stateA2.setYLimit(start.getYLimit());
+
+			// From our starting state there is a possible epsilon move to
+			// StateA1
+			addEdge(start, new Edge(stateA1, new NewChar()));
+			// From our StateA2 there is a possible epsilon move to ending
+			addEdge(stateA2, edgeToEnding);
+
+			// The move between the 2 states, it stands for the conblock that
+			// will be expanded on that branch
+			Edge edgeBetweenA = new Edge(stateA2, c.getInsides()[0]);
+			addEdge(stateA1, edgeBetweenA);
+
+			// Same thing for the Second Branch
+			State stateB1 = newState();
+			stateB1.setX(start.getX() + 1);
+			State stateB2 = newState();
+			stateB2.setX(start.getX() + 1 + insideXs + 1);
+			stateB1.setY(start.getY() + (c.getInsides()[1]).getYs() + 1);
+			stateB2.setY(start.getY() + (c.getInsides()[1]).getYs() + 1);
+			stateB1.setYLimit(start.getY() + 1);
+			stateB2.setYLimit(start.getY() + 1);
+
+			addEdge(start, new Edge(stateB1, new NewChar()));
+			addEdge(stateB2, edgeToEnding);
+
+			Edge edgeBetweenB = new Edge(stateB2, c.getInsides()[1]);
+			addEdge(stateB1, edgeBetweenB);
+
+			if (listener != null)
+				listener.disjExpanded(start, end, stateA1, stateA2, stateB1, stateB2);
+
+			// We expand the first branch and then the second one, each between
+			// its 2 states.
+			pending.push(new Expansion(stateB1, stateB2, c.getInsides()[1], edgeBetweenB));
+			pending.push(new Expansion(stateA1, stateA2, c.getInsides()[0], edgeBetweenA));
+
+			break;
+		case STAR:
+			// We create 2 states
+			State state1 = newState();
+			State state2 = newState();
+			state1.setX(start.getX() + 1);
+			state2.setX(start.getX() + 1 + (c.getInsides()[0]).getXs() + 1);
+			state1.setY(start.getY());
+			state2.setY(start.getY());
+			state1.setYLimit(start.getYLimit());
+			state2.setYLimit(start.getYLimit());
+
+			// There is an epsilon move between the starting state and ending
+			// (because * allows 0), and state2 and ending as well.
+			Edge edge = new Edge(end, new NewChar());
+			addEdge(state2, edge);
+
+			// From the starting state there is an epsilon move to state 1
+			Edge edgeToState1 = new Edge(state1, new NewChar());
+			addEdge(start, edgeToState1);
+
+			// There is a move between State 1 and State 2. It stands for the
+			// conblock that will be expanded.
+			Edge edgeToState2 = new Edge(state2, c.getInsides()[0]);
+			Edge emptyToState2 = new Edge(state2, new NewChar());
+			addEdge(state1, edgeToState2);
+			addEdge(start, emptyToState2);
+
+			// From state 2 we can go back to state 1. This makes the structure
+			// recursive.
+			Edge edgeToStart = new Edge(start, new NewChar());
+			addEdge(state2, edgeToStart);
+
+			if (listener != null)
+				listener.starExpanded(start, end, state1, state2);
+
+			// Start expanding the conblock inside the Star, between the given
+			// two states.
+			pending.push(new Expansion(state1, state2, c.getInsides()[0], edgeToState2));
+
+			break;
+
+		case CONCAT:
+
+			// Create one extra state
+			state1 = newState();
+
+			// Adds an edge between the start and the newly created state, that
+			// represents the first part of the concat.
+			edge = new Edge(state1, c.getInsides()[0]);
+			addEdge(start, edge);
+			// Adds an edge between the newly created state and the end, that
+			// represents the second part of the concat.
+			edgeToEnding = new Edge(end, c.getInsides()[1]);
+			addEdge(state1, edgeToEnding);
+
+			// Calculates the coordinates of the newly added state
+			state1.setX(start.getX() + 1 + c.getInsides()[0].getXs());
+			state1.setY(start.getY());
+			state1.setYLimit(start.getYLimit());
+
+			if (listener != null)
+				listener.concatExpanded(start, end, state1);
+
+			// We expand the first conblock from the concatenation and then the
+			// second one.
+			pending.push(new Expansion(state1, end, c.getInsides()[1], edgeToEnding));
+			pending.push(new Expansion(start, state1, c.getInsides()[0], edge));
+
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Create the next state of the automaton and add it
+	 *
+	 * @return The state
+	 */
+	private State newState() {
+		State s = new State(automaton.getNumberOfStates(), false, String.valueOf(automaton.getNumberOfStates() + 1));
+		addState(s);
+		return s;
+	}
+
+	/**
+	 * Add a state to the automaton
+	 *
+	 * @param s
+	 *            The state
+	 */
+	private void addState(State s) {
+		automaton.addState(s);
+		if (listener != null)
+			listener.stateAdded(s);
+	}
+
+	/**
+	 * Add an edge after the other edges of a state
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	private void addEdge(State from, Edge edge) {
+		from.addEdge(edge);
+		if (listener != null)
+			listener.edgeAdded(from, edge);
+	}
+
+	/**
+	 * Remove an edge from a state
+	 *
+	 * @param from
+	 *            The state the edge comes from
+	 * @param edge
+	 *            The edge
+	 */
+	private void removeEdge(State from, Edge edge) {
+		from.removeEdge(edge);
+		if (listener != null)
+			listener.edgeRemoved(from, edge);
+	}
+
+	/**
+	 * An edge standing for a ConBlock which is still to be expanded.
+	 */
+	private static class Expansion {
+
+		private final State start;
+		private final State end;
+		private final ConBlock block;
+		private final Edge edge;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param start
+		 *            The starting state
+		 * @param end
+		 *            The ending state
+		 * @param block
+		 *            The ConBlock to expand
+		 * @param edge
+		 *            The edge standing for the ConBlock
+		 */
+		private Expansion(State start, State end, ConBlock block, Edge edge) {
+			this.start = start;
+			this.end = end;
+			this.block = block;
+			this.edge = edge;
+		}
+	}
+}
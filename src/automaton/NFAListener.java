@@ -0,0 +1,97 @@
+package automaton;
+
+/**
+ * An interface for anything following the steps of Thompson's construction,
+ * like the animation showing them.
+ *
+ * @author agent
+ *
+ */
+public interface NFAListener extends AutomatonListener {
+
+	/**
+	 * Called once the starting and accepting states are created, joined by an
+	 * edge standing for the whole regular expression
+	 *
+	 * @param automaton
+	 *            The NFA being built
+	 */
+	void started(Automaton automaton);
+
+	/**
+	 * Called before the edge standing for a ConBlock is expanded
+	 *
+	 * @param start
+	 *            The state the edge comes from
+	 * @param end
+	 *            The state the edge goes to
+	 */
+	void expanding(State start, State end);
+
+	/**
+	 * Called once an element is expanded into a move on its character
+	 *
+	 * @param start
+	 *            The state the move comes from
+	 * @param end
+	 *            The state the move goes to
+	 * @param c
+	 *            The character
+	 */
+	void elemExpanded(State start, State end, char c);
+
+	/**
+	 * Called once the empty regular expression is expanded into an epsilon
+	 * move
+	 *
+	 * @param start
+	 *            The state the move comes from
+	 * @param end
+	 *            The state the move goes to
+	 */
+	void emptyExpanded(State start, State end);
+
+	/**
+	 * Called once a disjunction is expanded into two branches
+	 *
+	 * @param start
+	 *            The state the branches come from
+	 * @param end
+	 *            The state the branches go to
+	 * @param stateA1
+	 *            The first state of the first branch
+	 * @param stateA2
+	 *            The second state of the first branch
+	 * @param stateB1
+	 *            The first state of the second branch
+	 * @param stateB2
+	 *            The second state of the second branch
+	 */
+	void disjExpanded(State start, State end, State stateA1, State stateA2, State stateB1, State stateB2);
+
+	/**
+	 * Called once a Kleene star is expanded into a loop
+	 *
+	 * @param start
+	 *            The state the loop comes from
+	 * @param end
+	 *            The state the loop goes to
+	 * @param state1
+	 *            The state starting the repeated part
+	 * @param state2
+	 *            The state ending the repeated part
+	 */
+	void starExpanded(State start, State end, State state1, State state2);
+
+	/**
+	 * Called once a concatenation is expanded into its two parts
+	 *
+	 * @param start
+	 *            The state the first part comes from
+	 * @param end
+	 *            The state the second part goes to
+	 * @param state1
+	 *            The state between the two parts
+	 */
+	void concatExpanded(State start, State end, State state1);
+}
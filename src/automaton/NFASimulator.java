@@ -0,0 +1,176 @@
+package automaton;
+
+import java.nio.CharBuffer;
+
+/**
+ * Class checking words by following every state an NFA could be in at once.
+ * The states are kept in a sparse set, which holds each state at most once,
+ * and the epsilon edges are followed as states are added, so each character
+ * takes time in proportion to the size of the NFA and nothing is allocated.
+ * Words can therefore be checked against expressions whose DFA is too large
+ * to build.
+ *
+ * The sets of states are kept between words, so a simulator must only be used
+ * by one thread at a time.
+ *
+ * @author agent
+ *
+ */
+public final class NFASimulator implements Matcher {
+
+	/** The NFA. */
+	private final CompactAutomaton nfa;
+
+	/** The states reached from the start state by epsilon edges. */
+	private final int[] startClosure;
+
+	/** The states the NFA could be in, and the ones it could be in next. */
+	private SparseSet current;
+	private SparseSet next;
+
+	/** The states waiting to have their epsilon edges followed. */
+	private final int[] stack;
+
+	/**
+	 * Create a simulator
+	 *
+	 * @param nfa
+	 *            The NFA
+	 */
+	public NFASimulator(CompactAutomaton nfa) {
+		this.nfa = nfa;
+		int n = nfa.getNumberOfStates();
+		current = new SparseSet(n);
+		next = new SparseSet(n);
+		stack = new int[n];
+		if (n > 0)
+			add(current, 0);
+		startClosure = new int[current.size()];
+		for (int i = 0; i < startClosure.length; i++)
+			startClosure[i] = current.get(i);
+	}
+
+	/**
+	 * Add a state to a set, with every state reached from it by epsilon edges
+	 *
+	 * @param set
+	 *            The set
+	 * @param s
+	 *            The state
+	 */
+	private void add(SparseSet set, int s) {
+		if (!set.add(s))
+			return;
+		int size = 0;
+		stack[size++] = s;
+		while (size > 0) {
+			int t = stack[--size];
+			for (int i = nfa.getFirstEpsilonEdge(t); i < nfa.getFirstEpsilonEdge(t + 1); i++) {
+				int u = nfa.getEpsilonTarget(i);
+				if (set.add(u))
+					stack[size++] = u;
+			}
+		}
+	}
+
+	/**
+	 * Start checking a word, in the states reached from the start state by
+	 * epsilon edges
+	 */
+	public void start() {
+		current.clear();
+		for (int s : startClosure)
+			current.add(s);
+	}
+
+	/**
+	 * Read a character of the word
+	 *
+	 * @param c
+	 *            The character
+	 * @return Whether the NFA could be in any state after it
+	 */
+	public boolean step(char c) {
+		next.clear();
+		for (int i = 0; i < current.size(); i++) {
+			int s = current.get(i);
+			for (int e = nfa.getFirstEdge(s, c); e < nfa.getFirstEdge(s + 1) && nfa.getInput(e) == c; e++)
+				add(next, nfa.getTarget(e));
+		}
+		SparseSet swap = current;
+		current = next;
+		next = swap;
+		return !current.isEmpty();
+	}
+
+	/**
+	 * Check whether the NFA could be in an accepting state
+	 *
+	 * @return Whether the word read so far is accepted
+	 */
+	public boolean isAccepting() {
+		for (int i = 0; i < current.size(); i++)
+			if (nfa.isAccepting(current.get(i)))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Get the states the NFA could be in
+	 *
+	 * @return The states, in the order they were reached
+	 */
+	public int[] getStates() {
+		int[] states = new int[current.size()];
+		for (int i = 0; i < states.length; i++)
+			states[i] = current.get(i);
+		return states;
+	}
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		return matches(word, 0, word.length());
+	}
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		return matches(CharBuffer.wrap(text), from, to);
+	}
+
+	/**
+	 * Check whether part of a sequence of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	private boolean matches(CharSequence text, int from, int to) {
+		start();
+		for (int i = from; i < to; i++)
+			if (!step(text.charAt(i)))
+				return false;
+		return isAccepting();
+	}
+}
@@ -0,0 +1,267 @@
+package automaton;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class checking a very long word against a DFA on several threads. The word
+ * is split into chunks, and the state each state of the DFA moves to by
+ * reading a chunk is found for every chunk at once. Walking from every state
+ * would take as many walks as there are states, but the walks soon reach the
+ * same states, so the ones in the same state are merged every few characters
+ * and followed as one. The moves of neighbouring chunks are then composed in
+ * pairs up the tree of fork-join tasks, giving the state the whole word leads
+ * to from the start. The first chunk is only read from the start state.
+ *
+ * Nothing changes once it is built, so one matcher can be shared between
+ * threads.
+ *
+ * @author agent
+ *
+ */
+public final class ParallelDFAMatcher implements Matcher {
+
+	/** The fewest characters in a chunk if no other number is given. */
+	public static final int DEFAULT_CHUNK = 1 << 20;
+
+	/** The number of characters read between merging the walks. */
+	private static final int MERGE = 32;
+
+	/** The number of chunks given to each thread of the pool. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/** The table of the DFA. */
+	private final DFAMatcher dfa;
+
+	/** The pool the chunks are read on. */
+	private final ForkJoinPool pool;
+
+	/** The fewest characters in a chunk. */
+	private final int chunk;
+
+	/**
+	 * Create a matcher using the common fork-join pool
+	 *
+	 * @param dfa
+	 *            The table of the DFA
+	 */
+	public ParallelDFAMatcher(DFAMatcher dfa) {
+		this(dfa, ForkJoinPool.commonPool(), DEFAULT_CHUNK);
+	}
+
+	/**
+	 * Create a matcher
+	 *
+	 * @param dfa
+	 *            The table of the DFA
+	 * @param pool
+	 *            The pool to read the chunks on
+	 * @param chunk
+	 *            The fewest characters in a chunk, at least 1; shorter words
+	 *            are checked on one thread
+	 */
+	public ParallelDFAMatcher(DFAMatcher dfa, ForkJoinPool pool, int chunk) {
+		if (chunk <= 0)
+			throw new IllegalArgumentException("A chunk must have at least one character");
+		this.dfa = dfa;
+		this.pool = pool;
+		this.chunk = chunk;
+	}
+
+	/**
+	 * Check whether a word is accepted
+	 *
+	 * @param word
+	 *            The word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(CharSequence word) {
+		return matches(word, 0, word.length());
+	}
+
+	/**
+	 * Check whether part of an array of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	@Override
+	public boolean matches(char[] text, int from, int to) {
+		return matches(CharBuffer.wrap(text), from, to);
+	}
+
+	/**
+	 * Check whether part of a sequence of characters is accepted as a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character of the word
+	 * @param to
+	 *            The index after the last character of the word
+	 * @return Whether it is accepted
+	 */
+	private boolean matches(CharSequence text, int from, int to) {
+		if (to - from < 2 * chunk || dfa.getNumberOfStates() == 0)
+			return dfa.matches(text.subSequence(from, to));
+		int chunks = Math.min((to - from) / chunk, pool.getParallelism() * CHUNKS_PER_THREAD);
+		int[] moves = pool.invoke(new Chunks(text, from, from, to, chunks));
+		int s = moves[0];
+		return s >= 0 && dfa.isAccepting(dfa.getRow(s));
+	}
+
+	/**
+	 * Find the state each state moves to by reading part of a word
+	 *
+	 * @param text
+	 *            The characters
+	 * @param from
+	 *            The index of the first character
+	 * @param to
+	 *            The index after the last character
+	 * @param fromStart
+	 *            Whether the part starts the word, so that only the start
+	 *            state needs to be followed
+	 * @return The state each state moves to, or -1 if it has no edge or it
+	 *         was not followed
+	 */
+	private int[] moves(CharSequence text, int from, int to, boolean fromStart) {
+		int n = dfa.getNumberOfStates();
+		// the rows of the walks, and the walk followed from each state
+		int[] rows = new int[n];
+		int[] walk = new int[n];
+		for (int s = 0; s < n; s++) {
+			rows[s] = dfa.getRow(s);
+			walk[s] = s;
+		}
+		int walks = fromStart ? 1 : n;
+		// the walk each state has been merged into, by the round it was
+		int[] merged = new int[n];
+		int[] round = new int[n];
+		int rounds = 0;
+		// the walk each walk is merged into
+		int[] into = new int[n];
+
+		for (int start = from; start < to; start += MERGE) {
+			int end = Math.min(to, start + MERGE);
+			for (int k = 0; k < walks; k++) {
+				int row = rows[k];
+				for (int i = start; i < end && row >= 0; i++)
+					row = dfa.step(row, text.charAt(i));
+				rows[k] = row;
+			}
+			if (walks == 1)
+				continue;
+
+			// merge the walks in the same state, and the ones with no edge
+			rounds++;
+			int kept = 0;
+			int deadWalk = -1;
+			for (int k = 0; k < walks; k++) {
+				int row = rows[k];
+				if (row < 0) {
+					if (deadWalk < 0) {
+						deadWalk = kept;
+						rows[kept++] = row;
+					}
+					into[k] = deadWalk;
+					continue;
+				}
+				int s = dfa.getState(row);
+				if (round[s] != rounds) {
+					round[s] = rounds;
+					merged[s] = kept;
+					rows[kept++] = row;
+				}
+				into[k] = merged[s];
+			}
+			if (kept < walks) {
+				for (int s = 0; s < n; s++)
+					walk[s] = into[walk[s]];
+				walks = kept;
+			}
+		}
+
+		int[] moves = new int[n];
+		for (int s = 0; s < n; s++) {
+			int row = rows[walk[s]];
+			moves[s] = row < 0 ? -1 : dfa.getState(row);
+		}
+		if (fromStart)
+			Arrays.fill(moves, 1, n, -1);
+		return moves;
+	}
+
+	/**
+	 * Compose the moves of two neighbouring parts of a word
+	 *
+	 * @param first
+	 *            The moves of the first part
+	 * @param second
+	 *            The moves of the second part
+	 * @return The moves of both parts, into the first array
+	 */
+	private static int[] compose(int[] first, int[] second) {
+		for (int s = 0; s < first.length; s++)
+			if (first[s] >= 0)
+				first[s] = second[first[s]];
+		return first;
+	}
+
+	/**
+	 * A task finding the moves of some chunks of a word, split in halves
+	 * until there is one chunk, whose moves are composed in order.
+	 */
+	private class Chunks extends RecursiveTask<int[]> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CharSequence text;
+		private final int start;
+		private final int from;
+		private final int to;
+		private final int chunks;
+
+		/**
+		 * Create a new instance
+		 *
+		 * @param text
+		 *            The characters
+		 * @param start
+		 *            The index of the first character of the word
+		 * @param from
+		 *            The index of the first character
+		 * @param to
+		 *            The index after the last character
+		 * @param chunks
+		 *            The number of chunks to split them into
+		 */
+		private Chunks(CharSequence text, int start, int from, int to, int chunks) {
+			this.text = text;
+			this.start = start;
+			this.from = from;
+			this.to = to;
+			this.chunks = chunks;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (chunks <= 1)
+				return moves(text, from, to, from == start);
+			int half = chunks / 2;
+			int middle = from + (int) ((long) (to - from) * half / chunks);
+			Chunks second = new Chunks(text, start, middle, to, chunks - half);
+			second.fork();
+			int[] first = new Chunks(text, start, from, middle, half).compute();
+			return compose(first, second.join());
+		}
+	}
+}
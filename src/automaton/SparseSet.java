@@ -0,0 +1,98 @@
+package automaton;
+
+/**
+ * Class holding a set of state ids below a fixed bound, as described by
+ * Briggs and Torczon. The ids are kept in the order they were added in one
+ * array, and each id's place in it is kept in another, so adding, checking
+ * and emptying the set each take the same time however many ids it holds, and
+ * nothing has to be cleared between uses.
+ *
+ * @author agent
+ *
+ */
+public final class SparseSet {
+
+	/** The ids in the set, in the order they were added. */
+	private final int[] dense;
+
+	/** The place of each id in dense, if it is in the set. */
+	private final int[] sparse;
+
+	/** The number of ids in the set. */
+	private int size;
+
+	/**
+	 * Create an empty set
+	 *
+	 * @param capacity
+	 *            The bound on the ids
+	 */
+	public SparseSet(int capacity) {
+		dense = new int[capacity];
+		sparse = new int[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Add an id
+	 *
+	 * @param id
+	 *            The id
+	 * @return Whether it was not in the set before
+	 */
+	public boolean add(int id) {
+		if (contains(id))
+			return false;
+		dense[size] = id;
+		sparse[id] = size++;
+		return true;
+	}
+
+	/**
+	 * Check whether an id is in the set
+	 *
+	 * @param id
+	 *            The id
+	 * @return Whether it is in the set
+	 */
+	public boolean contains(int id) {
+		int i = sparse[id];
+		return i < size && dense[i] == id;
+	}
+
+	/**
+	 * Empty the set
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Get the number of ids in the set
+	 *
+	 * @return The number of ids
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Check whether the set is empty
+	 *
+	 * @return Whether it is empty
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Get an id of the set
+	 *
+	 * @param index
+	 *            The place of the id, in the order they were added
+	 * @return The id
+	 */
+	public int get(int index) {
+		return dense[index];
+	}
+}
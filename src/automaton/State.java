@@ -1,8 +1,6 @@
 package automaton;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Class representing a state
@@ -15,12 +13,9 @@ import java.util.Set;
 public class State {
 
 	private boolean accepting;
-	private boolean startOfRecPat;
-	private boolean endOfRecPat;
 	private int id;
 	private int x, y, ylimit;
 	private ArrayList<Edge> edges;
-	private Set<Integer> loops;
 	private String label;
 
 	/**
@@ -34,12 +29,9 @@ public class State {
 	 *            Is accepting
 	 */
 	public State(int id, boolean accepting, String label) {
-		this.startOfRecPat = false;
-		this.endOfRecPat = false;
 		this.id = id;
 		this.accepting = accepting;
 		this.edges = new ArrayList<Edge>();
-		this.loops = new HashSet<Integer>();
 		this.label = label;
 	}
 
@@ -167,63 +159,6 @@ public class State {
 		return "State: " + id + " x= " + x + " y= " + y;
 	}
 
-	/**
-	 * Sets whether this state is the start of a recursive path.
-	 * 
-	 * @param ssrp
-	 *            If it should be the start of a recursive path.
-	 */
-	public void setStartOfRecPat(boolean ssrp) {
-		startOfRecPat = ssrp;
-	}
-
-	/**
-	 * Sets whether this state is the end of a recursive path.
-	 * 
-	 * @param serp
-	 *            If it should be the end of a recursive path.
-	 */
-	public void setEndOfRecPat(boolean serp) {
-		endOfRecPat = serp;
-	}
-
-	/**
-	 * Gets if it is the start of a recursive path
-	 * 
-	 * @return If it is the start of a recursive path
-	 */
-	public boolean isStartOfRecPat() {
-		return startOfRecPat;
-	}
-
-	/**
-	 * Gets if it is the end of a recursive path
-	 * 
-	 * @return If it is the end of a recursive path
-	 */
-	public boolean isEndOfRecPat() {
-		return endOfRecPat;
-	}
-
-	/**
-	 * Adds a new state to a loop
-	 * 
-	 * @param id
-	 *            A new ID to loop on
-	 */
-	public void addLoop(int id) {
-		loops.add(id);
-	}
-
-	/**
-	 * Gets all of the ID in the loop
-	 * 
-	 * @return The list of IDs
-	 */
-	public Set<Integer> getLoops() {
-		return loops;
-	}
-
 	public String toString() {
 		return "<State: " + id + ">";
 	}
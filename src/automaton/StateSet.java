@@ -0,0 +1,222 @@
+package automaton;
+
+import java.util.Arrays;
+
+/**
+ * Class holding a set of states of an automaton as a bitset indexed by their
+ * ids, so that sets of states can be joined, compared and hashed a word of 64
+ * states at a time. Only the words from the one holding the lowest id to the
+ * one holding the highest id are kept, so a closure spanning a small part of a
+ * long automaton stays small.
+ *
+ * @author agent
+ *
+ */
+public class StateSet {
+
+	/** The index of the first word kept. */
+	private int offset;
+
+	/**
+	 * The words kept, the state with id i being bit i % 64 of word i / 64 -
+	 * offset. The first and the last word are never zero.
+	 */
+	private long[] words;
+
+	/**
+	 * Create an empty set
+	 */
+	public StateSet() {
+		offset = 0;
+		words = new long[0];
+	}
+
+	/**
+	 * Make sure the words from one index to another are kept
+	 *
+	 * @param first
+	 *            The index of the first word
+	 * @param last
+	 *            The index of the last word
+	 */
+	private void span(int first, int last) {
+		if (words.length == 0) {
+			offset = first;
+			words = new long[last - first + 1];
+			return;
+		}
+		int newOffset = Math.min(offset, first);
+		int newEnd = Math.max(offset + words.length - 1, last);
+		if (newOffset == offset && newEnd == offset + words.length - 1)
+			return;
+		long[] spanned = new long[newEnd - newOffset + 1];
+		System.arraycopy(words, 0, spanned, offset - newOffset, words.length);
+		offset = newOffset;
+		words = spanned;
+	}
+
+	/**
+	 * Add a state
+	 *
+	 * @param id
+	 *            The id of the state
+	 */
+	public void add(int id) {
+		int w = id >>> 6;
+		span(w, w);
+		words[w - offset] |= 1L << id;
+	}
+
+	/**
+	 * Check whether a state is in the set
+	 *
+	 * @param id
+	 *            The id of the state
+	 * @return Whether it is in the set
+	 */
+	public boolean contains(int id) {
+		int w = (id >>> 6) - offset;
+		return w >= 0 && w < words.length && (words[w] & (1L << id)) != 0;
+	}
+
+	/**
+	 * Add every state of another set
+	 *
+	 * @param other
+	 *            The other set
+	 * @return Whether any state was added
+	 */
+	public boolean addAll(StateSet other) {
+		if (other.words.length == 0)
+			return false;
+		span(other.offset, other.offset + other.words.length - 1);
+		boolean changed = false;
+		int shift = other.offset - offset;
+		for (int i = 0; i < other.words.length; i++) {
+			long w = words[i + shift] | other.words[i];
+			if (w != words[i + shift]) {
+				words[i + shift] = w;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Check whether the set has a state in common with another set
+	 *
+	 * @param other
+	 *            The other set
+	 * @return Whether they have a state in common
+	 */
+	public boolean intersects(StateSet other) {
+		int first = Math.max(offset, other.offset);
+		int last = Math.min(offset + words.length, other.offset + other.words.length);
+		for (int i = first; i < last; i++)
+			if ((words[i - offset] & other.words[i - other.offset]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Check whether the set is empty
+	 *
+	 * @return Whether it is empty
+	 */
+	public boolean isEmpty() {
+		return words.length == 0;
+	}
+
+	/**
+	 * Get the number of states in the set
+	 *
+	 * @return The number of states
+	 */
+	public int size() {
+		int size = 0;
+		for (long w : words)
+			size += Long.bitCount(w);
+		return size;
+	}
+
+	/**
+	 * Find the state with the lowest id from a given id on
+	 *
+	 * @param from
+	 *            The id to start from
+	 * @return The id of the state, or -1 if there is none
+	 */
+	public int next(int from) {
+		int i = (from >>> 6) - offset;
+		long w;
+		if (i < 0) {
+			i = 0;
+			w = words.length == 0 ? 0 : words[0];
+		} else if (i >= words.length) {
+			return -1;
+		} else {
+			w = words[i] & (-1L << from);
+		}
+		while (true) {
+			if (w != 0)
+				return ((i + offset) << 6) + Long.numberOfTrailingZeros(w);
+			if (++i >= words.length)
+				return -1;
+			w = words[i];
+		}
+	}
+
+	/**
+	 * Get the ids of the states in the set
+	 *
+	 * @return The ids, lowest first
+	 */
+	public int[] toArray() {
+		int[] ids = new int[size()];
+		int n = 0;
+		for (int id = next(0); id >= 0; id = next(id + 1))
+			ids[n++] = id;
+		return ids;
+	}
+
+	/**
+	 * Check whether another object is a set of the same states
+	 *
+	 * @param o
+	 *            The other object
+	 * @return Whether they are equal
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof StateSet))
+			return false;
+		StateSet other = (StateSet) o;
+		return (offset == other.offset || words.length == 0) && Arrays.equals(words, other.words);
+	}
+
+	/**
+	 * Get the hash code
+	 *
+	 * @return The hash code
+	 */
+	@Override
+	public int hashCode() {
+		return words.length == 0 ? 0 : 31 * offset + Arrays.hashCode(words);
+	}
+
+	/**
+	 * Show the numbers of the states, separated by commas
+	 *
+	 * @return The string
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		for (int id = next(0); id >= 0; id = next(id + 1)) {
+			if (out.length() > 0)
+				out.append(", ");
+			out.append(id + 1);
+		}
+		return out.toString();
+	}
+}
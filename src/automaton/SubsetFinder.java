@@ -0,0 +1,105 @@
+package automaton;
+
+import java.util.Arrays;
+
+/**
+ * Class finding the sets of NFA states of the subset construction, with their
+ * epsilon closures, one move at a time, for building DFA states as a word
+ * needs them. DFABuilder builds every state at once on the object graph of an
+ * automaton; this works on the arrays of a compact NFA instead, so that a
+ * state costs only the NFA states it reaches. The arrays used are kept
+ * between sets, so a finder must only be used by one thread at a time.
+ *
+ * @author agent
+ *
+ */
+final class SubsetFinder {
+
+	/** The NFA. */
+	private final CompactAutomaton nfa;
+
+	/** The NFA states already found by the closure being built. */
+	private final int[] seen;
+	private int generation;
+
+	/** The NFA states waiting to have their epsilon edges followed. */
+	private final int[] stack;
+
+	/** The NFA states found by the closure being built. */
+	private final int[] reached;
+
+	/**
+	 * Create a new instance
+	 *
+	 * @param nfa
+	 *            The NFA
+	 */
+	SubsetFinder(CompactAutomaton nfa) {
+		this.nfa = nfa;
+		seen = new int[nfa.getNumberOfStates()];
+		stack = new int[nfa.getNumberOfStates()];
+		reached = new int[nfa.getNumberOfStates()];
+	}
+
+	/**
+	 * Find the closure of the start state
+	 *
+	 * @return The NFA states, in order of their ids
+	 */
+	int[] start() {
+		generation++;
+		seen[0] = generation;
+		stack[0] = 0;
+		return close(1);
+	}
+
+	/**
+	 * Find the NFA states reached from a set by reading a character, with
+	 * their closure
+	 *
+	 * @param set
+	 *            The NFA states
+	 * @param c
+	 *            The character
+	 * @return The NFA states reached, in order of their ids
+	 */
+	int[] move(int[] set, char c) {
+		generation++;
+		int size = 0;
+		for (int s : set)
+			for (int i = nfa.getFirstEdge(s, c); i < nfa.getFirstEdge(s + 1) && nfa.getInput(i) == c; i++) {
+				int t = nfa.getTarget(i);
+				if (seen[t] != generation) {
+					seen[t] = generation;
+					stack[size++] = t;
+				}
+			}
+		return close(size);
+	}
+
+	/**
+	 * Follow the epsilon edges from the NFA states on the stack, which are
+	 * marked as found
+	 *
+	 * @param size
+	 *            The number of states on the stack
+	 * @return The states found, in order of their ids
+	 */
+	private int[] close(int size) {
+		int found = 0;
+		while (size > 0) {
+			int s = stack[--size];
+			reached[found++] = s;
+			for (int i = nfa.getFirstEpsilonEdge(s); i < nfa.getFirstEpsilonEdge(s + 1); i++) {
+				int t = nfa.getEpsilonTarget(i);
+				if (seen[t] != generation) {
+					seen[t] = generation;
+					stack[size++] = t;
+				}
+			}
+		}
+		int[] result = Arrays.copyOf(reached, found);
+		Arrays.sort(result);
+		return result;
+	}
+}
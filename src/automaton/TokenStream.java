@@ -0,0 +1,274 @@
+package automaton;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class reading the tokens of a stream of characters one at a time with a
+ * lexer. The DFA of the lexer is followed from the start of a token until it
+ * has no edge, remembering where it was last accepting, and the token ends
+ * there; the characters read after it are read again as the start of the next
+ * token. Only the characters from the start of the current token are kept, so
+ * the buffer only grows for a token longer than it.
+ *
+ * A stream keeps its place in the characters, so it must only be used by one
+ * thread at a time.
+ *
+ * @author agent
+ *
+ */
+public final class TokenStream implements Closeable {
+
+	/** The rule given once there are no more tokens. */
+	public static final int END = -1;
+
+	/** The rule given to a character which does not start any token. */
+	public static final int ERROR = -2;
+
+	/** The number of characters kept at first. */
+	private static final int CHARACTERS = 1 << 13;
+
+	/** The number of bytes of a file mapped at a time. */
+	private static final int WINDOW = 1 << 26;
+
+	/** The lexer. */
+	private final Lexer lexer;
+
+	/** The characters read, if they come from a reader, or null. */
+	private final Reader reader;
+
+	/** The file, if it is mapped, or null. */
+	private final FileChannel channel;
+
+	/** The part of the file mapped, and the offset where it starts. */
+	private ByteBuffer bytes;
+	private long mapped;
+
+	/** The decoder of the bytes of the file. */
+	private CharsetDecoder decoder;
+
+	/** The characters kept, from the start of the current token. */
+	private char[] buffer;
+
+	/** The number of characters kept. */
+	private int limit;
+
+	/** The number of characters read before the ones kept. */
+	private long offset;
+
+	/** The index of the start of the current token, and the one after it. */
+	private int start;
+	private int end;
+
+	/** The rule of the current token. */
+	private int rule;
+
+	/** Whether all the characters have been read. */
+	private boolean ended;
+
+	/**
+	 * Create a stream of the tokens read by a reader
+	 *
+	 * @param lexer
+	 *            The lexer
+	 * @param reader
+	 *            The characters
+	 */
+	TokenStream(Lexer lexer, Reader reader) {
+		this.lexer = lexer;
+		this.reader = reader;
+		this.channel = null;
+		this.buffer = new char[CHARACTERS];
+	}
+
+	/**
+	 * Create a stream of the tokens of a file
+	 *
+	 * @param lexer
+	 *            The lexer
+	 * @param channel
+	 *            The file, in UTF-8
+	 * @throws IOException
+	 *             If the file cannot be mapped
+	 */
+	TokenStream(Lexer lexer, FileChannel channel) throws IOException {
+		this.lexer = lexer;
+		this.reader = null;
+		this.channel = channel;
+		this.buffer = new char[CHARACTERS];
+		this.decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.mapped = 0;
+		try {
+			this.bytes = map();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Read the next token
+	 *
+	 * @return The rule of the token, END if there are no more, or ERROR for a
+	 *         character which does not start any token
+	 * @throws IOException
+	 *             If the characters cannot be read
+	 */
+	public int next() throws IOException {
+		start = end;
+		int row = 0;
+		int length = 0;
+		int matched = END;
+		int matchedLength = 0;
+		while (true) {
+			if (start + length == limit && !fill())
+				break;
+			row = lexer.step(row, buffer[start + length]);
+			if (row < 0)
+				break;
+			length++;
+			int r = lexer.getRule(row);
+			if (r >= 0) {
+				matched = r;
+				matchedLength = length;
+			}
+		}
+
+		if (matched != END) {
+			rule = matched;
+			end = start + matchedLength;
+		} else if (start < limit) {
+			rule = ERROR;
+			end = start + 1;
+		} else {
+			rule = END;
+			end = start;
+		}
+		return rule;
+	}
+
+	/**
+	 * Read more characters after the ones kept, dropping the ones before the
+	 * current token and growing the buffer if it is full
+	 *
+	 * @return Whether any were read
+	 * @throws IOException
+	 *             If the characters cannot be read
+	 */
+	private boolean fill() throws IOException {
+		if (ended)
+			return false;
+		if (start > 0) {
+			System.arraycopy(buffer, start, buffer, 0, limit - start);
+			offset += start;
+			limit -= start;
+			end -= start;
+			start = 0;
+		}
+		// a character outside the basic plane is decoded into two at once
+		if (buffer.length - limit < 2)
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		int count = reader != null ? reader.read(buffer, limit, buffer.length - limit) : decode();
+		if (count <= 0) {
+			ended = true;
+			return false;
+		}
+		limit += count;
+		return true;
+	}
+
+	/**
+	 * Decode characters of the file into the buffer, after the ones kept
+	 *
+	 * @return The number of characters decoded, or -1 at the end of the file
+	 * @throws IOException
+	 *             If the file cannot be mapped
+	 */
+	private int decode() throws IOException {
+		CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+		while (true) {
+			boolean last = mapped + bytes.limit() == channel.size();
+			decoder.decode(bytes, out, last);
+			if (out.position() > limit)
+				return out.position() - limit;
+			if (last) {
+				decoder.flush(out);
+				return out.position() > limit ? out.position() - limit : -1;
+			}
+			// the rest of the window is part of a character, so map from it
+			mapped += bytes.position();
+			bytes = map();
+		}
+	}
+
+	/**
+	 * Map the bytes of the file from the offset reached
+	 *
+	 * @return The bytes
+	 * @throws IOException
+	 *             If the file cannot be mapped
+	 */
+	private ByteBuffer map() throws IOException {
+		long size = Math.min(WINDOW, channel.size() - mapped);
+		return channel.map(FileChannel.MapMode.READ_ONLY, mapped, size);
+	}
+
+	/**
+	 * Get the rule of the current token
+	 *
+	 * @return The index of the rule, END or ERROR
+	 */
+	public int getRule() {
+		return rule;
+	}
+
+	/**
+	 * Get the number of characters before the current token
+	 *
+	 * @return The number of characters
+	 */
+	public long getStart() {
+		return offset + start;
+	}
+
+	/**
+	 * Get the number of characters in the current token
+	 *
+	 * @return The number of characters
+	 */
+	public int getLength() {
+		return end - start;
+	}
+
+	/**
+	 * Get the characters of the current token
+	 *
+	 * @return The characters
+	 */
+	public String getText() {
+		return new String(buffer, start, end - start);
+	}
+
+	/**
+	 * Close the characters the tokens are read from
+	 *
+	 * @throws IOException
+	 *             If they cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (reader != null)
+			reader.close();
+		else
+			channel.close();
+	}
+}
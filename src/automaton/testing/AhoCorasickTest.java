@@ -0,0 +1,175 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AhoCorasick;
+import automaton.AutomatonCompiler;
+import automaton.BatchResult;
+import automaton.BatchTester;
+import automaton.CompactAutomaton;
+import automaton.DFAMatcher;
+import automaton.Matcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that regular expressions standing for few words are
+ * found, and checked with the Aho-Corasick automaton of the words
+ *
+ * @author agent
+ *
+ */
+public class AhoCorasickTest {
+
+	/**
+	 * Get the sorted words a regular expression stands for
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return The words, or null if there are too many
+	 */
+	private static List<String> literals(String regex) {
+		List<String> words = AhoCorasick.getLiterals(RegexParser.parse(regex.toCharArray()));
+		if (words != null)
+			Collections.sort(words);
+		return words;
+	}
+
+	/**
+	 * Get the number of characters read before each match found by a search
+	 * DFA
+	 *
+	 * @param search
+	 *            The search DFA
+	 * @param text
+	 *            The text
+	 * @return The ends of the matches
+	 */
+	private static List<Integer> ends(CompactAutomaton search, String text) {
+		DFAMatcher dfa = new DFAMatcher(search, true);
+		ArrayList<Integer> ends = new ArrayList<Integer>();
+		int row = 0;
+		for (int i = 0; i < text.length(); i++) {
+			row = dfa.step(row, text.charAt(i));
+			if (dfa.isAccepting(row))
+				ends.add(i + 1);
+		}
+		return ends;
+	}
+
+	/**
+	 * Test finding the words of a few expressions
+	 */
+	@Test
+	public void testLiterals() {
+		assertEquals(literals("cat|dog|bird").toString(), "[bird, cat, dog]");
+		assertEquals(literals("(a|b)(c|d)").toString(), "[ac, ad, bc, bd]");
+		assertEquals(literals("ab(c|())").toString(), "[ab, abc]");
+		assertEquals(literals("a(b|b)a").toString(), "[aba]");
+		assertEquals(literals("a*"), null);
+		assertEquals(literals("cat|dog*"), null);
+
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < 10; i++)
+			regex.append("(a|b)");
+		assertEquals(literals(regex.toString()).size(), AhoCorasick.MAX_LITERALS);
+		assertEquals(literals(regex + "(a|b)"), null);
+	}
+
+	/**
+	 * Test checking words against a set of words
+	 */
+	@Test
+	public void testMatches() {
+		AhoCorasick matcher = new AhoCorasick(literals("cat|dog|bird|ca"));
+		assertEquals(matcher.matches("cat"), true);
+		assertEquals(matcher.matches("ca"), true);
+		assertEquals(matcher.matches("c"), false);
+		assertEquals(matcher.matches("cats"), false);
+		assertEquals(matcher.matches("atcat"), false);
+		assertEquals(matcher.matches(""), false);
+		assertEquals(matcher.matches("xbirdx".toCharArray(), 1, 5), true);
+		assertEquals(matcher.getNumberOfStates(), 11);
+	}
+
+	/**
+	 * Test finding overlapping words in a text
+	 */
+	@Test
+	public void testSearch() {
+		CompactAutomaton search = AutomatonCompiler.compileSearch("he|she|his|hers".toCharArray());
+		assertEquals(ends(search, "ushers").toString(), "[4, 6]");
+		assertEquals(ends(search, "hishe!hers").toString(), "[3, 5, 8, 10]");
+	}
+
+	/**
+	 * Test that the matcher used for testing files of words is the
+	 * Aho-Corasick automaton for an expression standing for few words
+	 *
+	 * @throws IOException
+	 *             If the words cannot be read
+	 */
+	@Test
+	public void testBatch() throws IOException {
+		Matcher matcher = AutomatonCompiler.compileSmall("cat|dog|bird".toCharArray());
+		assertTrue(matcher instanceof AhoCorasick);
+		StringWriter out = new StringWriter();
+		BatchResult result = new BatchTester(matcher).test(new StringReader("cat\ncats\ndog\n\nbir\nbird"), out);
+		assertEquals(out.toString(),
+				"cat\taccepted\ncats\trejected\ndog\taccepted\n\trejected\nbir\trejected\nbird\taccepted\n");
+		assertEquals(result.getAccepted(), 3L);
+		assertEquals(result.getRejected(), 3L);
+		assertEquals(AutomatonCompiler.compileSearch("cat|dog|bird".toCharArray()).getNumberOfStates(),
+				((AhoCorasick) matcher).getNumberOfStates());
+	}
+
+	/**
+	 * Test random expressions standing for few words against the minimal
+	 * DFAs built by determinising their NFAs
+	 */
+	@Test
+	public void testAgainstDFA() {
+		Random random = new Random(25);
+		String alphabet = "abc(()|";
+		int tested = 0;
+		while (tested < 200) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(16);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			char[] r = regex.toString().toCharArray();
+			if (!RegexParser.isWellFormed(r))
+				continue;
+			List<String> words = AhoCorasick.getLiterals(RegexParser.parse(r));
+			if (words == null)
+				continue;
+			tested++;
+
+			AhoCorasick matcher = new AhoCorasick(words);
+			DFAMatcher dfa = AutomatonCompiler.compileMatcher(r);
+			CompactAutomaton search = new CompactAutomaton(AutomatonCompiler.minimise(
+					AutomatonCompiler.determinise(AutomatonCompiler.unanchored(AutomatonCompiler.compileNFA(r)))));
+			for (int n = 0; n < 20; n++) {
+				StringBuilder word = new StringBuilder();
+				int size = random.nextInt(6);
+				for (int i = 0; i < size; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				assertEquals(matcher.matches(word), dfa.matches(word));
+			}
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 100; i++)
+				text.append("abcd".charAt(random.nextInt(4)));
+			assertEquals(ends(matcher.toSearchAutomaton(), text.toString()), ends(search, text.toString()));
+		}
+	}
+}
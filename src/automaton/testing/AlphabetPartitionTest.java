@@ -0,0 +1,58 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import automaton.AlphabetPartition;
+import automaton.AutomatonCompiler;
+import automaton.CompactAutomaton;
+
+/**
+ * Class for testing the classes of characters every state treats the same way
+ *
+ * @author agent
+ *
+ */
+public class AlphabetPartitionTest {
+
+	/**
+	 * Test that characters are only in the same class if every state of the
+	 * minimal DFA treats them the same way
+	 */
+	@Test
+	public void testClasses() {
+		AlphabetPartition partition = partition("(a|b|é)*c(a|d)");
+		assertEquals(partition.getNumberOfClasses(), 5);
+		assertEquals(partition.classOf('b'), partition.classOf('é'));
+		assertTrue(partition.classOf('a') != partition.classOf('b'));
+		assertTrue(partition.classOf('c') != partition.classOf('d'));
+		assertEquals(partition.classOf('x'), 0);
+		assertEquals(partition.classOf('中'), 0);
+		assertTrue(partition.classOf('a') > 0);
+	}
+
+	/**
+	 * Test that an alphabet used the same way everywhere is one class
+	 */
+	@Test
+	public void testOneClass() {
+		AlphabetPartition partition = partition("(a|b|c|d)*");
+		assertEquals(partition.getNumberOfClasses(), 2);
+		assertEquals(partition.classOf('a'), 1);
+		assertEquals(partition.classOf('d'), 1);
+		assertEquals(partition("").getNumberOfClasses(), 1);
+	}
+
+	/**
+	 * Split the alphabet of the minimal DFA for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return The classes
+	 */
+	private static AlphabetPartition partition(String regex) {
+		return new AlphabetPartition(new CompactAutomaton(AutomatonCompiler.compileMinimal(regex.toCharArray())));
+	}
+}
@@ -0,0 +1,152 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.Animation;
+import automaton.AnimationDFA;
+import automaton.AnimationNFA;
+import automaton.AnimationTestString;
+import automaton.thompsons.RegexParser;
+import gui.canvas.VisualEdge;
+import gui.canvas.VisualRepresentation;
+import gui.canvas.VisualState;
+
+/**
+ * Class for testing drawing the frames of the animations when they are asked
+ * for
+ *
+ * @author agent
+ *
+ */
+public class AnimationTest {
+
+	/**
+	 * Test that every frame is drawn the same, whichever order they are asked
+	 * for in
+	 */
+	@Test
+	public void testDrawing() {
+		Animation nfa = new AnimationNFA(RegexParser.parse("(ab|c*)*a(b|c)".toCharArray()));
+		Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+		Animation test = new AnimationTestString(dfa.getFinalDFAwithoutNFA(), "cab");
+		for (Animation animation : new Animation[] { nfa, dfa, test }) {
+			ArrayList<VisualRepresentation> all = animation.getAllFrames();
+			int count = animation.getFrameCount();
+			assertEquals(all.size(), count);
+
+			for (int i = count - 1; i >= 0; i--)
+				assertEquals(describe(animation.getFrame(i)), describe(all.get(i)));
+			Random random = new Random(1);
+			for (int i = 0; i < count; i++) {
+				int index = random.nextInt(count);
+				assertEquals(describe(animation.getFrame(index)), describe(all.get(index)));
+			}
+		}
+	}
+
+	/**
+	 * Test that asking for the same frame again gives the same object, until
+	 * many other frames have been drawn
+	 */
+	@Test
+	public void testSameFrame() {
+		Animation nfa = new AnimationNFA(RegexParser.parse("(ab|c*)*a(b|c)".toCharArray()));
+		VisualRepresentation v = nfa.getFrame(5);
+		v.getStates()[0].setCoords(7, 7);
+		assertSame(nfa.getFrame(5), v);
+		assertEquals(nfa.getFrame(5).getStates()[0].getX(), 7);
+
+		for (int i = 10; i < nfa.getFrameCount(); i++)
+			nfa.getFrame(i);
+		assertNotSame(nfa.getFrame(5), v);
+		assertEquals(nfa.getFrame(5).getStates()[0].getX(), 0);
+	}
+
+	/**
+	 * Test that the last frames show the finished automata
+	 */
+	@Test
+	public void testLastFrames() {
+		Animation nfa = new AnimationNFA(RegexParser.parse("a*b".toCharArray()));
+		Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+		assertEquals(nfa.getLastFrame().getStates().length, nfa.getAutomaton().getNumberOfStates());
+		assertEquals(dfa.getLastFrame().getText(), "Final graph");
+		assertEquals(dfa.getLastFrame().getStates().length,
+				nfa.getAutomaton().getNumberOfStates() + dfa.getAutomaton().getNumberOfStates());
+		assertEquals(dfa.getFinalDFAwithoutNFA().getStates().length, dfa.getAutomaton().getNumberOfStates());
+	}
+
+	/**
+	 * Test the frames of testing a long word, many of which are drawn from
+	 * the copies of the highlights kept along the way: each frame makes at
+	 * most one highlight more than the one before, and the last frame shows
+	 * every highlight
+	 */
+	@Test
+	public void testLongWord() {
+		Animation nfa = new AnimationNFA(RegexParser.parse("(ab)*".toCharArray()));
+		Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i < 300; i++)
+			word.append("ab");
+		Animation test = new AnimationTestString(dfa.getFinalDFAwithoutNFA(), word.toString());
+		assertEquals(test.getFrameCount() > 1000, true);
+
+		String[] before = highlights(test.getFrame(0));
+		for (int i = 1; i < test.getFrameCount(); i++) {
+			String[] now = highlights(test.getFrame(i));
+			int changed = 0;
+			for (int j = 0; j < now.length; j++)
+				if (!now[j].equals(before[j]))
+					changed++;
+			assertEquals(changed <= 1, true);
+			before = now;
+		}
+		assertEquals(String.join(",", before), String.join(",", highlights(test.getFinalDFAwithoutNFA())));
+	}
+
+	/**
+	 * Get the highlights of the edges and states of a frame
+	 *
+	 * @param v
+	 *            The frame
+	 * @return The highlight of each edge, then of each state
+	 */
+	private static String[] highlights(VisualRepresentation v) {
+		ArrayList<String> out = new ArrayList<String>();
+		for (VisualEdge e : v.getEdges())
+			out.add(String.valueOf(e.getHighlight()));
+		for (VisualState s : v.getStates())
+			out.add(String.valueOf(s.getHL()));
+		return out.toArray(new String[0]);
+	}
+
+	/**
+	 * Describe everything shown in a frame
+	 *
+	 * @param v
+	 *            The frame
+	 * @return The description
+	 */
+	private static String describe(VisualRepresentation v) {
+		StringBuilder out = new StringBuilder(v.getTitle() + ": " + v.getText() + "\n");
+		for (VisualState s : v.getStates())
+			out.append(s.getId()).append(s.isAccepting() ? "!" : "").append(s.isInitialState() ? ">" : "")
+					.append(" (").append(s.getX()).append(", ").append(s.getY()).append(") ").append(s.getLabel())
+					.append(' ').append(s.getHL()).append('\n');
+		for (VisualEdge e : v.getEdges())
+			out.append(e.getFrom()).append(" -").append(e.getInput()).append("-> ").append(e.getTo()).append(' ')
+					.append(e.getHighlight()).append('\n');
+		out.append(v.getLabels()).append(v.getLabelListVisible()).append('\n');
+		if (v.getProgText() != null)
+			out.append(String.join("|", v.getProgText()));
+		return out.toString();
+	}
+}
@@ -0,0 +1,90 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import automaton.Animation;
+import automaton.AnimationDFA;
+import automaton.AnimationNFA;
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.Edge;
+import automaton.State;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing building automata without frames
+ *
+ * @author agent
+ *
+ */
+public class AutomatonCompilerTest {
+
+	private static final String[] REGEXES = { "a", "ab", "a*", "a|b", "ab*|c*", "a*b*|cd*|ef*g", "(ab|b*)*",
+			"|(|b)|c*", "((a|b)|(c|d))*", "(ab|cd)*x(ab|cd)*y", "a(b(c|d)*e)*f" };
+
+	/**
+	 * Test that the automata are the same as the ones built by the animations
+	 */
+	@Test
+	public void testSameAutomata() {
+		for (String regex : REGEXES) {
+			Animation nfa = new AnimationNFA(RegexParser.parse(regex.toCharArray()));
+			Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+
+			Automaton compiledNfa = AutomatonCompiler.compileNFA(regex.toCharArray());
+			assertEquals(describe(compiledNfa), describe(nfa.getAutomaton()));
+			assertEquals(describe(AutomatonCompiler.determinise(compiledNfa)), describe(dfa.getAutomaton()));
+		}
+	}
+
+	/**
+	 * Test that building without frames is faster
+	 */
+	@Test
+	public void testSpeed() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < 60; i++)
+			regex.append(i % 2 == 0 ? "(ab)" : "c*");
+		char[] chars = regex.toString().toCharArray();
+
+		// warm up so that we measure compiled code
+		for (int i = 0; i < 5; i++)
+			AutomatonCompiler.compile(chars);
+
+		long animated = Long.MAX_VALUE;
+		long compiled = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long start = System.nanoTime();
+			Animation nfa = new AnimationNFA(RegexParser.parse(chars));
+			new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+			animated = Math.min(animated, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			AutomatonCompiler.compile(chars);
+			compiled = Math.min(compiled, System.nanoTime() - start);
+		}
+		assertTrue("animated " + animated + "ns, compiled " + compiled + "ns", compiled < animated);
+	}
+
+	/**
+	 * Describe the states and edges of an automaton, leaving out its
+	 * coordinates
+	 *
+	 * @param a
+	 *            The automaton
+	 * @return The description
+	 */
+	private static String describe(Automaton a) {
+		StringBuilder out = new StringBuilder();
+		for (State s : a.getStates()) {
+			out.append(s.getId()).append(s.isAccepting() ? "!" : "").append(':');
+			for (Edge e : s.getEdges())
+				out.append(' ').append(e.getName()).append(e.getState().getId());
+			out.append('\n');
+		}
+		return out.toString();
+	}
+}
@@ -132,7 +132,7 @@ public class AutomatonTest {
 		an = new AnimationNFA(c);
 		an2 = new AnimationDFA(an.getAutomaton(), an.getLastFrame());
 		assertEquals(an.getFrameCount(), 36);
-		assertEquals(an2.getFrameCount(), 24);
+		assertEquals(an2.getFrameCount(), 22);
 	}
 	
 	/**
@@ -188,7 +188,7 @@ public class AutomatonTest {
 		an = new AnimationNFA(c);
 		an2 = new AnimationDFA(an.getAutomaton(), an.getLastFrame());
 		assertEquals(an.getAutomaton().getNumberOfStates(), 22);
-		assertEquals(an2.getAutomaton().getNumberOfStates(),7);
+		assertEquals(an2.getAutomaton().getNumberOfStates(),6);
 	}
 	
 	/**
@@ -1,10 +1,23 @@
 package automaton.testing;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
+import java.util.function.LongConsumer;
 
 import automaton.Animation;
 import automaton.AnimationDFA;
 import automaton.AnimationNFA;
+import automaton.AutomatonCompiler;
+import automaton.BatchResult;
+import automaton.BatchTester;
+import automaton.FileScanner;
 import automaton.thompsons.ConBlock;
 import automaton.thompsons.RegexParser;
 
@@ -16,7 +29,27 @@ import automaton.thompsons.RegexParser;
  *
  */
 public class AutomatonTryOut {
-	public static void main(String args[]) {
+	/**
+	 * Show the animations for a regular expression typed in, or test a file of
+	 * words against one given as arguments: the regular expression, the file
+	 * and optionally a file to write the results to. Given -find, a regular
+	 * expression and a file, print the byte offset after every match in the
+	 * file instead.
+	 *
+	 * @param args
+	 *            The arguments
+	 * @throws IOException
+	 *             If the files cannot be read or written
+	 */
+	public static void main(String args[]) throws IOException {
+		if (args.length == 3 && args[0].equals("-find")) {
+			findInFile(args[1], args[2]);
+			return;
+		}
+		if (args.length >= 2) {
+			testFile(args);
+			return;
+		}
 		
 		Scanner in = new Scanner(System.in);
 		System.out.println("Type in the regular expression:");
@@ -38,4 +71,56 @@ public class AutomatonTryOut {
 		
 		in.close();
 	}
+
+	/**
+	 * Test every line of a file against a regular expression
+	 *
+	 * @param args
+	 *            The regular expression, the file and optionally a file to
+	 *            write the results to
+	 * @throws IOException
+	 *             If the files cannot be read or written
+	 */
+	private static void testFile(String args[]) throws IOException {
+		if (!RegexParser.isWellFormed(args[0].toCharArray())) {
+			System.out.println("It's not well formed :(");
+			return;
+		}
+		BatchTester tester = new BatchTester(AutomatonCompiler.compileSmall(args[0].toCharArray()));
+		try (Reader in = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+				Writer out = args.length > 2 ? Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)
+						: null) {
+			BatchResult result = tester.test(in, out);
+			System.out.println(result);
+		}
+	}
+
+	/**
+	 * Print the byte offset after every match of a regular expression in a
+	 * file, then the number of matches
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @param file
+	 *            The file, in UTF-8
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	private static void findInFile(String regex, String file) throws IOException {
+		if (!RegexParser.isWellFormed(regex.toCharArray())) {
+			System.out.println("It's not well formed :(");
+			return;
+		}
+		FileScanner scanner = new FileScanner(AutomatonCompiler.compileSearch(regex.toCharArray()));
+		final PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+		long start = System.nanoTime();
+		long count = scanner.scan(Paths.get(file), new LongConsumer() {
+			@Override
+			public void accept(long offset) {
+				out.println(offset);
+			}
+		});
+		out.println(count + " matches in " + (System.nanoTime() - start) / 1000000 + " ms");
+		out.flush();
+	}
 }
@@ -0,0 +1,64 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.BatchResult;
+import automaton.BatchTester;
+import automaton.Matcher;
+
+/**
+ * Class for testing that files of words are tested in parallel
+ *
+ * @author agent
+ *
+ */
+public class BatchTesterTest {
+
+	/**
+	 * Test the results written for a few words, the empty one included
+	 */
+	@Test
+	public void testResults() throws IOException {
+		BatchTester tester = new BatchTester(AutomatonCompiler.compileMatcher("a*b".toCharArray()));
+		StringWriter out = new StringWriter();
+		BatchResult result = tester.test(new StringReader("ab\naa\n\nb\r\naaab"), out);
+		assertEquals(out.toString(), "ab\taccepted\naa\trejected\n\trejected\nb\taccepted\naaab\taccepted\n");
+		assertEquals(result.getWords(), 5L);
+		assertEquals(result.getAccepted(), 3L);
+		assertEquals(result.getRejected(), 2L);
+	}
+
+	/**
+	 * Test more words than are read at a time against testing them one by one
+	 */
+	@Test
+	public void testManyWords() throws IOException {
+		Matcher matcher = AutomatonCompiler.compileMatcher("(a|b)*a(a|b)(a|b)".toCharArray());
+		Random random = new Random(5);
+		StringBuilder text = new StringBuilder();
+		long accepted = 0;
+		int words = 200000;
+		for (int n = 0; n < words; n++) {
+			StringBuilder word = new StringBuilder();
+			int length = random.nextInt(8);
+			for (int i = 0; i < length; i++)
+				word.append(random.nextBoolean() ? 'a' : 'b');
+			if (matcher.matches(word))
+				accepted++;
+			text.append(word).append('\n');
+		}
+		BatchResult result = new BatchTester(matcher, new ForkJoinPool(4)).test(new StringReader(text.toString()),
+				null);
+		assertEquals(result.getWords(), (long) words);
+		assertEquals(result.getAccepted(), accepted);
+	}
+}
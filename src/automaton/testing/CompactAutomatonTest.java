@@ -0,0 +1,111 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.CompactAutomaton;
+import automaton.Edge;
+import automaton.State;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing automata compiled into flat arrays
+ *
+ * @author agent
+ *
+ */
+public class CompactAutomatonTest {
+
+	/**
+	 * Test that an NFA keeps its states and edges, epsilon edges included,
+	 * when it is compiled and turned back into an automaton
+	 */
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(4);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 100) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			Automaton nfa = AutomatonCompiler.compileNFA(regex.toString().toCharArray());
+			CompactAutomaton compact = new CompactAutomaton(nfa);
+			Automaton back = compact.toAutomaton();
+			assertEquals(back.getNumberOfStates(), nfa.getNumberOfStates());
+			assertEquals(back.getAlphabet(), nfa.getAlphabet());
+			for (int s = 0; s < nfa.getNumberOfStates(); s++) {
+				assertEquals(back.getStates()[s].isAccepting(), nfa.getStates()[s].isAccepting());
+				assertEquals(edges(back.getStates()[s]), edges(nfa.getStates()[s]));
+			}
+		}
+	}
+
+	/**
+	 * Test following the edges of a compiled DFA
+	 */
+	@Test
+	public void testStep() {
+		CompactAutomaton dfa = new CompactAutomaton(AutomatonCompiler.compile("(ab|c)d*".toCharArray()));
+		assertEquals(new String(dfa.getAlphabet()), "abcd");
+		assertEquals(dfa.getFirstEpsilonEdge(dfa.getNumberOfStates()), 0);
+		int s = dfa.step(0, 'a');
+		s = dfa.step(s, 'b');
+		assertEquals(dfa.isAccepting(s), true);
+		assertEquals(dfa.isAccepting(dfa.step(s, 'd')), true);
+		assertEquals(dfa.step(s, 'a'), -1);
+		assertEquals(dfa.step(0, 'd'), -1);
+	}
+
+	/**
+	 * Test finding the edges of a state reading a character, which are sorted
+	 * by it
+	 */
+	@Test
+	public void testSortedEdges() {
+		Automaton dfa = AutomatonCompiler.compile("(d|c|b|a|e)(a|b)".toCharArray());
+		CompactAutomaton compact = new CompactAutomaton(dfa);
+		assertEquals(compact.getFirstEdge(1) - compact.getFirstEdge(0), 5);
+		for (int i = compact.getFirstEdge(0); i + 1 < compact.getFirstEdge(1); i++)
+			assertTrue(compact.getInput(i) < compact.getInput(i + 1));
+		int edge = compact.getFirstEdge(0, 'c');
+		assertEquals(compact.getInput(edge), 'c');
+		assertEquals(compact.getFirstEdge(0, 'f'), compact.getFirstEdge(1));
+		assertEquals(compact.getInput(compact.getFirstEdge(0, (char) 0)), 'a');
+	}
+
+	/**
+	 * List the edges of a state, epsilon edges first and the others by the
+	 * character they read
+	 *
+	 * @param s
+	 *            The state
+	 * @return The edges, as the character read and the state gone to
+	 */
+	private static ArrayList<String> edges(State s) {
+		ArrayList<String> epsilon = new ArrayList<String>();
+		ArrayList<String> other = new ArrayList<String>();
+		for (Edge e : s.getEdges()) {
+			if (e.getInput().isEpsilon())
+				epsilon.add("-> " + e.getState().getId());
+			else
+				other.add(e.getInput().getChar() + " -> " + e.getState().getId());
+		}
+		Collections.sort(other);
+		epsilon.addAll(other);
+		return epsilon;
+	}
+}
@@ -10,6 +10,7 @@ import org.junit.Test;
 
 import automaton.thompsons.BlockType;
 import automaton.thompsons.ConBlock;
+import automaton.thompsons.ConBlockFactory;
 import automaton.thompsons.RegexParser;
 
 /**
@@ -125,4 +126,62 @@ public class ConBlockTest {
 		c = RegexParser.parse(regex);
 		assertEquals(c.toString(), "((((a)*)((b)*))|((c((d)*))|(e(((f)*)g))))");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Test the number of x and y coordinates needed to display the automaton
+	 */
+	@Test
+	public void testCoordinates() {
+		c = RegexParser.parse("a".toCharArray());
+		assertEquals(c.getXs(), 0);
+		assertEquals(c.getYs(), 0);
+
+		c = RegexParser.parse("(a|b)*c".toCharArray());
+		assertEquals(c.getXs(), 5);
+		assertEquals(c.getYs(), 1);
+
+		c = RegexParser.parse("(a|b)|c".toCharArray());
+		assertEquals(c.getXs(), 4);
+		assertEquals(c.getYs(), 3);
+
+		c = RegexParser.parse("((a|b)|c)d|e".toCharArray());
+		assertEquals(c.getXs(), 7);
+		assertEquals(c.getYs(), 7);
+
+		c = RegexParser.parse("a*b*|cd*|ef*g".toCharArray());
+		assertEquals(c.getXs(), 8);
+		assertEquals(c.getYs(), 1);
+	}
+
+	/**
+	 * Test that the string form is the same whichever ConBlock is written out
+	 * first
+	 */
+	@Test
+	public void testToStringOrder() {
+		c = RegexParser.parse("a*b*|cd*|ef*g".toCharArray());
+		ConBlock second = c.getInsides()[1];
+		assertEquals(second.getInsides()[1].toString(), "(e(((f)*)g))");
+		assertEquals(second.toString(), "((c((d)*))|(e(((f)*)g)))");
+		assertEquals(c.toString(), "((((a)*)((b)*))|((c((d)*))|(e(((f)*)g))))");
+		assertSame(c.toString(), c.toString());
+	}
+
+	/**
+	 * Test that equal subexpressions are parsed into the same ConBlock
+	 */
+	@Test
+	public void testSharing() {
+		ConBlockFactory factory = new ConBlockFactory();
+		c = RegexParser.parse("(ab|cd)*x(ab|cd)*y".toCharArray(), factory);
+		ConBlock first = c.getInsides()[0];
+		ConBlock second = c.getInsides()[1].getInsides()[1].getInsides()[0];
+		assertEquals(first.toString(), "((((ab)|(cd)))*)");
+		assertSame(first, second);
+		// a, b, c, d, x, y, ab, cd, ab|cd, its star and 3 concatenations
+		assertEquals(factory.size(), 13);
+
+		assertSame(RegexParser.parse("a|b".toCharArray(), factory), factory.disj(factory.elem('a'), factory.elem('b')));
+		assertNotSame(RegexParser.parse("a|b".toCharArray(), factory), factory.disj(factory.elem('b'), factory.elem('a')));
+	}
+}
@@ -0,0 +1,103 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import automaton.Animation;
+import automaton.AnimationDFA;
+import automaton.AnimationNFA;
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.DFABuilder;
+import automaton.Edge;
+import automaton.State;
+import automaton.StateSet;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that the subset construction builds every closure once
+ *
+ * @author agent
+ *
+ */
+public class DFABuilderTest {
+
+	/**
+	 * Test the number of DFA states of regular expressions whose closures are
+	 * reached in more than one way
+	 */
+	@Test
+	public void testStateCounts() {
+		assertEquals(states("(a|b)*a(a|b)"), 5);
+		assertEquals(states("a*b*|cd*|ef*g"), 6);
+		assertEquals(states("(ab|b*)*"), 3);
+		assertEquals(states("(a|b)*c(a|b)*c(a|b)*c"), 10);
+		assertEquals(states("(ab|c)d*(ab|c)d*(ab|c)d*"), 13);
+	}
+
+	/**
+	 * Test that the number of DFA states grows with the regular expression
+	 * instead of with the number of ways through it
+	 */
+	@Test
+	public void testLinearGrowth() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+			regex.append("(ab|c)d*");
+		assertEquals(states(regex.toString()), 401);
+	}
+
+	/**
+	 * Test that every state has at most one edge for each character, and that
+	 * the DFA can still be laid out and animated
+	 */
+	@Test
+	public void testDeterministic() {
+		String regex = "(ab|c)d*(a|b)*c(ab|b*)*";
+		Automaton dfa = AutomatonCompiler.compile(regex.toCharArray());
+		for (State s : dfa.getStates()) {
+			HashSet<Character> moves = new HashSet<Character>();
+			for (Edge e : s.getEdges())
+				assertTrue(moves.add(e.getInput().getChar()));
+		}
+
+		Animation nfa = new AnimationNFA(RegexParser.parse(regex.toCharArray()));
+		Animation animation = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+		assertEquals(animation.getFinalDFAwithoutNFA().getStates().length, dfa.getNumberOfStates());
+	}
+
+	/**
+	 * Test that every DFA state accepts exactly when its closure holds an
+	 * accepting NFA state
+	 */
+	@Test
+	public void testClosures() {
+		Automaton nfa = AutomatonCompiler.compileNFA("(ab|c)d*(a|b)*c".toCharArray());
+		DFABuilder builder = new DFABuilder(null);
+		Automaton dfa = builder.build(nfa);
+		State[] states = nfa.getStates();
+		for (State s : dfa.getStates()) {
+			StateSet closure = builder.getClosure(s.getId());
+			boolean accepting = false;
+			for (int id = closure.next(0); id >= 0; id = closure.next(id + 1))
+				accepting |= states[id].isAccepting();
+			assertEquals(accepting, s.isAccepting());
+		}
+		assertEquals(builder.getClosure(0).contains(0), true);
+	}
+
+	/**
+	 * Count the DFA states for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return The number of states
+	 */
+	private static int states(String regex) {
+		return AutomatonCompiler.compile(regex.toCharArray()).getNumberOfStates();
+	}
+}
@@ -0,0 +1,77 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.CompactAutomaton;
+import automaton.DFAMatcher;
+import automaton.Matcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing the matcher checking words against a DFA table
+ *
+ * @author agent
+ *
+ */
+public class DFAMatcherTest {
+
+	/**
+	 * Test that the matcher accepts the same words as Java's regular
+	 * expressions
+	 */
+	@Test
+	public void testAgainstPattern() {
+		Random random = new Random(6);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 200) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			Matcher matcher = AutomatonCompiler.compileMatcher(regex.toString().toCharArray());
+			Pattern pattern = Pattern.compile(regex.toString());
+			for (int n = 0; n < 50; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(8);
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				assertEquals(matcher.matches(word), pattern.matcher(word).matches());
+			}
+		}
+	}
+
+	/**
+	 * Test words with characters outside the alphabet and parts of arrays
+	 */
+	@Test
+	public void testCharacters() {
+		DFAMatcher matcher = AutomatonCompiler.compileMatcher("(é|a)*中".toCharArray());
+		assertEquals(matcher.matches("aéa中"), true);
+		assertEquals(matcher.matches("中"), true);
+		assertEquals(matcher.matches("aè中"), false);
+		assertEquals(matcher.matches("a"), false);
+		char[] text = "xxaa中yy".toCharArray();
+		assertEquals(matcher.matches(text, 2, 5), true);
+		assertEquals(matcher.matches(text, 1, 5), false);
+		assertEquals(matcher.getNumberOfStates(), 2);
+	}
+
+	/**
+	 * Test that an automaton with epsilon edges is not taken
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotDeterministic() {
+		new DFAMatcher(new CompactAutomaton(AutomatonCompiler.compileNFA("a*".toCharArray())));
+	}
+}
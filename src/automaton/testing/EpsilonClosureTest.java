@@ -0,0 +1,115 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.Edge;
+import automaton.EpsilonClosure;
+import automaton.NewChar;
+import automaton.State;
+import automaton.StateSet;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that the epsilon closures are found in one pass
+ *
+ * @author agent
+ *
+ */
+public class EpsilonClosureTest {
+
+	/**
+	 * Test the closures against searching from every state on its own
+	 */
+	@Test
+	public void testAgainstSearch() {
+		Random random = new Random(9);
+		String alphabet = "ab(()|**";
+		int tested = 0;
+		while (tested < 200) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(16);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			State[] states = AutomatonCompiler.compileNFA(regex.toString().toCharArray()).getStates();
+			EpsilonClosure closure = new EpsilonClosure(states);
+			for (State s : states) {
+				StateSet expected = search(states, s.getId());
+				assertEquals(closure.get(s.getId()), expected);
+				boolean accepting = false;
+				for (int id : expected.toArray())
+					accepting |= states[id].isAccepting();
+				assertEquals(closure.isAccepting(s.getId()), accepting);
+			}
+		}
+	}
+
+	/**
+	 * Test that the states of a cycle of epsilon edges share their closure
+	 */
+	@Test
+	public void testCycle() {
+		State[] states = new State[4];
+		for (int i = 0; i < states.length; i++)
+			states[i] = new State(i, i == 3, (i + 1) + "");
+		states[0].addEdge(new Edge(states[1], new NewChar()));
+		states[1].addEdge(new Edge(states[2], new NewChar()));
+		states[2].addEdge(new Edge(states[0], new NewChar()));
+		states[2].addEdge(new Edge(states[3], new NewChar('a')));
+		EpsilonClosure closure = new EpsilonClosure(states);
+		assertEquals(closure.get(0).toString(), "1, 2, 3");
+		assertSame(closure.get(1), closure.get(0));
+		assertSame(closure.get(2), closure.get(0));
+		assertEquals(closure.isAccepting(0), false);
+		assertEquals(closure.isAccepting(3), true);
+	}
+
+	/**
+	 * Test a long chain of epsilon edges, which must not overflow the stack.
+	 * Every state can be reached from the first one without reading anything.
+	 */
+	@Test
+	public void testLongChain() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < 5000; i++)
+			regex.append("a*");
+		Automaton nfa = AutomatonCompiler.compileNFA(regex.toString().toCharArray());
+		EpsilonClosure closure = new EpsilonClosure(nfa.getStates());
+		assertEquals(closure.get(0).size(), nfa.getNumberOfStates());
+		assertEquals(closure.isAccepting(0), true);
+	}
+
+	/**
+	 * Find the closure of a state by searching from it
+	 *
+	 * @param states
+	 *            The states of the NFA
+	 * @param id
+	 *            The id of the state
+	 * @return The closure
+	 */
+	private static StateSet search(State[] states, int id) {
+		StateSet found = new StateSet();
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		found.add(id);
+		queue.add(id);
+		while (!queue.isEmpty())
+			for (Edge e : states[queue.poll()].getEdges())
+				if (e.getInput().isEpsilon() && !found.contains(e.getState().getId())) {
+					found.add(e.getState().getId());
+					queue.add(e.getState().getId());
+				}
+		return found;
+	}
+}
@@ -0,0 +1,181 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.FileScanner;
+import automaton.Matcher;
+
+/**
+ * Class for testing that every match inside a file is found
+ *
+ * @author agent
+ *
+ */
+public class FileScannerTest {
+
+	/**
+	 * Test the offsets found in a small file, with characters of every length
+	 * in UTF-8 and regions smaller than some of them
+	 */
+	@Test
+	public void testOffsets() throws IOException {
+		String text = "xabé中ab😀abbab";
+		char[] regex = "ab*".toCharArray();
+		ArrayList<Long> expected = search(AutomatonCompiler.compileMatcher(regex), text);
+		for (int region = 1; region <= 8; region++)
+			assertEquals(scan(regex, text, region), expected);
+		assertEquals(expected.toString(), "[2, 3, 9, 10, 15, 16, 17, 18, 19]");
+	}
+
+	/**
+	 * Test random texts split into regions of random sizes against trying
+	 * every part of the text
+	 */
+	@Test
+	public void testAgainstSearch() throws IOException {
+		Random random = new Random(6);
+		String[] regexes = { "a(b|c)*a", "(a|b)*abb", "cc*", "a|b|cab", "(ab|é)(ab|é)*" };
+		for (String regex : regexes) {
+			Matcher matcher = AutomatonCompiler.compileMatcher(regex.toCharArray());
+			for (int n = 0; n < 10; n++) {
+				StringBuilder text = new StringBuilder();
+				int length = random.nextInt(200);
+				for (int i = 0; i < length; i++)
+					text.append("abcé\n".charAt(random.nextInt(5)));
+				int region = 1 + random.nextInt(40);
+				assertEquals(scan(regex.toCharArray(), text.toString(), region), search(matcher, text.toString()));
+			}
+		}
+	}
+
+	/**
+	 * Test bytes which are not UTF-8, which are each read as one replacement
+	 * character wherever the regions start, including a stray continuation
+	 * byte at the start of a region
+	 */
+	@Test
+	public void testInvalidBytes() throws IOException {
+		byte[] stray = { 'a', 'b', (byte) 0x80, 'b' };
+		char[] regex = "\uFFFDb".toCharArray();
+		for (int region = 1; region <= 4; region++)
+			assertEquals(scan(regex, stray, region).toString(), "[4]");
+
+		Random random = new Random(20);
+		byte[] alphabet = { 'a', 'b', (byte) 0x80, (byte) 0xA9, (byte) 0xC3, (byte) 0xE2, (byte) 0x82, (byte) 0xAC,
+				(byte) 0xF0, (byte) 0x9F };
+		String[] regexes = { "\uFFFDb", "a(\uFFFD|\u00e9)*", "(a|b)\uFFFD", "\u20ac|\uFFFD\uFFFD" };
+		for (String r : regexes) {
+			for (int n = 0; n < 10; n++) {
+				byte[] bytes = new byte[random.nextInt(200)];
+				for (int i = 0; i < bytes.length; i++)
+					bytes[i] = alphabet[random.nextInt(alphabet.length)];
+				ArrayList<Long> whole = scan(r.toCharArray(), bytes, 1 << 20);
+				assertEquals(scan(r.toCharArray(), bytes, 1 + random.nextInt(12)), whole);
+			}
+		}
+	}
+
+	/**
+	 * Test texts with more matches in a region than are kept before they are
+	 * reported, starting from the start of the search and from other states
+	 */
+	@Test
+	public void testDenseMatches() throws IOException {
+		Random random = new Random(20);
+		byte[] bytes = new byte[1 << 20];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = random.nextInt(4) == 0 ? (byte) 'b' : (byte) 'a';
+		ArrayList<Long> a = new ArrayList<Long>();
+		ArrayList<Long> ax = new ArrayList<Long>();
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == 'a')
+				a.add(i + 1L);
+			if (i > 0 && bytes[i - 1] == 'a')
+				ax.add(i + 1L);
+		}
+		for (int region : new int[] { 1 << 17, 1 << 18, 1 << 20 }) {
+			assertEquals(scan("a".toCharArray(), bytes, region), a);
+			assertEquals(scan("a(a|b)".toCharArray(), bytes, region), ax);
+		}
+	}
+
+	/**
+	 * Find the byte offsets after the matches by trying every part of a text
+	 *
+	 * @param matcher
+	 *            The matcher for the regular expression
+	 * @param text
+	 *            The text
+	 * @return The offsets, in order
+	 */
+	private static ArrayList<Long> search(Matcher matcher, String text) {
+		ArrayList<Long> offsets = new ArrayList<Long>();
+		for (int end = 1; end <= text.length(); end++) {
+			if (Character.isHighSurrogate(text.charAt(end - 1)))
+				continue;
+			for (int start = 0; start < end; start++)
+				if (matcher.matches(text.substring(start, end))) {
+					offsets.add((long) text.substring(0, end).getBytes(StandardCharsets.UTF_8).length);
+					break;
+				}
+		}
+		return offsets;
+	}
+
+	/**
+	 * Find the byte offsets after the matches with the scanner
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @param text
+	 *            The text
+	 * @param region
+	 *            The number of bytes in a region
+	 * @return The offsets, in order
+	 */
+	private static ArrayList<Long> scan(char[] regex, String text, int region) throws IOException {
+		return scan(regex, text.getBytes(StandardCharsets.UTF_8), region);
+	}
+
+	/**
+	 * Find the byte offsets after the matches in some bytes with the scanner
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @param bytes
+	 *            The bytes of the file
+	 * @param region
+	 *            The number of bytes in a region
+	 * @return The offsets, in order
+	 */
+	private static ArrayList<Long> scan(char[] regex, byte[] bytes, int region) throws IOException {
+		Path file = Files.createTempFile("scan", ".txt");
+		try {
+			Files.write(file, bytes);
+			FileScanner scanner = new FileScanner(AutomatonCompiler.compileSearch(regex), new ForkJoinPool(3), region);
+			final ArrayList<Long> offsets = new ArrayList<Long>();
+			long count = scanner.scan(file, new LongConsumer() {
+				@Override
+				public void accept(long offset) {
+					offsets.add(offset);
+				}
+			});
+			assertEquals(count, (long) offsets.size());
+			return offsets;
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
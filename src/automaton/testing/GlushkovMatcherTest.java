@@ -0,0 +1,111 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.DFAMatcher;
+import automaton.GlushkovMatcher;
+import automaton.Matcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing the bit-parallel position automaton
+ *
+ * @author agent
+ *
+ */
+public class GlushkovMatcherTest {
+
+	/**
+	 * Test that the matcher accepts the same words as the minimal DFA
+	 */
+	@Test
+	public void testAgainstDFA() {
+		Random random = new Random(11);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 150) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(14);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			char[] r = regex.toString().toCharArray();
+			Matcher dfa = AutomatonCompiler.compileMatcher(r);
+			Matcher glushkov = new GlushkovMatcher(RegexParser.parse(r));
+			for (int n = 0; n < 40; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(10);
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				assertEquals(glushkov.matches(word), dfa.matches(word));
+				char[] text = ("x" + word + "y").toCharArray();
+				assertEquals(glushkov.matches(text, 1, text.length - 1), dfa.matches(word));
+			}
+		}
+	}
+
+	/**
+	 * Test expressions with more positions than fit in one long, whose DFA
+	 * has millions of states
+	 */
+	@Test
+	public void testManyPositions() {
+		StringBuilder regex = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 60; i++)
+			regex.append("(a|b)");
+		GlushkovMatcher matcher = new GlushkovMatcher(RegexParser.parse(regex.toString().toCharArray()));
+		assertEquals(matcher.getNumberOfPositions(), 123);
+
+		Random random = new Random(4);
+		char[] text = new char[3000];
+		for (int i = 0; i < text.length; i++)
+			text[i] = random.nextBoolean() ? 'a' : 'b';
+		for (int end = 61; end <= text.length; end += 97) {
+			assertEquals(matcher.matches(text, 0, end), text[end - 61] == 'a');
+			assertEquals(matcher.matches(new String(text, 0, end)), text[end - 61] == 'a');
+		}
+	}
+
+	/**
+	 * Test that characters outside the basic Latin block which no position
+	 * reads are rejected, and the ones some position reads are accepted
+	 */
+	@Test
+	public void testNonAscii() {
+		GlushkovMatcher matcher = new GlushkovMatcher(RegexParser.parse("a*b".toCharArray()));
+		assertEquals(matcher.matches("a\u00e9b"), false);
+		assertEquals(matcher.matches("a\u00e9b".toCharArray(), 0, 3), false);
+		assertEquals(matcher.matches("\uffff"), false);
+
+		matcher = new GlushkovMatcher(RegexParser.parse("(a|\u00e9)*z".toCharArray()));
+		assertEquals(matcher.matches("\u00ffz"), false);
+		assertEquals(matcher.matches("\u00e9a\u00e9z"), true);
+		assertEquals(matcher.matches("x\u00e9z".toCharArray(), 1, 3), true);
+	}
+
+	/**
+	 * Test that expressions with too many positions are left to the DFA
+	 */
+	@Test
+	public void testTooManyPositions() {
+		// the star keeps the expression from standing for a set of words
+		StringBuilder regex = new StringBuilder("b*");
+		for (int i = 1; i < GlushkovMatcher.MAX_POSITIONS; i++)
+			regex.append("a");
+		assertTrue(AutomatonCompiler.compileSmall(regex.toString().toCharArray()) instanceof GlushkovMatcher);
+		regex.append("a");
+		assertEquals(GlushkovMatcher.fits(RegexParser.parse(regex.toString().toCharArray())), false);
+		Matcher matcher = AutomatonCompiler.compileSmall(regex.toString().toCharArray());
+		assertTrue(matcher instanceof DFAMatcher);
+		assertEquals(matcher.matches("b" + regex.substring(2)), true);
+	}
+}
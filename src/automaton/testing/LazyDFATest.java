@@ -0,0 +1,98 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.LazyDFA;
+import automaton.Matcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing the matcher building DFA states as words reach them
+ *
+ * @author agent
+ *
+ */
+public class LazyDFATest {
+
+	/**
+	 * Test that the matcher accepts the same words as the full DFA, with
+	 * enough memory to keep every state and with too little to keep any
+	 */
+	@Test
+	public void testAgainstDFA() {
+		Random random = new Random(8);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 150) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(14);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			char[] r = regex.toString().toCharArray();
+			Matcher dfa = AutomatonCompiler.compileMatcher(r);
+			Matcher lazy = AutomatonCompiler.compileLazy(r, LazyDFA.DEFAULT_BUDGET);
+			Matcher starved = AutomatonCompiler.compileLazy(r, 0);
+			for (int n = 0; n < 40; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(10);
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				assertEquals(lazy.matches(word), dfa.matches(word));
+				assertEquals(starved.matches(word), dfa.matches(word));
+			}
+		}
+	}
+
+	/**
+	 * Test an expression whose full DFA has millions of states, which is
+	 * checked with a small amount of memory
+	 */
+	@Test
+	public void testExponentialDFA() {
+		StringBuilder regex = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 20; i++)
+			regex.append("(a|b)");
+		LazyDFA lazy = AutomatonCompiler.compileLazy(regex.toString().toCharArray(), 1 << 16);
+
+		Random random = new Random(2);
+		char[] text = new char[20000];
+		for (int i = 0; i < text.length; i++)
+			text[i] = random.nextBoolean() ? 'a' : 'b';
+		for (int end = 21; end <= text.length; end += 997)
+			assertEquals(lazy.matches(text, 0, end), text[end - 21] == 'a');
+		assertTrue(lazy.getFlushes() > 0);
+		assertTrue(lazy.getNumberOfStates() < 1000);
+	}
+
+	/**
+	 * Test many short words whose states never fit in the memory, which are
+	 * mostly checked by following the NFA rather than building states and
+	 * throwing them away again every few words
+	 */
+	@Test
+	public void testManyShortWords() {
+		StringBuilder regex = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 20; i++)
+			regex.append("(a|b)");
+		LazyDFA lazy = AutomatonCompiler.compileLazy(regex.toString().toCharArray(), 1 << 16);
+
+		Random random = new Random(3);
+		char[] word = new char[40];
+		for (int n = 0; n < 2000; n++) {
+			for (int i = 0; i < word.length; i++)
+				word[i] = random.nextBoolean() ? 'a' : 'b';
+			assertEquals(lazy.matches(word, 0, word.length), word[word.length - 21] == 'a');
+		}
+		assertTrue(lazy.getFlushes() < 10);
+	}
+}
@@ -0,0 +1,145 @@
+package automaton.testing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import automaton.AutomatonCompiler;
+import automaton.Lexer;
+import automaton.TokenStream;
+
+/**
+ * Class measuring how fast a lexer reads the tokens of a small programming
+ * language from a memory-mapped file
+ *
+ * @author agent
+ *
+ */
+public class LexerBenchmark {
+
+	/** The keywords of the language, which come before the names. */
+	private static final String[] KEYWORDS = { "if", "else", "while", "return", "int" };
+
+	/** The symbols of the language. */
+	private static final String[] SYMBOLS = { "=", "==", "+", "-", "<", ";", "{", "}" };
+
+	/**
+	 * Tokenise a file, or one made up of random tokens if none is given, a
+	 * few times and print the speed
+	 *
+	 * @param args
+	 *            The file to read, or the number of megabytes of random
+	 *            tokens to make
+	 * @throws IOException
+	 *             If the file cannot be written or read
+	 */
+	public static void main(String args[]) throws IOException {
+		long start = System.nanoTime();
+		Lexer lexer = AutomatonCompiler.compileLexer(rules());
+		System.out.println("Compiled " + lexer.getNumberOfRules() + " rules into " + lexer.getNumberOfStates()
+				+ " states in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		Path file;
+		boolean made = args.length == 0 || args[0].matches("[0-9]+");
+		if (made) {
+			file = Files.createTempFile("tokens", ".txt");
+			write(file, args.length == 0 ? 64 : Integer.parseInt(args[0]));
+		} else {
+			file = Paths.get(args[0]);
+		}
+
+		try {
+			long bytes = Files.size(file);
+			for (int run = 0; run < 5; run++) {
+				start = System.nanoTime();
+				long tokens = 0;
+				long errors = 0;
+				try (TokenStream t = lexer.tokens(file)) {
+					int rule;
+					while ((rule = t.next()) != TokenStream.END) {
+						tokens++;
+						if (rule == TokenStream.ERROR)
+							errors++;
+					}
+				}
+				double seconds = (System.nanoTime() - start) / 1e9;
+				System.out.printf("%d tokens (%d errors) in %.3f s: %.1f MB/s, %.1f million tokens/s%n", tokens,
+						errors, seconds, bytes / seconds / 1e6, tokens / seconds / 1e6);
+			}
+		} finally {
+			if (made)
+				Files.delete(file);
+		}
+	}
+
+	/**
+	 * Make the rules of the language: the keywords, names, numbers, symbols
+	 * and spaces
+	 *
+	 * @return The regular expressions
+	 */
+	private static List<String> rules() {
+		String letters = "a";
+		for (char c = 'b'; c <= 'z'; c++)
+			letters += "|" + c;
+		String digits = "0";
+		for (char c = '1'; c <= '9'; c++)
+			digits += "|" + c;
+
+		String[] rules = new String[KEYWORDS.length + SYMBOLS.length + 3];
+		int r = 0;
+		for (String keyword : KEYWORDS)
+			rules[r++] = keyword;
+		rules[r++] = "(" + letters + ")(" + letters + "|" + digits + ")*";
+		rules[r++] = "(" + digits + ")(" + digits + ")*";
+		for (String symbol : SYMBOLS)
+			rules[r++] = symbol;
+		rules[r++] = "( |\n)( |\n)*";
+		return Arrays.asList(rules);
+	}
+
+	/**
+	 * Write random tokens of the language to a file
+	 *
+	 * @param file
+	 *            The file
+	 * @param megabytes
+	 *            The number of megabytes to write
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	private static void write(Path file, int megabytes) throws IOException {
+		Random random = new Random(24);
+		long size = (long) megabytes << 20;
+		long written = 0;
+		StringBuilder token = new StringBuilder();
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			while (written < size) {
+				token.setLength(0);
+				switch (random.nextInt(4)) {
+				case 0:
+					token.append(KEYWORDS[random.nextInt(KEYWORDS.length)]);
+					break;
+				case 1:
+					for (int i = 1 + random.nextInt(10); i > 0; i--)
+						token.append((char) ('a' + random.nextInt(26)));
+					break;
+				case 2:
+					token.append(random.nextInt(100000));
+					break;
+				default:
+					token.append(SYMBOLS[random.nextInt(SYMBOLS.length)]);
+				}
+				token.append(random.nextInt(8) == 0 ? '\n' : ' ');
+				out.append(token);
+				written += token.length();
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.Lexer;
+import automaton.Matcher;
+import automaton.TokenStream;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that text is split into the longest tokens of the rules
+ * with the highest priority
+ *
+ * @author agent
+ *
+ */
+public class LexerTest {
+
+	/**
+	 * Read all the tokens of a stream
+	 *
+	 * @param tokens
+	 *            The stream
+	 * @return The rule and the text of each token, with the start of the ones
+	 *         which are not where the one before ended
+	 * @throws IOException
+	 *             If the stream cannot be read
+	 */
+	private static List<String> read(TokenStream tokens) throws IOException {
+		ArrayList<String> read = new ArrayList<String>();
+		long position = 0;
+		try (TokenStream t = tokens) {
+			int rule;
+			while ((rule = t.next()) != TokenStream.END) {
+				String token = rule + " " + t.getText();
+				if (t.getStart() != position)
+					token += " at " + t.getStart();
+				read.add(token);
+				position = t.getStart() + t.getLength();
+			}
+		}
+		return read;
+	}
+
+	/**
+	 * Read all the tokens of a string
+	 *
+	 * @param lexer
+	 *            The lexer
+	 * @param text
+	 *            The string
+	 * @return The rule and the text of each token
+	 * @throws IOException
+	 *             If the string cannot be read
+	 */
+	private static List<String> read(Lexer lexer, String text) throws IOException {
+		return read(lexer.tokens(new StringReader(text)));
+	}
+
+	/**
+	 * Test that the first rule wins between tokens of the same length, and
+	 * the longest token wins between rules
+	 *
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	@Test
+	public void testPriority() throws IOException {
+		Lexer lexer = AutomatonCompiler.compileLexer(Arrays.asList("ab", "(a|b)(a|b)*", "c"));
+		assertEquals(read(lexer, "abcabacab").toString(), "[0 ab, 2 c, 1 aba, 2 c, 0 ab]");
+		assertEquals(lexer.getNumberOfRules(), 3);
+
+		Lexer reversed = AutomatonCompiler.compileLexer(Arrays.asList("(a|b)(a|b)*", "ab", "c"));
+		assertEquals(read(reversed, "abcab").toString(), "[0 ab, 2 c, 0 ab]");
+	}
+
+	/**
+	 * Test that the characters read after the end of a token are read again
+	 * as the start of the next one
+	 *
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	@Test
+	public void testLookahead() throws IOException {
+		Lexer lexer = AutomatonCompiler.compileLexer(Arrays.asList("a", "b", "abc"));
+		assertEquals(read(lexer, "ababc").toString(), "[0 a, 1 b, 2 abc]");
+	}
+
+	/**
+	 * Test characters which do not start a token, and rules accepting the
+	 * empty word, which never make an empty token
+	 *
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	@Test
+	public void testErrors() throws IOException {
+		Lexer lexer = AutomatonCompiler.compileLexer(Arrays.asList("a*", "b"));
+		assertEquals(read(lexer, "aabxxa").toString(), "[0 aa, 1 b, -2 x, -2 x, 0 a]");
+		assertEquals(read(lexer, "").toString(), "[]");
+	}
+
+	/**
+	 * Test a token longer than the characters kept at first
+	 *
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	@Test
+	public void testLongToken() throws IOException {
+		Lexer lexer = AutomatonCompiler.compileLexer(Arrays.asList("a*", "b"));
+		char[] a = new char[100000];
+		Arrays.fill(a, 'a');
+		String text = "b" + new String(a) + "b";
+		try (TokenStream tokens = lexer.tokens(new StringReader(text))) {
+			assertEquals(tokens.next(), 1);
+			assertEquals(tokens.next(), 0);
+			assertEquals(tokens.getStart(), 1L);
+			assertEquals(tokens.getLength(), a.length);
+			assertEquals(tokens.next(), 1);
+			assertEquals(tokens.getStart(), 1L + a.length);
+			assertEquals(tokens.next(), TokenStream.END);
+		}
+	}
+
+	/**
+	 * Test that a mapped file gives the same tokens as a reader, with
+	 * characters of several bytes
+	 *
+	 * @throws IOException
+	 *             If the file cannot be written or read
+	 */
+	@Test
+	public void testFile() throws IOException {
+		Lexer lexer = AutomatonCompiler.compileLexer(Arrays.asList("\u00e9\u00e9*", "(a|b)*", "\u20ac"));
+		Random random = new Random(24);
+		int[] alphabet = "ab\u00e9\u20ac\ud83d\ude00".codePoints().toArray();
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 50000; i++)
+			text.appendCodePoint(alphabet[random.nextInt(alphabet.length)]);
+		Path file = Files.createTempFile("lexer", ".txt");
+		try {
+			Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+			assertEquals(read(lexer.tokens(file)), read(lexer, text.toString()));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Test random rules against finding the longest token of the first rule
+	 * by checking every rule on every prefix
+	 *
+	 * @throws IOException
+	 *             If the text cannot be read
+	 */
+	@Test
+	public void testAgainstEachRule() throws IOException {
+		Random random = new Random(24);
+		String alphabet = "abc(()|*";
+		for (int n = 0; n < 20; n++) {
+			ArrayList<String> rules = new ArrayList<String>();
+			ArrayList<Matcher> matchers = new ArrayList<Matcher>();
+			while (rules.size() < 6) {
+				StringBuilder regex = new StringBuilder();
+				int length = 1 + random.nextInt(8);
+				for (int i = 0; i < length; i++)
+					regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+					continue;
+				rules.add(regex.toString());
+				matchers.add(AutomatonCompiler.compileMatcher(regex.toString().toCharArray()));
+			}
+			Lexer lexer = AutomatonCompiler.compileLexer(rules);
+
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 200; i++)
+				text.append("abcd".charAt(random.nextInt(4)));
+			ArrayList<String> expected = new ArrayList<String>();
+			int start = 0;
+			while (start < text.length()) {
+				int rule = TokenStream.ERROR;
+				int end = start + 1;
+				for (int to = text.length(); to > start && rule == TokenStream.ERROR; to--)
+					for (int r = 0; r < matchers.size(); r++)
+						if (matchers.get(r).matches(text.subSequence(start, to))) {
+							rule = r;
+							end = to;
+							break;
+						}
+				expected.add(rule + " " + text.substring(start, end));
+				start = end;
+			}
+			assertEquals(read(lexer, text.toString()), expected);
+		}
+	}
+}
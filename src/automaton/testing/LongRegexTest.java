@@ -0,0 +1,156 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import automaton.AhoCorasick;
+import automaton.Animation;
+import automaton.AnimationDFA;
+import automaton.AnimationNFA;
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.Edge;
+import automaton.Matcher;
+import automaton.NewChar;
+import automaton.State;
+import automaton.thompsons.BlockType;
+import automaton.thompsons.ConBlock;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing very long and deeply nested regular expressions, which
+ * used to overflow the stack
+ *
+ * @author agent
+ *
+ */
+public class LongRegexTest {
+
+	private static final int SYMBOLS = 100000;
+
+	private ConBlock c;
+
+	/**
+	 * Test a concatenation of 100k symbols
+	 */
+	@Test
+	public void testLongConcatenation() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < SYMBOLS; i++)
+			regex.append((char) ('a' + i % 3));
+
+		c = RegexParser.parse(regex.toString().toCharArray());
+		assertEquals(c.getType(), BlockType.CONCAT);
+		assertEquals(c.getXs(), SYMBOLS - 1);
+		assertEquals(c.getYs(), 0);
+		assertEquals(c.toString().length(), SYMBOLS + 2 * (SYMBOLS - 1));
+	}
+
+	/**
+	 * Test building the automata for a concatenation of 100k symbols without
+	 * frames
+	 */
+	@Test
+	public void testLongCompile() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < SYMBOLS; i++)
+			regex.append((char) ('a' + i % 3));
+
+		Automaton nfa = AutomatonCompiler.compileNFA(regex.toString().toCharArray());
+		assertEquals(nfa.getNumberOfStates(), SYMBOLS + 1);
+		Automaton dfa = AutomatonCompiler.determinise(nfa);
+		assertEquals(dfa.getNumberOfStates(), SYMBOLS + 1);
+	}
+
+	/**
+	 * Test that a plain word of 100k symbols is not made into a set of words,
+	 * and is still matched by the matcher for expressions typed in
+	 */
+	@Test
+	public void testLongLiteral() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < SYMBOLS; i++)
+			regex.append((char) ('a' + i % 3));
+
+		assertNull(AhoCorasick.getLiterals(RegexParser.parse(regex.toString().toCharArray())));
+		Matcher matcher = AutomatonCompiler.compileSmall(regex.toString().toCharArray());
+		assertEquals(matcher.matches(regex), true);
+		assertEquals(matcher.matches(regex.substring(1)), false);
+	}
+
+	/**
+	 * Test 100k nested brackets and stars
+	 */
+	@Test
+	public void testDeepNesting() {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < SYMBOLS; i++)
+			regex.append('(');
+		regex.append("a|b");
+		for (int i = 0; i < SYMBOLS; i++)
+			regex.append(")*");
+
+		c = RegexParser.parse(regex.toString().toCharArray());
+		assertEquals(c.getType(), BlockType.STAR);
+		assertEquals(c.getXs(), 2 * SYMBOLS + 2);
+		assertEquals(c.getYs(), 1);
+		assertEquals(c.toString().length(), 5 * SYMBOLS + 5);
+	}
+
+	/**
+	 * Test laying out an automaton with a path of 100k states
+	 */
+	@Test
+	public void testLongLayout() {
+		Automaton a = new Automaton();
+		State previous = new State(0, false, "1");
+		a.addState(previous);
+		for (int i = 1; i < SYMBOLS; i++) {
+			State s = new State(i, i == SYMBOLS - 1, String.valueOf(i + 1));
+			a.addState(s);
+			previous.addEdge(new Edge(s, new NewChar('a')));
+			previous = s;
+		}
+
+		a.setCoords();
+		State[] states = a.getStates();
+		assertEquals(states[SYMBOLS - 1].getX(), SYMBOLS - 1);
+		assertEquals(states[SYMBOLS - 1].getY(), 0);
+		assertEquals(states[0].getY(), 0);
+	}
+
+	/**
+	 * Test generating and determinising on a thread with a small stack, like
+	 * the one generating in the background
+	 */
+	@Test
+	public void testAnimationsOnSmallStack() throws InterruptedException {
+		StringBuilder regex = new StringBuilder();
+		for (int i = 0; i < 200; i++)
+			regex.append(i % 2 == 0 ? "(ab)" : "c*");
+
+		final Throwable[] thrown = new Throwable[1];
+		final int[] states = new int[2];
+		Thread generate = new Thread(null, new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Animation nfa = new AnimationNFA(RegexParser.parse(regex.toString().toCharArray()));
+					Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+					states[0] = nfa.getAutomaton().getNumberOfStates();
+					states[1] = dfa.getAutomaton().getNumberOfStates();
+				} catch (Throwable t) {
+					thrown[0] = t;
+				}
+			}
+		}, "generate", 128 * 1024);
+		generate.start();
+		generate.join();
+
+		assertNull(thrown[0]);
+		assertEquals(states[0], 100 * 2 + 100 * 3 + 1);
+		assertEquals(states[1], 201);
+	}
+}
@@ -0,0 +1,112 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.CompactAutomaton;
+import automaton.MatchSession;
+import automaton.Matcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that streams read a piece at a time are checked as they
+ * come
+ *
+ * @author agent
+ *
+ */
+public class MatchSessionTest {
+
+	/**
+	 * Test words split into random pieces, read by sessions on the DFA and on
+	 * the NFA, against checking them whole
+	 */
+	@Test
+	public void testAgainstWholeWords() {
+		Random random = new Random(12);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 100) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(14);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			char[] r = regex.toString().toCharArray();
+			Matcher matcher = AutomatonCompiler.compileMatcher(r);
+			MatchSession dfa = new MatchSession(AutomatonCompiler.compileCompact(r));
+			MatchSession nfa = new MatchSession(new CompactAutomaton(AutomatonCompiler.compileNFA(r)));
+			for (int n = 0; n < 30; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(12);
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				char[] text = word.toString().toCharArray();
+				dfa.reset();
+				nfa.reset();
+				int from = 0;
+				while (from < text.length) {
+					int to = from + 1 + random.nextInt(text.length - from);
+					dfa.feed(text, from, to);
+					nfa.feed(CharBuffer.wrap(text, from, to - from));
+					from = to;
+				}
+				assertEquals(dfa.isAccepting(), matcher.matches(word));
+				assertEquals(nfa.isAccepting(), matcher.matches(word));
+				assertEquals(dfa.getPosition(), (long) text.length);
+			}
+		}
+	}
+
+	/**
+	 * Test bytes split in the middle of characters, which are kept until the
+	 * rest of them come
+	 */
+	@Test
+	public void testSplitCharacters() {
+		MatchSession session = new MatchSession(AutomatonCompiler.compileCompact("(é|中)*😀".toCharArray()));
+		byte[] bytes = "é中é😀".getBytes(StandardCharsets.UTF_8);
+		for (int i = 0; i < bytes.length; i++)
+			session.feed(ByteBuffer.wrap(bytes, i, 1), StandardCharsets.UTF_8);
+		assertEquals(session.getPosition(), 5L);
+		assertEquals(session.finish(), true);
+
+		session.reset();
+		session.feed(ByteBuffer.wrap(bytes, 0, 4), StandardCharsets.UTF_8);
+		assertEquals(session.getPosition(), 1L);
+		assertEquals(session.finish(), false);
+		assertEquals(session.isRejected(), true);
+	}
+
+	/**
+	 * Test that a search DFA reports every match as it ends
+	 */
+	@Test
+	public void testMatchesAsTheyEnd() {
+		final ArrayList<Long> ends = new ArrayList<Long>();
+		MatchSession session = new MatchSession(AutomatonCompiler.compileSearch("ab*c".toCharArray()),
+				new LongConsumer() {
+					@Override
+					public void accept(long position) {
+						ends.add(position);
+					}
+				}, true);
+		session.feed("xacab".toCharArray(), 0, 5);
+		assertEquals(ends.toString(), "[3]");
+		session.feed("bbcac".toCharArray(), 0, 5);
+		assertEquals(ends.toString(), "[3, 8, 10]");
+		assertEquals(session.isRejected(), false);
+	}
+}
@@ -0,0 +1,142 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.Animation;
+import automaton.AnimationDFA;
+import automaton.AnimationMinimisation;
+import automaton.AnimationNFA;
+import automaton.Automaton;
+import automaton.AutomatonCompiler;
+import automaton.Edge;
+import automaton.State;
+import automaton.thompsons.RegexParser;
+import gui.canvas.VisualState;
+
+/**
+ * Class for testing that minimising a DFA merges the states accepting the
+ * same words
+ *
+ * @author agent
+ *
+ */
+public class MinimiserTest {
+
+	/**
+	 * Test the number of states of minimal DFAs
+	 */
+	@Test
+	public void testStateCounts() {
+		assertEquals(states("(a|b)*a(a|b)"), 4);
+		assertEquals(states("(a|b)*a(a|b)(a|b)"), 8);
+		assertEquals(states("a*b*|cd*|ef*g"), 6);
+		assertEquals(states("(ab|b*)*"), 2);
+		assertEquals(states("(ab|c)d*(ab|c)d*(ab|c)d*"), 7);
+		assertEquals(states("a|b|c"), 2);
+		assertEquals(states(""), 1);
+	}
+
+	/**
+	 * Test that the minimal DFA accepts the same words as the DFA, that it is
+	 * deterministic and that minimising it again changes nothing
+	 */
+	@Test
+	public void testSameWords() {
+		Random random = new Random(5);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 200) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			Automaton dfa = AutomatonCompiler.compile(regex.toString().toCharArray());
+			Automaton minimal = AutomatonCompiler.minimise(dfa);
+			assertTrue(minimal.getNumberOfStates() <= dfa.getNumberOfStates());
+			assertEquals(AutomatonCompiler.minimise(minimal).getNumberOfStates(), minimal.getNumberOfStates());
+			for (State s : minimal.getStates()) {
+				HashSet<Character> moves = new HashSet<Character>();
+				for (Edge e : s.getEdges())
+					assertTrue(moves.add(e.getInput().getChar()));
+			}
+			for (int word = 0; word < 364; word++)
+				assertEquals(accepts(minimal, word), accepts(dfa, word));
+		}
+	}
+
+	/**
+	 * Test that the minimisation is animated and that every state of the
+	 * minimal DFA is laid out apart from the others
+	 */
+	@Test
+	public void testAnimation() {
+		String regex = "(ab|c)d*(ab|c)d*(ab|c)d*";
+		Animation nfa = new AnimationNFA(RegexParser.parse(regex.toCharArray()));
+		Animation dfa = new AnimationDFA(nfa.getAutomaton(), nfa.getLastFrame());
+		Animation min = new AnimationMinimisation(dfa.getAutomaton());
+
+		// start, the three groups of states merged and the final graph
+		assertEquals(min.getFrameCount(), 5);
+		assertEquals(min.getAutomaton().getNumberOfStates(), 7);
+		assertEquals(min.getFinalDFAwithoutNFA().getStates().length, 7);
+		assertEquals(min.getLastFrame().getLabels().size(), 7);
+		assertEquals(min.getFrame(1).getText(),
+				"DFA states 3, 12, 13 accept the same words and are merged into state 3");
+
+		HashSet<String> coordinates = new HashSet<String>();
+		for (VisualState s : min.getFinalDFAwithoutNFA().getStates())
+			assertTrue(coordinates.add(s.getX() + "," + s.getY()));
+	}
+
+	/**
+	 * Count the states of the minimal DFA for a regular expression
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return The number of states
+	 */
+	private static int states(String regex) {
+		return AutomatonCompiler.compileMinimal(regex.toCharArray()).getNumberOfStates();
+	}
+
+	/**
+	 * Check whether a DFA accepts a word of up to five characters from a, b
+	 * and c, numbered in order of length
+	 *
+	 * @param dfa
+	 *            The DFA
+	 * @param word
+	 *            The number of the word
+	 * @return Whether it is accepted
+	 */
+	private static boolean accepts(Automaton dfa, int word) {
+		State s = dfa.getStart();
+		int length = 0;
+		for (int count = 1; word >= count; count *= 3) {
+			word -= count;
+			length++;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = (char) ('a' + word % 3);
+			word /= 3;
+			State next = null;
+			for (Edge e : s.getEdges())
+				if (e.getInput().getChar() == c)
+					next = e.getState();
+			if (next == null)
+				return false;
+			s = next;
+		}
+		return s.isAccepting();
+	}
+}
@@ -0,0 +1,75 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.Matcher;
+import automaton.MultiPatternMatcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that words are checked against many regular expressions
+ * at once
+ *
+ * @author agent
+ *
+ */
+public class MultiPatternMatcherTest {
+
+	/**
+	 * Test the expressions a few words match
+	 */
+	@Test
+	public void testTags() {
+		MultiPatternMatcher matcher = AutomatonCompiler
+				.compilePatterns(Arrays.asList("a*b", "ab", "(a|b)*", "c", "a*b"));
+		assertEquals(Arrays.toString(matcher.match("ab")), "[0, 1, 2, 4]");
+		assertEquals(Arrays.toString(matcher.match("aab")), "[0, 2, 4]");
+		assertEquals(Arrays.toString(matcher.match("")), "[2]");
+		assertEquals(Arrays.toString(matcher.match("c")), "[3]");
+		assertEquals(Arrays.toString(matcher.match("cc")), "[]");
+		assertEquals(Arrays.toString(matcher.match("xab".toCharArray(), 1, 3)), "[0, 1, 2, 4]");
+		assertEquals(matcher.getNumberOfPatterns(), 5);
+	}
+
+	/**
+	 * Test random sets of expressions against checking each on its own
+	 */
+	@Test
+	public void testAgainstEachPattern() {
+		Random random = new Random(14);
+		String alphabet = "abc(()|*";
+		for (int n = 0; n < 20; n++) {
+			ArrayList<String> regexes = new ArrayList<String>();
+			ArrayList<Matcher> matchers = new ArrayList<Matcher>();
+			while (regexes.size() < 12) {
+				StringBuilder regex = new StringBuilder();
+				int length = 1 + random.nextInt(10);
+				for (int i = 0; i < length; i++)
+					regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+					continue;
+				regexes.add(regex.toString());
+				matchers.add(AutomatonCompiler.compileMatcher(regex.toString().toCharArray()));
+			}
+			MultiPatternMatcher matcher = AutomatonCompiler.compilePatterns(regexes);
+			for (int w = 0; w < 50; w++) {
+				StringBuilder word = new StringBuilder();
+				int length = random.nextInt(8);
+				for (int i = 0; i < length; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				ArrayList<Integer> expected = new ArrayList<Integer>();
+				for (int p = 0; p < matchers.size(); p++)
+					if (matchers.get(p).matches(word))
+						expected.add(p);
+				assertEquals(Arrays.toString(matcher.match(word)), expected.toString());
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import automaton.AnimationNFA;
+import automaton.AnimationNFASimulation;
+import automaton.AutomatonCompiler;
+import automaton.Matcher;
+import automaton.NFASimulator;
+import automaton.thompsons.RegexParser;
+import gui.canvas.StateHighlights;
+import gui.canvas.VisualRepresentation;
+
+/**
+ * Class for testing that words are checked by following every state of the
+ * NFA at once
+ *
+ * @author agent
+ *
+ */
+public class NFASimulatorTest {
+
+	/**
+	 * Test that the simulator accepts the same words as the minimal DFA
+	 */
+	@Test
+	public void testAgainstDFA() {
+		Random random = new Random(10);
+		String alphabet = "abc(()|*";
+		int tested = 0;
+		while (tested < 150) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(14);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			char[] r = regex.toString().toCharArray();
+			Matcher dfa = AutomatonCompiler.compileMatcher(r);
+			Matcher simulator = AutomatonCompiler.compileSimulator(r);
+			for (int n = 0; n < 40; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(10);
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcd".charAt(random.nextInt(4)));
+				assertEquals(simulator.matches(word), dfa.matches(word));
+			}
+		}
+	}
+
+	/**
+	 * Test an expression whose DFA has millions of states, which the
+	 * simulator checks without building it
+	 */
+	@Test
+	public void testExponentialDFA() {
+		StringBuilder regex = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 20; i++)
+			regex.append("(a|b)");
+		NFASimulator simulator = AutomatonCompiler.compileSimulator(regex.toString().toCharArray());
+
+		Random random = new Random(3);
+		char[] text = new char[5000];
+		for (int i = 0; i < text.length; i++)
+			text[i] = random.nextBoolean() ? 'a' : 'b';
+		for (int end = 21; end <= text.length; end += 499)
+			assertEquals(simulator.matches(text, 0, end), text[end - 21] == 'a');
+	}
+
+	/**
+	 * Test the frames of testing a word, one for each character read
+	 */
+	@Test
+	public void testAnimation() {
+		AnimationNFA nfa = new AnimationNFA(RegexParser.parse("a*b".toCharArray()));
+		VisualRepresentation graph = nfa.getLastFrame();
+
+		AnimationNFASimulation accepted = new AnimationNFASimulation(nfa.getAutomaton(), graph, "aab");
+		assertEquals(accepted.getFrameCount(), 5);
+		VisualRepresentation last = accepted.getLastFrame();
+		assertEquals(last.getState(1).getHL(), StateHighlights.GREEN);
+
+		AnimationNFASimulation stuck = new AnimationNFASimulation(nfa.getAutomaton(), graph, "aba");
+		assertEquals(stuck.getFrameCount(), 4);
+		assertEquals(stuck.getLastFrame().getText(), "Not accepting - None of the states the NFA can be in has a move reading a");
+	}
+}
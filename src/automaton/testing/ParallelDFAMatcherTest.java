@@ -0,0 +1,85 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import automaton.AutomatonCompiler;
+import automaton.DFAMatcher;
+import automaton.Matcher;
+import automaton.ParallelDFAMatcher;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing that long words are checked in chunks on several threads
+ *
+ * @author agent
+ *
+ */
+public class ParallelDFAMatcherTest {
+
+	/**
+	 * Test that words split into small chunks are accepted exactly when the
+	 * walk of the whole word accepts them
+	 */
+	@Test
+	public void testAgainstDFA() {
+		Random random = new Random(13);
+		String alphabet = "abc(()|*";
+		ForkJoinPool pool = new ForkJoinPool(4);
+		int tested = 0;
+		while (tested < 100) {
+			StringBuilder regex = new StringBuilder();
+			int length = 1 + random.nextInt(14);
+			for (int i = 0; i < length; i++)
+				regex.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			if (!RegexParser.isWellFormed(regex.toString().toCharArray()))
+				continue;
+			tested++;
+
+			DFAMatcher dfa = AutomatonCompiler.compileMatcher(regex.toString().toCharArray());
+			Matcher parallel = new ParallelDFAMatcher(dfa, pool, 1 + random.nextInt(8));
+			for (int n = 0; n < 20; n++) {
+				StringBuilder word = new StringBuilder();
+				int wordLength = random.nextInt(120);
+				// mostly words of the expression, so that some are accepted
+				for (int i = 0; i < wordLength; i++)
+					word.append("abcab".charAt(random.nextInt(random.nextInt(3) == 0 ? 5 : 2)));
+				assertEquals(parallel.matches(word), dfa.matches(word));
+				char[] text = word.toString().toCharArray();
+				assertEquals(parallel.matches(text, 0, text.length), dfa.matches(word));
+			}
+		}
+	}
+
+	/**
+	 * Test a long word of an expression whose DFA has many states, so that the
+	 * walks from each state must be merged
+	 */
+	@Test
+	public void testLongWord() {
+		StringBuilder regex = new StringBuilder("(a|b)*a");
+		for (int i = 0; i < 8; i++)
+			regex.append("(a|b)");
+		DFAMatcher dfa = AutomatonCompiler.compileMatcher(regex.toString().toCharArray());
+		Matcher parallel = new ParallelDFAMatcher(dfa, new ForkJoinPool(4), 1000);
+
+		Random random = new Random(7);
+		char[] text = new char[100000];
+		for (int i = 0; i < text.length; i++)
+			text[i] = random.nextBoolean() ? 'a' : 'b';
+		for (int end = 50000; end <= text.length; end += 997)
+			assertEquals(parallel.matches(text, 0, end), text[end - 9] == 'a');
+	}
+
+	/**
+	 * Test that chunks with no characters are not allowed
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testEmptyChunk() {
+		new ParallelDFAMatcher(AutomatonCompiler.compileMatcher("a*".toCharArray()), ForkJoinPool.commonPool(), 0);
+	}
+}
@@ -0,0 +1,98 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import automaton.thompsons.BlockType;
+import automaton.thompsons.ConBlock;
+import automaton.thompsons.RegexParser;
+
+/**
+ * Class for testing the parser on long regular expressions
+ *
+ * @author agent
+ *
+ */
+public class RegexParserTest {
+
+	/**
+	 * Test that brackets, stars and ORs nest the same way for long expressions
+	 * as for short ones
+	 */
+	@Test
+	public void testNesting() {
+		assertEquals(RegexParser.parse("abc".toCharArray()).toString(), "(a(bc))");
+		assertEquals(RegexParser.parse("a|b|c".toCharArray()).toString(), "(a|(b|c))");
+		assertEquals(RegexParser.parse("(ab)(c)".toCharArray()).toString(), "((ab)c)");
+		assertEquals(RegexParser.parse("((a|b))*c".toCharArray()).toString(), "((((a|b))*)c)");
+		assertEquals(RegexParser.parse("|b".toCharArray()).toString(), "(\u03B5|b)");
+		assertEquals(RegexParser.parse("a|".toCharArray()).toString(), "(a|\u03B5)");
+		assertEquals(RegexParser.parse("()a".toCharArray()).toString(), "(\u03B5a)");
+		assertEquals(RegexParser.parse("".toCharArray()).getType(), BlockType.EMPTY);
+	}
+
+	/**
+	 * Test that the time taken to parse grows linearly with the length of the
+	 * regular expression
+	 */
+	@Test
+	public void testLinearScaling() {
+		char[] small = alternation(20000);
+		char[] large = alternation(160000);
+
+		// warm up so that we measure compiled code
+		for (int i = 0; i < 5; i++) {
+			RegexParser.parse(small);
+			RegexParser.parse(large);
+		}
+
+		long smallTime = Long.MAX_VALUE;
+		long largeTime = Long.MAX_VALUE;
+		for (int i = 0; i < 10; i++) {
+			smallTime = Math.min(smallTime, timeParse(small));
+			largeTime = Math.min(largeTime, timeParse(large));
+		}
+
+		// 8 times the input should take about 8 times as long, a quadratic
+		// parser would take 64 times as long
+		assertTrue("parsing took " + smallTime + "ns and " + largeTime + "ns", largeTime < smallTime * 24);
+	}
+
+	/**
+	 * Build an alternation of short words, like the generated ones we paste in
+	 *
+	 * @param length
+	 *            The approximate length of the regular expression
+	 * @return The regular expression
+	 */
+	private static char[] alternation(int length) {
+		StringBuilder regex = new StringBuilder();
+		int word = 0;
+		while (regex.length() < length) {
+			if (word > 0)
+				regex.append('|');
+			regex.append("(w").append(word % 10).append("x*)");
+			word++;
+		}
+		return regex.toString().toCharArray();
+	}
+
+	/**
+	 * Time a single parse
+	 *
+	 * @param regex
+	 *            The regular expression
+	 * @return The time in nanoseconds
+	 */
+	private static long timeParse(char[] regex) {
+		// collect garbage left by other tests so it is not counted
+		System.gc();
+		long start = System.nanoTime();
+		ConBlock c = RegexParser.parse(regex);
+		long time = System.nanoTime() - start;
+		assertEquals(c.getType(), BlockType.DISJ);
+		return time;
+	}
+}
@@ -0,0 +1,51 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import automaton.SparseSet;
+
+/**
+ * Class for testing the sparse sets of state ids
+ *
+ * @author agent
+ *
+ */
+public class SparseSetTest {
+
+	/**
+	 * Test adding ids, which keeps them in the order they were added
+	 */
+	@Test
+	public void testAdd() {
+		SparseSet set = new SparseSet(10);
+		assertEquals(set.add(7), true);
+		assertEquals(set.add(2), true);
+		assertEquals(set.add(7), false);
+		assertEquals(set.size(), 2);
+		assertEquals(set.get(0), 7);
+		assertEquals(set.get(1), 2);
+		assertEquals(set.contains(2), true);
+		assertEquals(set.contains(3), false);
+	}
+
+	/**
+	 * Test that emptying the set forgets every id, whatever was left in the
+	 * arrays
+	 */
+	@Test
+	public void testClear() {
+		SparseSet set = new SparseSet(10);
+		for (int i = 0; i < 10; i++)
+			set.add(i);
+		set.clear();
+		assertEquals(set.isEmpty(), true);
+		for (int i = 0; i < 10; i++)
+			assertEquals(set.contains(i), false);
+		set.add(4);
+		assertEquals(set.contains(4), true);
+		assertEquals(set.contains(0), false);
+		assertEquals(set.size(), 1);
+	}
+}
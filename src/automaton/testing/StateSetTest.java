@@ -0,0 +1,89 @@
+package automaton.testing;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import automaton.StateSet;
+
+/**
+ * Class for testing sets of states held as bitsets
+ *
+ * @author agent
+ *
+ */
+public class StateSetTest {
+
+	/**
+	 * Test that a set holds the same states as a set of integers, whichever
+	 * ids they have
+	 */
+	@Test
+	public void testAgainstTreeSet() {
+		Random random = new Random(3);
+		for (int round = 0; round < 50; round++) {
+			StateSet set = new StateSet();
+			TreeSet<Integer> expected = new TreeSet<Integer>();
+			int base = random.nextInt(1000);
+			int count = random.nextInt(100);
+			for (int i = 0; i < count; i++) {
+				int id = base + random.nextInt(300);
+				set.add(id);
+				expected.add(id);
+			}
+			int[] ids = new int[expected.size()];
+			int n = 0;
+			for (int id : expected)
+				ids[n++] = id;
+			assertArrayEquals(set.toArray(), ids);
+			assertEquals(set.size(), expected.size());
+			assertEquals(set.isEmpty(), expected.isEmpty());
+			for (int id = 0; id < 1400; id++)
+				assertEquals(set.contains(id), expected.contains(id));
+		}
+	}
+
+	/**
+	 * Test joining sets which cover different words
+	 */
+	@Test
+	public void testAddAll() {
+		StateSet low = new StateSet();
+		low.add(3);
+		low.add(70);
+		StateSet high = new StateSet();
+		high.add(500);
+		assertFalse(low.intersects(high));
+
+		assertTrue(high.addAll(low));
+		assertFalse(high.addAll(low));
+		assertArrayEquals(high.toArray(), new int[] { 3, 70, 500 });
+		assertTrue(high.intersects(low));
+		assertEquals(high.toString(), "4, 71, 501");
+	}
+
+	/**
+	 * Test that sets of the same states are equal however they were made
+	 */
+	@Test
+	public void testEquality() {
+		StateSet a = new StateSet();
+		a.add(200);
+		a.add(5);
+		StateSet b = new StateSet();
+		b.add(5);
+		StateSet c = new StateSet();
+		c.add(200);
+		b.addAll(c);
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertFalse(a.equals(c));
+		assertEquals(new StateSet(), new StateSet());
+	}
+}
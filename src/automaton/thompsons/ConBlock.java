@@ -1,5 +1,8 @@
 package automaton.thompsons;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Tree-like representation of a regular expression
  *
@@ -13,6 +16,14 @@ public class ConBlock {
 	private Boolean nesting;
 	private ConBlock[] insides;
 	private char elem;
+	// the insides are built first and never change, so these are worked out
+	// once when the ConBlock is created
+	private int xs;
+	private int ys;
+	// how many y coordinates it takes to expand the first insides completely
+	private int ysHelp;
+	// worked out the first time it is asked for
+	private String string;
 
 	/**
 	 * Create a new instance
@@ -38,6 +49,25 @@ public class ConBlock {
 		nesting = true;
 		this.type = type;
 		this.insides = insides;
+		switch (type) {
+		case CONCAT:
+			xs = 1 + insides[0].xs + insides[1].xs;
+			ys = Math.max(insides[0].ys, insides[1].ys);
+			ysHelp = insides[0].ysHelp;
+			break;
+		case DISJ:
+			xs = 2 + Math.max(insides[0].xs, insides[1].xs);
+			ys = 1 + insides[0].ysHelp;
+			ysHelp = 2 + insides[0].ysHelp + insides[0].ysHelp;
+			break;
+		case STAR:
+			xs = 2 + insides[0].xs;
+			ys = insides[0].ys;
+			ysHelp = insides[0].ysHelp;
+			break;
+		default:
+			break;
+		}
 	}
 
 	/**
@@ -46,22 +76,63 @@ public class ConBlock {
 	 * @return The string
 	 */
 	public String toString() {
-		if (nesting) {
-			switch (type) {
-			case DISJ:
-				return "(" + insides[0].toString() + "|" + insides[1].toString() + ")";
-			case STAR:
-				return "((" + insides[0].toString() + ")*)";
-			case CONCAT:
-				return "(" + insides[0].toString() + insides[1].toString() + ")";
-			case EMPTY:
-				return "\u03B5";
-			default:
-				return null;
+		if (string == null)
+			string = write();
+		return string;
+	}
+
+	/**
+	 * Write the ConBlock out, reusing the strings already worked out for any of
+	 * the ConBlocks inside it
+	 * 
+	 * @return The string
+	 */
+	private String write() {
+		StringBuilder out = new StringBuilder();
+		// the pieces still to be written, the next one on top: either further
+		// ConBlocks or the brackets and operators written around them
+		Deque<Object> pieces = new ArrayDeque<Object>();
+		pieces.push(this);
+		while (!pieces.isEmpty()) {
+			Object piece = pieces.pop();
+			if (piece instanceof String) {
+				out.append((String) piece);
+				continue;
+			}
+			ConBlock c = (ConBlock) piece;
+			if (c.string != null) {
+				out.append(c.string);
+			} else if (c.nesting) {
+				switch (c.type) {
+				case DISJ:
+					pieces.push(")");
+					pieces.push(c.insides[1]);
+					pieces.push("|");
+					pieces.push(c.insides[0]);
+					pieces.push("(");
+					break;
+				case STAR:
+					pieces.push(")*)");
+					pieces.push(c.insides[0]);
+					pieces.push("((");
+					break;
+				case CONCAT:
+					pieces.push(")");
+					pieces.push(c.insides[1]);
+					pieces.push(c.insides[0]);
+					pieces.push("(");
+					break;
+				case EMPTY:
+					out.append("\u03B5");
+					break;
+				default:
+					break;
+				}
+			} else {
+				out.append(c.elem);
 			}
-		} else {
-			return "" + elem;
 		}
+		return out.toString();
 	}
 
 	/**
@@ -95,94 +166,22 @@ public class ConBlock {
 	 * Calculates how many x coordinates does it take to display the automaton
 	 * created from this ConBlock
 	 * 
-	 * @param c
-	 *            the ConBlock
 	 * @return an integer representing how many x coordinates does it take to
 	 *         display
 	 */
 	public int getXs() {
-		int sum = 0;
-		switch (type) {
-		case ELEM:
-			sum = 0;
-			break;
-		case EMPTY:
-			sum = 0;
-			break;
-		case CONCAT:
-			sum = 1 + insides[0].getXs() + insides[1].getXs();
-			break;
-		case DISJ:
-			sum = 2 + Math.max(insides[0].getXs(), insides[1].getXs());
-			break;
-		case STAR:
-			sum = 2 + insides[0].getXs();
-			break;
-		default:
-			break;
-		}
-		return sum;
+		return xs;
 	}
 
 	/**
 	 * Calculates how many y coordinates are there going to be above our first element of the conblock 
 	 * created from a ConBlock
 	 * 
-	 * @param c
-	 *            the ConBlock
 	 * @return an integer representing how many y coordinates does it take to
 	 *         display
 	 */
 	public int getYs() {
-		int sum = 0;
-		switch (type) {
-		case ELEM:
-			sum = 0;
-			break;
-		case EMPTY:
-			sum = 0;
-			break;
-		case CONCAT:
-			sum = Math.max(insides[0].getYs(), insides[1].getYs());
-			break;
-		case DISJ:
-			sum = 1 + insides[0].getYsHelp();
-			break;
-		case STAR:
-			sum = insides[0].getYs();
-			break;
-		default:
-			break;
-		}
-		return sum;
-	}
-
-	/**
-	 * A helper function. At the beginning we start looking at how many y coordinates are there going to be above our first element of the conblock,
-	 * once we reach a disjunction this helper function will be called, which will calculate how many y coordinates does it take to expand the disjunction's first conblock completely.
-	 */
-	private int getYsHelp() {
-		int sum = 0;
-		switch (type) {
-		case ELEM:
-			sum = 0;
-			break;
-		case CONCAT:
-			sum = Math.max(insides[0].getYsHelp(), insides[0].getYsHelp());
-			break;
-		case DISJ:
-			sum = 2 + insides[0].getYsHelp() + insides[0].getYsHelp();
-			break;
-		case STAR:
-			sum = insides[0].getYsHelp();
-			break;
-		case EMPTY:
-			sum = 0;
-			break;
-		default:
-			break;
-		}
-		return sum;
+		return ys;
 	}
 
-}
\ No newline at end of file
+}
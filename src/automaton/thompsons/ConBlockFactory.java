@@ -0,0 +1,145 @@
+package automaton.thompsons;
+
+import java.util.HashMap;
+
+/**
+ * Creates ConBlocks so that equal parts of a regular expression are the same
+ * ConBlock. A subexpression which is written several times, like ab|cd in
+ * (ab|cd)*x(ab|cd)*y, is then only stored, measured and written out once.
+ *
+ * @author agent
+ *
+ */
+public class ConBlockFactory {
+
+	private HashMap<Key, ConBlock> blocks = new HashMap<Key, ConBlock>();
+
+	/**
+	 * Get the ConBlock for a character
+	 *
+	 * @param a
+	 *            The character
+	 * @return The ConBlock
+	 */
+	public ConBlock elem(char a) {
+		Key key = new Key(BlockType.ELEM, a, null, null);
+		ConBlock c = blocks.get(key);
+		if (c == null) {
+			c = new ConBlock(a);
+			blocks.put(key, c);
+		}
+		return c;
+	}
+
+	/**
+	 * Get the ConBlock for the empty regular expression
+	 *
+	 * @return The ConBlock
+	 */
+	public ConBlock empty() {
+		return block(BlockType.EMPTY, null);
+	}
+
+	/**
+	 * Get the ConBlock for a star of a ConBlock made by this factory
+	 *
+	 * @param inside
+	 *            The ConBlock repeated
+	 * @return The ConBlock
+	 */
+	public ConBlock star(ConBlock inside) {
+		return block(BlockType.STAR, new ConBlock[] { inside });
+	}
+
+	/**
+	 * Get the ConBlock for a concatenation of two ConBlocks made by this
+	 * factory
+	 *
+	 * @param first
+	 *            The first ConBlock
+	 * @param second
+	 *            The second ConBlock
+	 * @return The ConBlock
+	 */
+	public ConBlock concat(ConBlock first, ConBlock second) {
+		return block(BlockType.CONCAT, new ConBlock[] { first, second });
+	}
+
+	/**
+	 * Get the ConBlock for a disjunction of two ConBlocks made by this factory
+	 *
+	 * @param first
+	 *            The first ConBlock
+	 * @param second
+	 *            The second ConBlock
+	 * @return The ConBlock
+	 */
+	public ConBlock disj(ConBlock first, ConBlock second) {
+		return block(BlockType.DISJ, new ConBlock[] { first, second });
+	}
+
+	/**
+	 * Get the number of different ConBlocks made so far
+	 *
+	 * @return The number of ConBlocks
+	 */
+	public int size() {
+		return blocks.size();
+	}
+
+	/**
+	 * Get the ConBlock with a type and insides, creating it the first time
+	 *
+	 * @param type
+	 *            The type
+	 * @param insides
+	 *            The further ConBlocks
+	 * @return The ConBlock
+	 */
+	private ConBlock block(BlockType type, ConBlock[] insides) {
+		Key key = new Key(type, '\0', insides == null ? null : insides[0],
+				insides == null || insides.length < 2 ? null : insides[1]);
+		ConBlock c = blocks.get(key);
+		if (c == null) {
+			c = new ConBlock(type, insides);
+			blocks.put(key, c);
+		}
+		return c;
+	}
+
+	/**
+	 * What a ConBlock is made of. The insides were made by the factory, so
+	 * equal insides are the same ConBlock and are compared by reference.
+	 */
+	private static class Key {
+
+		private final BlockType type;
+		private final char elem;
+		private final ConBlock first;
+		private final ConBlock second;
+
+		private Key(BlockType type, char elem, ConBlock first, ConBlock second) {
+			this.type = type;
+			this.elem = elem;
+			this.first = first;
+			this.second = second;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return type == k.type && elem == k.elem && first == k.first && second == k.second;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = type.hashCode();
+			hash = 31 * hash + elem;
+			hash = 31 * hash + System.identityHashCode(first);
+			hash = 31 * hash + System.identityHashCode(second);
+			return hash;
+		}
+	}
+}
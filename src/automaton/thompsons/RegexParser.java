@@ -1,5 +1,9 @@
 package automaton.thompsons;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
 /**
  * Class containing methods for parsing a regular expression
  *
@@ -9,7 +13,7 @@ package automaton.thompsons;
  *
  */
 public class RegexParser {
-	
+
 	/**
 	 * Check if a regular expression is well formed
 	 * @param regex
@@ -87,155 +91,114 @@ public class RegexParser {
 	}
 
 	/**
-	 * Parse a RegEx into construction blocks for Thompson's construction algorithm
-	 * @param regex The regular expression
+	 * Parse a RegEx into construction blocks for Thompson's construction
+	 * algorithm. The expression is read once from left to right, so the time
+	 * taken is linear in the length of the expression. Open brackets are kept
+	 * on an explicit stack, so deeply nested expressions cannot overflow the
+	 * thread's stack. Equal subexpressions are parsed into the same ConBlock.
+	 * 
+	 * @param regex
+	 *            The regular expression
 	 * @return The ConBlock
 	 */
 	public static ConBlock parse(char[] regex) {
-		if (regex.length == 0)
-			return new ConBlock(BlockType.EMPTY,null);
-		int disjs = findOr(regex);
-		if (disjs == -1) {
-			// the case when there is no global OR
-			if (regex[0] == '(') {
-				// case when the current expression is a bracketed expression
-				String r = new String(regex);
-				int endbrack = complbrack(r.substring(1).toCharArray());
-				if (endbrack == regex.length - 1) {
-					// case when the whole regex is a bracketed expression
-					return parse(r.substring(1, endbrack).toCharArray());
-				} else {
-					if (regex[++endbrack] == '*') {
-						// case when brackets serve the purpose of expanding
-						// STAR operator on more than one char
-						if (endbrack == regex.length - 1) {
-							// case when the whole regex is a bracketed
-							// expression with a star
-							return new ConBlock(BlockType.STAR,
-									new ConBlock[] { parse(r.substring(1, --endbrack).toCharArray()) });
-						} else {
-							// case when a bracketed expression with a star is
-							// followed by another expression
-							return new ConBlock(BlockType.CONCAT,
-									new ConBlock[] {
-											new ConBlock(BlockType.STAR,
-													new ConBlock[] { parse(r.substring(1, --endbrack).toCharArray()) }),
-											parse(r.substring(endbrack + 2, regex.length).toCharArray()) });
-						}
-					} else {
-						// case when a bracketed expression is followed by
-						// another expression
-						return new ConBlock(BlockType.CONCAT,
-								new ConBlock[] { parse(r.substring(1, --endbrack).toCharArray()),
-										parse(r.substring(++endbrack, regex.length).toCharArray()) });
-					}
-				}
-			} else {
-				// case when the current expression is a char
-				if (regex.length == 1) {
-					// case when the whole regex is a char
-					return new ConBlock(regex[0]);
-				} else {
-					String r = new String(regex);
-					if (regex[1] == '*') {
-						// case when current expression is a char followed by a
-						// STAR
-						if (regex.length == 2) {
-							// case when the whole regex is a char followed by a
-							// STAR
-							return new ConBlock(BlockType.STAR, new ConBlock[] { new ConBlock(regex[0]) });
-						}
-						// case when a char followed by a star is followed by
-						// another expression
-						return new ConBlock(BlockType.CONCAT,
-								new ConBlock[] {
-										new ConBlock(BlockType.STAR, new ConBlock[] { new ConBlock(regex[0]) }),
-										parse(r.substring(2).toCharArray()) });
-					} else {
-						// case when a char is followed by another expression
-						return new ConBlock(BlockType.CONCAT,
-								new ConBlock[] { new ConBlock(regex[0]), parse(r.substring(1).toCharArray()) });
-					}
-				}
-			}
-		} else {
-			// case when there is a global OR
-			String r = new String(regex);
-			// create a construction block for the whole regex
-			if(disjs < 1){
-				return new ConBlock(BlockType.DISJ,
-						new ConBlock[] {
-								// create a construction block for expression to the
-								// left of the OR element
-								new ConBlock(BlockType.EMPTY, null),
-								// create a construction block for expression to the
-								// right of the OR element
-								parse(r.substring(++disjs).toCharArray()) });
-			}else{
-				if(disjs + 1 == r.length()){
-					return new ConBlock(BlockType.DISJ,
-							new ConBlock[] {
-									// create a construction block for expression to the
-									// left of the OR element
-									parse(r.substring(0, disjs).toCharArray()),
-									// create a construction block for expression to the
-									// right of the OR element
-									new ConBlock(BlockType.EMPTY, null) });
-				}else{
-					return new ConBlock(BlockType.DISJ,
-							new ConBlock[] {
-									// create a construction block for expression to the
-									// left of the OR element
-									parse(r.substring(0, disjs).toCharArray()),
-									// create a construction block for ex,pression to the
-									// right of the OR element
-									parse(r.substring(++disjs).toCharArray()) });
-				}
-			}
-			
-		}
+		return parse(regex, new ConBlockFactory());
 	}
 
 	/**
-	 * Find global "|" (OR) element in the RegEx, ignoring the ones in brackets
-	 * and return its index
+	 * Parse a RegEx into construction blocks for Thompson's construction
+	 * algorithm, sharing ConBlocks with everything else made by the factory
 	 * 
 	 * @param regex
-	 *            The RegEx
-	 * @return The global "|"'s index
+	 *            The regular expression
+	 * @param factory
+	 *            The factory creating the ConBlocks
+	 * @return The ConBlock
 	 */
-	private static int findOr(char[] regex) {
-		int brackets = 0;
-		for (int i = 0; i < regex.length; i++) {
-			char val = regex[i];
-			if (val == '(')
-				brackets++;
-			if (val == ')')
-				brackets--;
-			if (val == '|' && brackets == 0)
-				return i;
+	public static ConBlock parse(char[] regex, ConBlockFactory factory) {
+		// the bracket levels enclosing the current one, innermost on top
+		Deque<Level> enclosing = new ArrayDeque<Level>();
+		Level current = new Level(factory);
+
+		for (int pos = 0; pos < regex.length; pos++) {
+			char val = regex[pos];
+			if (val == '(') {
+				// case when brackets start grouping a whole expression
+				enclosing.push(current);
+				current = new Level(factory);
+			} else if (val == ')') {
+				// case when the bracketed expression is complete, it becomes a
+				// single part of the enclosing level
+				ConBlock block = current.finish();
+				current = enclosing.pop();
+				current.parts.add(block);
+			} else if (val == '|') {
+				current.or();
+			} else if (val == '*') {
+				// the STAR operator applies to the part just before it
+				int last = current.parts.size() - 1;
+				current.parts.set(last, factory.star(current.parts.get(last)));
+			} else {
+				current.parts.add(factory.elem(val));
+			}
 		}
-		return -1;
+		return current.finish();
 	}
 
 	/**
-	 * Identify a bracketed expression
-	 * 
-	 * @param regex
-	 *            The RegEx
-	 * @return The index of the closing bracket of this block
+	 * A bracket level of a regular expression which is being parsed.
 	 */
-	private static int complbrack(char[] regex) {
-		int brackets = 1;
-		int counter = 0;
-		while (brackets != 0) {
-			char val = regex[counter];
-			if (val == '(')
-				brackets++;
-			if (val == ')')
-				brackets--;
-			counter++;
+	private static class Level {
+
+		/** The factory creating the ConBlocks. */
+		private final ConBlockFactory factory;
+
+		/** The alternatives before the last global "|" (OR) of this level. */
+		private final ArrayList<ConBlock> alternatives = new ArrayList<ConBlock>();
+
+		/** The parts concatenated after the last global "|" of this level. */
+		private ArrayList<ConBlock> parts = new ArrayList<ConBlock>();
+
+		/**
+		 * Create a new instance
+		 * 
+		 * @param factory
+		 *            The factory creating the ConBlocks
+		 */
+		private Level(ConBlockFactory factory) {
+			this.factory = factory;
+		}
+
+		/**
+		 * Complete the current alternative when a "|" is read. Concatenations
+		 * nest to the right, so "abc" becomes (a(bc)).
+		 */
+		private void or() {
+			ConBlock block;
+			if (parts.isEmpty()) {
+				// case when there is nothing between the ORs/brackets
+				block = factory.empty();
+			} else {
+				block = parts.get(parts.size() - 1);
+				for (int i = parts.size() - 2; i >= 0; i--)
+					block = factory.concat(parts.get(i), block);
+			}
+			alternatives.add(block);
+			parts = new ArrayList<ConBlock>();
+		}
+
+		/**
+		 * Complete the level at its closing bracket or at the end of the RegEx.
+		 * Alternatives nest to the right, so "a|b|c" becomes (a|(b|c)).
+		 * 
+		 * @return The ConBlock
+		 */
+		private ConBlock finish() {
+			or();
+			ConBlock block = alternatives.get(alternatives.size() - 1);
+			for (int i = alternatives.size() - 2; i >= 0; i--)
+				block = factory.disj(alternatives.get(i), block);
+			return block;
 		}
-		return counter;
 	}
-}
\ No newline at end of file
+}
@@ -22,6 +22,7 @@ public class MainMenu extends MenuBar {
 
 	private Menu menuBarAutomata;
 	private MenuItem menuItemTestString;
+	private MenuItem menuItemTestFile;
 
 	private Menu menuHelp;
 	private MenuItem menuItemShowHelp;
@@ -58,7 +59,10 @@ public class MainMenu extends MenuBar {
 		menuItemTestString = new MenuItem("Test a Word");
 		menuItemTestString.setOnAction((event) -> i.openTestString());
 
-		menuBarAutomata.getItems().addAll(menuItemTestString);
+		menuItemTestFile = new MenuItem("Test a File of Words");
+		menuItemTestFile.setOnAction((event) -> i.testWordFile());
+
+		menuBarAutomata.getItems().addAll(menuItemTestString, menuItemTestFile);
 
 		menuHelp = new Menu("View Help");
 		menuItemToggleColourBlind = new MenuItem("Toggle Colour Blind");
@@ -53,6 +53,12 @@ public interface MainMenuInterfacable {
 	 */
 	public void openTestString();
 
+	/**
+	 * Tests every line of a file chosen by the user against the regex of the
+	 * currently selected document, writing the results to another file.
+	 */
+	public void testWordFile();
+
 	/**
 	 * Toggles whether to display colour blind safe colours to the user.
 	 */
@@ -7,10 +7,12 @@ import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
 
 /**
  * Offers control for generating regular expressions.
@@ -23,6 +25,7 @@ public class RegexControls extends HBox {
 
 	private final TextField txtRegexInput;
 	private final Button btnGenerate;
+	private final CheckBox chkMinimise;
 	private final RegexDocument document;
 
 	/**
@@ -54,7 +57,11 @@ public class RegexControls extends HBox {
 			}
 		});
 
-		this.getChildren().addAll(txtRegexInput, btnGenerate);
+		chkMinimise = new CheckBox("Minimise");
+		chkMinimise.setFont(PlaybackControls.defFont);
+		chkMinimise.setTextFill(Color.WHITE);
+
+		this.getChildren().addAll(txtRegexInput, btnGenerate, chkMinimise);
 		this.setSpacing(10);
 		this.setAlignment(Pos.CENTER);
 		this.setPadding(new Insets(0.0, 5.0, 5.0, 10.0));
@@ -67,6 +74,15 @@ public class RegexControls extends HBox {
 		document.attemptGenerate(txtRegexInput.getText());
 	}
 
+	/**
+	 * Gets whether the DFA should be minimised after it is generated.
+	 * 
+	 * @return If minimising is selected.
+	 */
+	public boolean isMinimiseSelected() {
+		return chkMinimise.isSelected();
+	}
+
 	/**
 	 * Sets the text input for the tab.
 	 * 
@@ -6,6 +6,7 @@ import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -25,6 +26,7 @@ public class TestStringControls extends HBox {
 
 	private final TextField txtInput;
 	private final Button btnRun;
+	private final CheckBox chkSimulate;
 	private final TestStringDocument document;
 
 	/**
@@ -63,11 +65,24 @@ public class TestStringControls extends HBox {
 				}
 			}
 		});
-		this.getChildren().addAll(txtInput, btnRun);
+		chkSimulate = new CheckBox("Simulate NFA");
+		chkSimulate.setFont(PlaybackControls.defFont);
+		chkSimulate.setTextFill(Color.WHITE);
+
+		this.getChildren().addAll(txtInput, btnRun, chkSimulate);
 		this.setSpacing(10);
 		this.setAlignment(Pos.CENTER);
 		this.setPadding(new Insets(0.0, 5.0, 5.0, 10.0));
 
 	}
 
+	/**
+	 * Gets whether the string should be tested by simulating the NFA rather
+	 * than by walking the DFA.
+	 * 
+	 * @return If simulating the NFA is selected.
+	 */
+	public boolean isSimulateSelected() {
+		return chkSimulate.isSelected();
+	}
 }
@@ -1,9 +1,20 @@
 package gui.store;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 
+import automaton.AutomatonCompiler;
+import automaton.BatchResult;
+import automaton.BatchTester;
 import gui.components.MainMenuInterfacable;
 import gui.userdata.LoadSaveScreen;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.scene.control.Alert;
@@ -11,6 +22,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.layout.BorderPane;
+import javafx.stage.FileChooser;
 
 /**
  * This handles the functions of the buttons in the menu bar.
@@ -223,7 +235,7 @@ public class DocumentTabPane extends BorderPane implements MainMenuInterfacable
 			Tab newTab = new Tab("Test String - " + d.getCurrentRegex());
 
 			TestStringDocument newDocument = new TestStringDocument(newTab, d.getFinalVisualRepresentation().copy(),
-					colourBlindMode);
+					d.getCurrentRegex(), colourBlindMode);
 			newTab.setContent(newDocument);
 
 			documents.add(newDocument);
@@ -241,4 +253,54 @@ public class DocumentTabPane extends BorderPane implements MainMenuInterfacable
 			showError("No regex entered");
 		}
 	}
+
+	@Override
+	public void testWordFile() {
+		Document d = getSelectedDocument();
+		if (d == null || !d.isRegexDocument() || !d.isGenerated()) {
+			showError("No regex entered");
+			return;
+		}
+
+		FileChooser chooser = new FileChooser();
+		chooser.setTitle("Choose a file of words, one on each line");
+		File input = chooser.showOpenDialog(getScene().getWindow());
+		if (input == null)
+			return;
+		chooser.setTitle("Choose where to save the results");
+		chooser.setInitialDirectory(input.getParentFile());
+		chooser.setInitialFileName(input.getName() + ".results");
+		File output = chooser.showSaveDialog(getScene().getWindow());
+		if (output == null)
+			return;
+
+		final String regex = d.getCurrentRegex();
+		Task<Void> test = new Task<Void>() {
+			@Override
+			public Void call() {
+				String message;
+				try (Reader in = Files.newBufferedReader(input.toPath(), StandardCharsets.UTF_8);
+						Writer out = Files.newBufferedWriter(output.toPath(), StandardCharsets.UTF_8)) {
+					BatchTester tester = new BatchTester(AutomatonCompiler.compileSmall(regex.toCharArray()));
+					BatchResult result = tester.test(in, out);
+					message = result.toString();
+				} catch (IOException e) {
+					message = "The words could not be tested: " + e.getMessage();
+				}
+				final String text = message;
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						Alert alert = new Alert(AlertType.INFORMATION);
+						alert.setTitle("Tested " + input.getName());
+						alert.setHeaderText(null);
+						alert.setContentText(text);
+						alert.showAndWait();
+					}
+				});
+				return null;
+			}
+		};
+		new Thread(test).start();
+	}
 }
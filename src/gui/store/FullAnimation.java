@@ -6,6 +6,7 @@ import java.util.ArrayList;
 
 import automaton.Animation;
 import automaton.AnimationDFA;
+import automaton.AnimationMinimisation;
 import automaton.AnimationNFA;
 
 /**
@@ -18,11 +19,13 @@ public class FullAnimation {
 
 	public final static int NFA = 0;
 	public final static int DFA = 1;
+	public final static int MIN = 2;
 
 	public final static String LBL_NFA = "Generation";
 	public final static String LBL_DFA = "Determinising";
+	public final static String LBL_MIN = "Minimising";
 
-	private int maxCurrent = 2;
+	private int maxCurrent = 3;
 	private int current;
 	private ArrayList<Animation> animations;
 
@@ -46,7 +49,7 @@ public class FullAnimation {
 	 *            The animation to change to.
 	 */
 	public void skipTo(int i) {
-		if (i < maxCurrent && i > -1)
+		if (i < maxCurrent && i > -1 && animations.get(i) != null)
 			current = i;
 	}
 
@@ -61,6 +64,8 @@ public class FullAnimation {
 			animations.set(NFA, a);
 		else if (a instanceof AnimationDFA)
 			animations.set(DFA, a);
+		else if (a instanceof AnimationMinimisation)
+			animations.set(MIN, a);
 	}
 
 	/**
@@ -69,7 +74,7 @@ public class FullAnimation {
 	 * @return If there is an animation to move to.
 	 */
 	protected boolean advance() {
-		if (current < animations.size() - 1) {
+		if (current < animations.size() - 1 && animations.get(current + 1) != null) {
 			current++;
 			return true;
 		} else {
@@ -131,17 +136,22 @@ public class FullAnimation {
 			return LBL_NFA;
 		case DFA:
 			return LBL_DFA;
+		case MIN:
+			return animations.get(MIN) == null ? null : LBL_MIN;
 		default:
 			return null;
 		}
 	}
 
 	/**
-	 * Gets the last frame of the last animation.
+	 * Gets the last frame of the last animation, which is the minimised DFA if
+	 * the DFA was minimised.
 	 * 
 	 * @return The final frame
 	 */
 	public VisualRepresentation getLastVisualRepresentation() {
+		if (animations.get(MIN) != null)
+			return animations.get(MIN).getFinalDFAwithoutNFA();
 		return animations.get(DFA).getFinalDFAwithoutNFA();
 	}
 
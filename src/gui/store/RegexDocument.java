@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import automaton.Animation;
 import automaton.AnimationDFA;
+import automaton.AnimationMinimisation;
 import automaton.AnimationNFA;
 import automaton.thompsons.ConBlock;
 import automaton.thompsons.RegexParser;
@@ -206,6 +207,7 @@ public class RegexDocument extends BorderPane implements Document {
 		gCanvasContainer.getCanvasBox().hideNextPrevBtns();
 
 		final String regex = s;
+		final boolean minimise = gRegexControls.isMinimiseSelected();
 		Task<Void> load = new Task<Void>() {
 			@Override
 			public Void call() {
@@ -237,6 +239,8 @@ public class RegexDocument extends BorderPane implements Document {
 				animations = new FullAnimation();
 				animations.setAnimation(nfa);
 				animations.setAnimation(dfa);
+				if (minimise)
+					animations.setAnimation(new AnimationMinimisation(dfa.getAutomaton()));
 
 				Platform.runLater(new Runnable() {
 					@Override
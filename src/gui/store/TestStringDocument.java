@@ -3,7 +3,11 @@ package gui.store;
 import java.util.ArrayList;
 
 import automaton.Animation;
+import automaton.AnimationNFA;
+import automaton.AnimationNFASimulation;
 import automaton.AnimationTestString;
+import automaton.Automaton;
+import automaton.thompsons.RegexParser;
 import gui.canvas.VisualRepresentation;
 import gui.canvas.VisualState;
 import gui.components.CanvasListContainer;
@@ -46,6 +50,11 @@ public class TestStringDocument extends BorderPane implements Document {
 	private String word;
 	private Animation animation;
 	private final VisualRepresentation baseGraph;
+	private final String regex;
+
+	/** The NFA of the regex and its drawing, built when first simulated. */
+	private Automaton nfa;
+	private VisualRepresentation nfaGraph;
 
 	/**
 	 * @param newTab
@@ -54,11 +63,14 @@ public class TestStringDocument extends BorderPane implements Document {
 	 *            The word to test
 	 * @param animation
 	 *            The animation object
+	 * @param regex
+	 *            The regex the graph was generated from
 	 */
-	public TestStringDocument(Tab newTab, VisualRepresentation graph, boolean colourBlindMode) {
+	public TestStringDocument(Tab newTab, VisualRepresentation graph, String regex, boolean colourBlindMode) {
 		super();
 		this.tab = newTab;
 		this.baseGraph = graph;
+		this.regex = regex;
 		this.colourBlindMode = colourBlindMode;
 
 		this.setBackground(new Background(new BackgroundFill(Color.DARKGREY, CornerRadii.EMPTY, Insets.EMPTY)));
@@ -91,7 +103,16 @@ public class TestStringDocument extends BorderPane implements Document {
 
 		// generate the test string animation
 		word = s;
-		animation = new AnimationTestString(baseGraph.copy(), word);
+		if (gTestStringControls.isSimulateSelected()) {
+			if (nfa == null) {
+				AnimationNFA built = new AnimationNFA(RegexParser.parse(regex.toCharArray()));
+				nfa = built.getAutomaton();
+				nfaGraph = built.getLastFrame();
+			}
+			animation = new AnimationNFASimulation(nfa, nfaGraph, word);
+		} else {
+			animation = new AnimationTestString(baseGraph.copy(), word);
+		}
 
 		if (s.length() < 14)
 			tab.setText(s);
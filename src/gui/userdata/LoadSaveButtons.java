@@ -19,6 +19,7 @@ public class LoadSaveButtons extends HBox {
 	private Button btnSaveLoad;
 	private Button btnCancel;
 	private Button btbDelete;
+	private Button btnTestWord;
 
 	/**
 	 * @param loadSaveScreen
@@ -70,6 +71,18 @@ public class LoadSaveButtons extends HBox {
 		});
 
 		this.getChildren().addAll(btnSaveLoad, btnCancel, btbDelete);
+
+		if (type == LoadSaveScreen.LOAD) {
+			btnTestWord = new Button("Test Word");
+			btnTestWord.setFont(defFont);
+			btnTestWord.setOnAction(new EventHandler<ActionEvent>() {
+				@Override
+				public void handle(ActionEvent event) {
+					loadSaveScreen.testWord();
+				}
+			});
+			this.getChildren().add(btnTestWord);
+		}
 		this.setAlignment(Pos.CENTER);
 	}
 }
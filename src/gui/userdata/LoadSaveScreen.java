@@ -7,14 +7,20 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Optional;
 
+import automaton.AutomatonCompiler;
+import automaton.MultiPatternMatcher;
+import automaton.thompsons.RegexParser;
 import gui.store.RegexDocument;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
 import javafx.scene.Scene;
-//import javafx.scene.control.Alert;
-//import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.TextInputDialog;
 import javafx.scene.image.Image;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Modality;
@@ -44,6 +50,11 @@ public class LoadSaveScreen {
 	// For loading:
 	private RegexDocument regexDocument;
 
+	// For testing a word, built when first needed: the saved regular
+	// expressions in one matcher, and the row of each
+	private MultiPatternMatcher patterns;
+	private ArrayList<Integer> patternRows;
+
 	/**
 	 * This is for LOADING regular expressions.
 	 * 
@@ -186,6 +197,7 @@ public class LoadSaveScreen {
 			indexToSaveAt = data.size() - 1;
 
 		data.set(indexToSaveAt, new SavedRegex(regex));
+		patterns = null;
 	}
 
 	/**
@@ -240,9 +252,52 @@ public class LoadSaveScreen {
 			if (!data.get(indexToDelete).getRegex().equals(EMPTY_LINE)) {
 				data.remove(indexToDelete, indexToDelete + 1);
 				listDoc.updateList(data);
+				patterns = null;
 			}
 		} else {
 			fail("Nothing selected to delete.");
 		}
 	}
+
+	/**
+	 * Asks for a word and lists every saved regular expression matching it,
+	 * checking them all in one pass over the word.
+	 */
+	public void testWord() {
+		TextInputDialog dialog = new TextInputDialog();
+		dialog.setTitle("Test a word");
+		dialog.setHeaderText(null);
+		dialog.setContentText("Word to test against every saved regular expression:");
+		Optional<String> input = dialog.showAndWait();
+		if (!input.isPresent())
+			return;
+		String word = input.get().replaceAll("\\s+", "");
+
+		if (patterns == null) {
+			// only the well formed regular expressions can be compiled
+			ArrayList<String> regexes = new ArrayList<String>();
+			patternRows = new ArrayList<Integer>();
+			for (int i = 0; i < data.size(); i++) {
+				String saved = data.get(i).getRegex();
+				if (!saved.equals(EMPTY_LINE) && RegexParser.isWellFormed(saved.toCharArray())) {
+					regexes.add(saved);
+					patternRows.add(i);
+				}
+			}
+			patterns = AutomatonCompiler.compilePatterns(regexes);
+		}
+
+		// the matches are listed rather than selected, so the row loaded,
+		// saved to or deleted is still the one picked
+		int[] matched = patterns.match(word);
+		StringBuilder list = new StringBuilder();
+		for (int p : matched)
+			list.append(data.get(patternRows.get(p)).getRegex()).append('\n');
+		Alert alert = new Alert(AlertType.INFORMATION);
+		alert.initOwner(stage);
+		alert.setTitle("Test a word");
+		alert.setHeaderText(matched.length + " saved regular expressions match " + word);
+		alert.setContentText(list.toString());
+		alert.showAndWait();
+	}
 }